@@ -0,0 +1,375 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code GeneratedConfigCreator} for every {@code ReflectiveConfig} class being compiled, so that creating
+ * the config does not need to reflect over its fields and annotations.
+ *
+ * <p>The generated creator is named after the binary name of the config class, with {@code $} replaced by {@code _},
+ * followed by {@code _ConfigCreator}. A class is skipped, and left to the reflective creator, whenever generated code
+ * could not behave exactly like reflection would: if any of its fields or processor methods can't be accessed from its
+ * package, if a section's class isn't final, or if a field carries a runtime annotation other than the built-in ones.
+ */
+@SupportedAnnotationTypes("*")
+public final class ConfigCreatorProcessor extends AbstractProcessor {
+	private static final String REFLECTIVE_CONFIG = "org.quiltmc.config.api.ReflectiveConfig";
+	private static final String SECTION = "org.quiltmc.config.api.ReflectiveConfig.Section";
+	private static final String TRACKED_VALUE = "org.quiltmc.config.api.values.TrackedValue";
+	private static final String TRACKED_VALUE_BUILDER = "org.quiltmc.config.api.values.TrackedValue.Builder";
+	private static final String CONFIG_BUILDER = "org.quiltmc.config.api.Config.Builder";
+	private static final String GENERATED_CREATOR = "org.quiltmc.config.impl.builders.GeneratedConfigCreator";
+	private static final String ANNOTATIONS = "org.quiltmc.config.api.annotations.";
+	private static final String COMMENTS = "org.quiltmc.config.impl.Comments";
+	private static final String SUFFIX = "_ConfigCreator";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement config = this.processingEnv.getElementUtils().getTypeElement(REFLECTIVE_CONFIG);
+
+		if (config != null) {
+			for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+				this.visit(type, config);
+			}
+		}
+
+		return false;
+	}
+
+	private void visit(TypeElement type, TypeElement config) {
+		if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT) && this.isSubtype(type.asType(), config)) {
+			try {
+				this.generate(type);
+			} catch (Unsupported e) {
+				this.processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Config class " + type.getQualifiedName() + " will be created through reflection: " + e.getMessage(), type);
+			} catch (IOException e) {
+				this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write config creator: " + e.getMessage(), type);
+			}
+		}
+
+		for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+			this.visit(nested, config);
+		}
+	}
+
+	private void generate(TypeElement type) throws IOException {
+		PackageElement pkg = this.processingEnv.getElementUtils().getPackageOf(type);
+		String packageName = pkg.getQualifiedName().toString();
+		String binaryName = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+		String creatorName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_') + SUFFIX;
+		String typeName = type.getQualifiedName().toString();
+
+		if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+			throw new Unsupported("it is an inner class");
+		}
+
+		this.requireAccessible(type, pkg);
+		this.requireConstructor(type);
+
+		StringBuilder body = new StringBuilder();
+		this.appendFields(body, type, "config", "builder", pkg, 2);
+
+		String processor = this.getProcessorMethod(type, type, CONFIG_BUILDER, pkg);
+
+		if (processor != null) {
+			body.append("\t\tconfig.").append(processor).append("(builder);\n");
+		}
+
+		try (Writer writer = this.processingEnv.getFiler().createSourceFile((packageName.isEmpty() ? "" : packageName + ".") + creatorName, type).openWriter()) {
+			if (!packageName.isEmpty()) {
+				writer.write("package " + packageName + ";\n\n");
+			}
+
+			writer.write("// Generated by the quilt-config-processor annotation processor\n");
+			writer.write("public final class " + creatorName + " extends " + GENERATED_CREATOR + "<" + typeName + "> {\n");
+			writer.write("\t@Override\n");
+			writer.write("\tprotected " + typeName + " createInstance() {\n");
+			writer.write("\t\treturn new " + typeName + "();\n");
+			writer.write("\t}\n\n");
+			writer.write("\t@Override\n");
+			writer.write("\t@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+			writer.write("\tprotected void create(org.quiltmc.config.api.Config.Builder builder, " + typeName + " config) {\n");
+			writer.write(body.toString());
+			writer.write("\t}\n");
+			writer.write("}\n");
+		}
+	}
+
+	private void appendFields(StringBuilder out, TypeElement type, String owner, String builder, PackageElement pkg, int depth) {
+		TypeElement trackedValue = this.processingEnv.getElementUtils().getTypeElement(TRACKED_VALUE);
+		TypeElement section = this.processingEnv.getElementUtils().getTypeElement(SECTION);
+
+		for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			Set<Modifier> modifiers = field.getModifiers();
+
+			if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+				continue;
+			}
+
+			String name = field.getSimpleName().toString();
+
+			if (!modifiers.contains(Modifier.FINAL)) {
+				throw new Unsupported("field '" + name + "' is not final");
+			}
+
+			this.requireAccessible(field, pkg);
+
+			String indent = indent(depth);
+			String access = owner + "." + name;
+
+			if (this.isSubtype(field.asType(), trackedValue)) {
+				StringBuilder annotations = new StringBuilder();
+				this.appendAnnotations(annotations, field, "value", depth + 1);
+
+				String processor = this.getProcessorMethod(type, field, TRACKED_VALUE_BUILDER, pkg);
+
+				if (processor != null) {
+					annotations.append(indent(depth + 1)).append(owner).append('.').append(processor).append("((").append(TRACKED_VALUE_BUILDER).append(") value);\n");
+				}
+
+				out.append(indent).append("value(").append(builder).append(", ").append(access).append(", ").append(literal(name)).append(", value -> {");
+
+				if (annotations.length() == 0) {
+					out.append(" });\n");
+				} else {
+					out.append('\n').append(annotations).append(indent).append("});\n");
+				}
+			} else if (this.isSubtype(field.asType(), section)) {
+				TypeElement sectionType = (TypeElement) ((DeclaredType) field.asType()).asElement();
+				String sectionBuilder = "section" + depth;
+
+				if (!sectionType.getModifiers().contains(Modifier.FINAL)) {
+					throw new Unsupported("the class of section '" + name + "' is not final");
+				}
+
+				this.requireAccessible(sectionType, pkg);
+
+				out.append(indent).append("section(").append(builder).append(", ").append(access).append(", ").append(literal(name)).append(", ").append(sectionBuilder).append(" -> {\n");
+				this.appendAnnotations(out, field, sectionBuilder, depth + 1);
+				this.appendFields(out, sectionType, access, sectionBuilder, pkg, depth + 1);
+				out.append(indent).append("});\n");
+			} else {
+				throw new Unsupported("field '" + name + "' is neither a TrackedValue nor a Section");
+			}
+		}
+	}
+
+	private void appendAnnotations(StringBuilder out, Element field, String builder, int depth) {
+		for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+			String name = annotationType.getQualifiedName().toString();
+			Map<? extends ExecutableElement, ? extends AnnotationValue> values = this.processingEnv.getElementUtils().getElementValuesWithDefaults(annotation);
+
+			switch (name) {
+				case ANNOTATIONS + "Comment":
+					this.appendComment(out, values, builder, depth);
+					break;
+				case COMMENTS:
+					for (AnnotationValue comment : this.<List<? extends AnnotationValue>>get(values, "value")) {
+						this.appendComment(out, this.processingEnv.getElementUtils().getElementValuesWithDefaults((AnnotationMirror) comment.getValue()), builder, depth);
+					}
+
+					break;
+				case ANNOTATIONS + "SerializedName":
+					out.append(indent(depth)).append("serializedName(").append(builder).append(", ").append(literal(this.<String>get(values, "value"))).append(");\n");
+					break;
+				case ANNOTATIONS + "IntegerRange":
+					out.append(indent(depth)).append("integerRange(").append(builder).append(", ").append(literal(this.<Long>get(values, "min"))).append(", ").append(literal(this.<Long>get(values, "max"))).append(");\n");
+					break;
+				case ANNOTATIONS + "FloatRange":
+					out.append(indent(depth)).append("floatRange(").append(builder).append(", ").append(literal(this.<Double>get(values, "min"))).append(", ").append(literal(this.<Double>get(values, "max"))).append(");\n");
+					break;
+				case ANNOTATIONS + "Matches":
+					out.append(indent(depth)).append("matches(").append(builder).append(", ").append(literal(this.<String>get(values, "value"))).append(");\n");
+					break;
+				case ANNOTATIONS + "Processor":
+					// Applied after all other annotations, and only to values
+					break;
+				default:
+					if (this.isRuntimeVisible(annotationType) && !name.startsWith("java.")) {
+						throw new Unsupported("field '" + field.getSimpleName() + "' has annotation @" + name + ", which may have a processor registered at runtime");
+					}
+			}
+		}
+	}
+
+	private void appendComment(StringBuilder out, Map<? extends ExecutableElement, ? extends AnnotationValue> values, String builder, int depth) {
+		out.append(indent(depth)).append("comment(").append(builder);
+
+		for (AnnotationValue line : this.<List<? extends AnnotationValue>>get(values, "value")) {
+			out.append(", ").append(literal((String) line.getValue()));
+		}
+
+		out.append(");\n");
+	}
+
+	/**
+	 * @return the name of the method named by the {@code @Processor} annotation on the given element, if there is one,
+	 * which must be a public method of the given type taking a single parameter of the given type
+	 */
+	private String getProcessorMethod(TypeElement owner, Element annotated, String parameter, PackageElement pkg) {
+		for (AnnotationMirror annotation : annotated.getAnnotationMirrors()) {
+			if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANNOTATIONS + "Processor")) {
+				String name = this.get(this.processingEnv.getElementUtils().getElementValuesWithDefaults(annotation), "value");
+				TypeElement parameterType = this.processingEnv.getElementUtils().getTypeElement(parameter);
+
+				for (ExecutableElement method : ElementFilter.methodsIn(this.processingEnv.getElementUtils().getAllMembers(owner))) {
+					if (method.getSimpleName().contentEquals(name) && method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)
+							&& method.getParameters().size() == 1
+							&& this.processingEnv.getTypeUtils().isSameType(this.processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType()), this.processingEnv.getTypeUtils().erasure(parameterType.asType()))) {
+						this.requireAccessible((TypeElement) method.getEnclosingElement(), pkg);
+
+						return name;
+					}
+				}
+
+				throw new Unsupported("processor method '" + name + "' was not found");
+			}
+		}
+
+		return null;
+	}
+
+	private void requireConstructor(TypeElement type) {
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+				return;
+			}
+		}
+
+		throw new Unsupported("it has no public no-argument constructor");
+	}
+
+	/**
+	 * Requires that the given element and all elements enclosing it can be accessed from the given package.
+	 */
+	private void requireAccessible(Element element, PackageElement from) {
+		for (Element e = element; e != null && e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+			Set<Modifier> modifiers = e.getModifiers();
+
+			if (modifiers.contains(Modifier.PRIVATE) || !modifiers.contains(Modifier.PUBLIC) && !this.processingEnv.getElementUtils().getPackageOf(e).equals(from)) {
+				throw new Unsupported("'" + e.getSimpleName() + "' is not accessible from package '" + from.getQualifiedName() + "'");
+			}
+		}
+	}
+
+	private boolean isRuntimeVisible(TypeElement annotationType) {
+		for (AnnotationMirror annotation : annotationType.getAnnotationMirrors()) {
+			if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals("java.lang.annotation.Retention")) {
+				return annotation.getElementValues().values().iterator().next().getValue().toString().equals("RUNTIME");
+			}
+		}
+
+		return false;
+	}
+
+	private boolean isSubtype(TypeMirror type, TypeElement of) {
+		return type.getKind() == TypeKind.DECLARED && this.processingEnv.getTypeUtils().isSubtype(this.processingEnv.getTypeUtils().erasure(type), this.processingEnv.getTypeUtils().erasure(of.asType()));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T get(Map<? extends ExecutableElement, ? extends AnnotationValue> values, String name) {
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(name)) {
+				return (T) entry.getValue().getValue();
+			}
+		}
+
+		throw new IllegalStateException("Missing annotation value '" + name + "'");
+	}
+
+	private static String indent(int depth) {
+		StringBuilder indent = new StringBuilder();
+
+		for (int i = 0; i < depth; i++) {
+			indent.append('\t');
+		}
+
+		return indent.toString();
+	}
+
+	private static String literal(long value) {
+		return value + "L";
+	}
+
+	private static String literal(double value) {
+		if (Double.isNaN(value)) {
+			return "Double.NaN";
+		} else if (Double.isInfinite(value)) {
+			return value > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+		}
+
+		return value + "D";
+	}
+
+	private static String literal(String value) {
+		StringBuilder literal = new StringBuilder("\"");
+
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+
+			if (c == '"' || c == '\\') {
+				literal.append('\\').append(c);
+			} else if (c < 0x20) {
+				// Unicode escapes of line terminators would end the literal, since they are translated before parsing
+				literal.append(String.format("\\%03o", (int) c));
+			} else if (c > 0x7E) {
+				literal.append(String.format("\\u%04x", (int) c));
+			} else {
+				literal.append(c);
+			}
+		}
+
+		return literal.append('"').toString();
+	}
+
+	private static final class Unsupported extends RuntimeException {
+		private Unsupported(String message) {
+			super(message, null, false, false);
+		}
+	}
+}
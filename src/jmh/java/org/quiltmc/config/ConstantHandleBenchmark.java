@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quiltmc.config.api.serializer.TomlSerializer;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.implementor_api.ConfigEnvironment;
+import org.quiltmc.config.implementor_api.ConfigFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading rarely changing values through {@link TrackedValue#value()} and through
+ * {@link TrackedValue#constantHandle()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstantHandleBenchmark {
+	private static final TrackedValue<Boolean> FLAG = TrackedValue.create(false, "flag");
+	private static final TrackedValue<Integer> SCALE = TrackedValue.create(3, "scale");
+	private static final MethodHandle FLAG_HANDLE;
+	private static final MethodHandle SCALE_HANDLE;
+
+	static {
+		try {
+			ConfigEnvironment environment = new ConfigEnvironment(Files.createTempDirectory("config-benchmark"), TomlSerializer.INSTANCE);
+
+			ConfigFactory.create(environment, "benchmark", "constants", builder -> {
+				builder.field(FLAG);
+				builder.field(SCALE);
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		FLAG_HANDLE = FLAG.constantHandle();
+		SCALE_HANDLE = SCALE.constantHandle();
+	}
+
+	private int counter;
+
+	@Benchmark
+	public int plainValue() {
+		int i = ++this.counter;
+
+		return FLAG.value() ? i : i * SCALE.value();
+	}
+
+	@Benchmark
+	public int constantHandle() throws Throwable {
+		int i = ++this.counter;
+
+		return (boolean) FLAG_HANDLE.invokeExact() ? i : i * (int) SCALE_HANDLE.invokeExact();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.quiltmc.config.api.Config;
+import org.quiltmc.config.api.ReflectiveConfig;
+import org.quiltmc.config.api.annotations.Comment;
+import org.quiltmc.config.api.annotations.IntegerRange;
+import org.quiltmc.config.api.annotations.Processor;
+import org.quiltmc.config.api.annotations.SerializedName;
+import org.quiltmc.config.api.serializer.TomlSerializer;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.impl.builders.ConfigBuilderImpl;
+import org.quiltmc.config.impl.builders.ReflectiveConfigCreator;
+import org.quiltmc.config.implementor_api.ConfigEnvironment;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating the value tree of a {@link ReflectiveConfig} class 1,000 times, as happens when configs are
+ * created per world or recreated on reload. Configs are not built, so no files are read or written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectiveCreationBenchmark {
+	private static final int INSTANCES = 1000;
+	private static final ConfigEnvironment ENVIRONMENT = new ConfigEnvironment(Paths.get("config-benchmark"), TomlSerializer.INSTANCE);
+
+	@Benchmark
+	@OperationsPerInvocation(INSTANCES)
+	public void create(Blackhole blackhole) {
+		for (int i = 0; i < INSTANCES; i++) {
+			ConfigBuilderImpl builder = new ConfigBuilderImpl(ENVIRONMENT, "benchmark", "creation" + i, Paths.get(""));
+			ReflectiveConfigCreator<BenchmarkConfig> creator = ReflectiveConfigCreator.of(BenchmarkConfig.class);
+
+			creator.create(builder);
+			blackhole.consume(creator.getInstance());
+		}
+	}
+
+	@Processor("processConfig")
+	public static final class BenchmarkConfig extends ReflectiveConfig {
+		@Comment("The first value")
+		@SerializedName("first_value")
+		public final TrackedValue<Integer> first = this.value(0);
+
+		@IntegerRange(min = 0, max = 100)
+		public final TrackedValue<Integer> second = this.value(50);
+
+		@Processor("processField")
+		public final TrackedValue<String> third = this.value("third");
+
+		@Comment("A section")
+		public final Nested nested = new Nested();
+
+		public void processConfig(Config.Builder builder) {
+		}
+
+		public void processField(TrackedValue.Builder<String> builder) {
+		}
+
+		public static final class Nested extends Section {
+			@Comment("A nested value")
+			public final TrackedValue<Boolean> flag = this.value(false);
+			public final TrackedValue<Double> scale = this.value(1.0);
+		}
+	}
+}
@@ -26,7 +26,9 @@
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @ApiStatus.NonExtendable
 public interface Config extends MetadataContainer {
@@ -54,6 +56,14 @@ public interface Config extends MetadataContainer {
 	 */
 	void registerCallback(UpdateCallback callback);
 
+	/**
+	 * Adds a listener to this {@link Config} that's called once each time its values are loaded in bulk, such as when
+	 * its file is read through a {@link LoadContext}.
+	 *
+	 * @param callback a reload listener
+	 */
+	void registerReloadCallback(ReloadCallback callback);
+
 	/**
 	 * @return the metadata attached to this value for the specified type
 	 */
@@ -78,6 +88,37 @@ public interface Config extends MetadataContainer {
 	 */
 	Iterable<TrackedValue<?>> values();
 
+	/**
+	 * Returns the values of this config whose value differs from their default value.
+	 *
+	 * <p>The set of modified values is kept up to date as values change, so this does not need to scan the config.
+	 *
+	 * @return all values held by this config file that are not set to their default
+	 */
+	Iterable<TrackedValue<?>> modifiedValues();
+
+	/**
+	 * Returns a version that increases whenever any value of this config changes, including when a value is overridden
+	 * or a {@link CompoundConfigValue} is modified.
+	 *
+	 * @return the version of the latest change to any value, or {@code 0} if no value has changed
+	 * @see ValueTreeNode#version()
+	 */
+	long version();
+
+	/**
+	 * Creates a value that is computed from the given values and cached until any of them changes.
+	 *
+	 * <p>Useful for state that is expensive to build from config values, such as compiled patterns or lookup tables.
+	 * Changes are detected through the {@linkplain TrackedValue#version() versions} of the dependencies, so reading the
+	 * derived value costs no more than comparing them, and it is recomputed at most once per change.
+	 *
+	 * @param function computes the value from the current values of its dependencies
+	 * @param dependencies every value read by the function
+	 * @return a lazily recomputed value
+	 */
+	<T> DerivedValue<T> derive(Supplier<T> function, TrackedValue<?>... dependencies);
+
 	/**
 	 * @param key an iterable of key components that make up a {@link TrackedValue}'s {@link ValueKey}
 	 * @return the value contained by this config class
@@ -118,6 +159,41 @@ public interface Config extends MetadataContainer {
 	 */
 	ValueTreeNode getNode(Iterable<String> key);
 
+	/**
+	 * Adds a value to this config while it is in use, such as an entry for content that is only known once it has been
+	 * loaded. Any sections containing the value that do not exist yet are created without metadata.
+	 *
+	 * <p>The structure of a config is never changed in place: values and sections are added to and removed from a copy,
+	 * which then replaces it. Iterations over this config or its sections that are in progress are never interrupted or
+	 * blocked by changes, and keep seeing the values they started with.
+	 *
+	 * <p>Values added after this config was read from disk hold their default value until they are changed; they are
+	 * written the next time this config is saved.
+	 *
+	 * @param value a value that does not belong to any config, with a key that is not in use by this config
+	 */
+	void addValue(TrackedValue<?> value);
+
+	/**
+	 * Adds a section, along with its values and sections, to this config while it is in use.
+	 *
+	 * <p>See {@link #addValue} for how changes to the structure of a config behave.
+	 *
+	 * @param key an iterable of key components that make up the section's {@link ValueKey}
+	 * @param creator adds the values, sections and metadata of the section
+	 */
+	void addSection(Iterable<String> key, Consumer<SectionBuilder> creator);
+
+	/**
+	 * Removes a value or a section, along with everything inside of it, from this config while it is in use.
+	 *
+	 * <p>See {@link #addValue} for how changes to the structure of a config behave.
+	 *
+	 * @param key an iterable of key components that make up the node's {@link ValueKey}
+	 * @return whether this config had a node with the given key
+	 */
+	boolean removeNode(Iterable<String> key);
+
 	/**
 	 * Creates and registers a config file
 	 *
@@ -398,6 +474,14 @@ interface UpdateCallback {
 		void onUpdate(Config config);
 	}
 
+	interface ReloadCallback {
+		/**
+		 * @param config the config that was reloaded
+		 * @param changedKeys the keys of all values whose value changed
+		 */
+		void onReload(Config config, Set<ValueKey> changedKeys);
+	}
+
 	interface Creator {
 		void create(Builder builder);
 	}
@@ -457,6 +541,54 @@ interface Builder extends SectionBuilder {
 		 * @return this
 		 */
 		Builder format(String format);
+
+		/**
+		 * Defers reading this config's file until one of its values is first accessed
+		 *
+		 * <p>Useful for configs that are rarely or never read, since the file I/O and parsing are moved off of startup.
+		 *
+		 * @return this
+		 */
+		Builder lazy();
+
+		/**
+		 * Makes changes to single values be appended to a small journal file next to the config file, instead of
+		 * rewriting the whole file each time
+		 *
+		 * <p>The journal is folded back into the config file once it holds the given number of changes, whenever
+		 * {@link Config#save()} is called, and when the config is next loaded.
+		 *
+		 * @param compactionThreshold the number of changes after which the config file is rewritten in full
+		 * @return this
+		 */
+		Builder journal(int compactionThreshold);
+
+		/**
+		 * Makes the config file only store values that differ from their defaults
+		 *
+		 * <p>Values missing from the file keep their default. If {@code writeDefaults} is set, every value is also
+		 * written at its default to a reference file next to the config file, {@code <id>.defaults.<extension>}, which
+		 * is pointed to from the config file's header. The reference file is regenerated whenever the config is loaded
+		 * and is never read.
+		 *
+		 * @param writeDefaults whether to write a reference file with the default of every value
+		 * @return this
+		 */
+		Builder sparse(boolean writeDefaults);
+
+		/**
+		 * Keeps the layout of the config file, including any formatting and comments added by hand, whenever possible
+		 *
+		 * <p>When a single value changes, only its literal is replaced in the file instead of regenerating the whole
+		 * file, and a file that already holds every value is not rewritten when the config is loaded. The file is still
+		 * regenerated if its structure no longer matches the config, or if a list, map, or serializable object changes.
+		 * Literals that don't get longer than the spaces after them allow are written in place, regardless of the size
+		 * of the file; longer ones move the rest of the file, and are followed by a few spaces to grow into next time.
+		 * Only supported by the built-in JSON5 and TOML serializers, and not for configs stored in bundles.
+		 *
+		 * @return this
+		 */
+		Builder preserveLayout();
 	}
 
 	@ApiStatus.NonExtendable
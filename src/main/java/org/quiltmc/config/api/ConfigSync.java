@@ -0,0 +1,363 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.api;
+
+import org.quiltmc.config.api.exceptions.ConfigParseException;
+import org.quiltmc.config.api.exceptions.TrackedValueException;
+import org.quiltmc.config.api.values.ConfigSerializableObject;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.api.values.ValueList;
+import org.quiltmc.config.api.values.ValueMap;
+import org.quiltmc.config.api.values.ValueTreeNode;
+import org.quiltmc.config.impl.util.SerializerUtils;
+import org.quiltmc.config.impl.util.ValueCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replicates the values of a {@link Config} to copies of it elsewhere, such as from a server to its clients.
+ *
+ * <p>Each value is given a numeric id from the sorted keys of the config, so that configs with the same values agree on
+ * their ids regardless of the order the values were declared in. {@link #delta(long)} encodes only the values whose
+ * {@linkplain ValueTreeNode#version() version} is newer than a given version of the config, in a compact binary form.
+ * {@link #apply(byte[])} on the receiving side sets every value in a delta as an {@linkplain TrackedValue#setOverride
+ * override} in a single {@link LoadContext#overriding() batch}, so that replicated values are never saved over the
+ * receiver's own config file.
+ *
+ * <p>Versions only have meaning within the process that produced them, so a receiver that connects to a new sender
+ * should start over from a {@linkplain #snapshot() snapshot}. The same goes for values {@linkplain Config#addValue
+ * added} to or {@linkplain Config#removeNode removed} from either config: ids are assigned again from the new values,
+ * and deltas are rejected until both configs have the same values again.
+ */
+public final class ConfigSync {
+	private final Config config;
+	private volatile Ids ids;
+
+	public ConfigSync(Config config) {
+		this.config = config;
+		this.ids = new Ids(config);
+	}
+
+	public Config getConfig() {
+		return this.config;
+	}
+
+	/**
+	 * Encodes the current value of every value in the config.
+	 */
+	public byte[] snapshot() {
+		return this.delta(-1);
+	}
+
+	/**
+	 * Encodes the current value of every value that changed after the given version.
+	 *
+	 * @param since the version returned by {@link #apply} on the receiving side, or the {@linkplain Config#version()
+	 *              version of the config} at the time of the previous delta
+	 */
+	public byte[] delta(long since) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		// Read the version first, so that values changed while encoding are sent again with the next delta
+		long version = this.config.version();
+		Ids ids = this.ids();
+		List<Integer> changed = new ArrayList<>();
+
+		for (int id = 0; id < ids.values.size(); id++) {
+			if (ids.values.get(id).version() > since) {
+				changed.add(id);
+			}
+		}
+
+		try {
+			out.writeInt(ids.schema);
+			writeVarLong(out, version);
+			writeVarLong(out, changed.size());
+
+			int previous = -1;
+
+			for (int id : changed) {
+				TrackedValue<?> value = ids.values.get(id);
+
+				writeVarLong(out, id - previous);
+				writeValue(out, SerializerUtils.getCodec(value), value.value());
+				previous = id;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Overrides every value in a delta produced by another sync of a config with the same values.
+	 *
+	 * @return the version of the sender at the time the delta was produced
+	 * @throws ConfigParseException if the delta is malformed or was produced from a config with different values
+	 * @throws TrackedValueException if any value fails its constraints, once all other values have been applied
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public long apply(byte[] delta) {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta));
+		LoadContext context = LoadContext.overriding();
+		Ids ids = this.ids();
+		long version;
+
+		try {
+			if (in.readInt() != ids.schema) {
+				throw new ConfigParseException("Config delta for '" + this.config.id() + "' was produced from a config with different values");
+			}
+
+			version = readVarLong(in);
+			long count = readVarLong(in);
+			int id = -1;
+
+			for (long i = 0; i < count; i++) {
+				id += readVarLong(in);
+
+				if (id < 0 || id >= ids.values.size()) {
+					throw new ConfigParseException("Unknown value id " + id + " in config delta for '" + this.config.id() + "'");
+				}
+
+				TrackedValue value = ids.values.get(id);
+				context.stage(value, readValue(in, SerializerUtils.getCodec(value)));
+			}
+		} catch (IOException e) {
+			throw new ConfigParseException("Malformed config delta for '" + this.config.id() + "'", e);
+		}
+
+		context.commit();
+
+		return version;
+	}
+
+	/**
+	 * @return the ids of the current values of the config, which are assigned again if any were added or removed
+	 */
+	private Ids ids() {
+		Ids ids = this.ids;
+
+		if (!ids.matches(this.config)) {
+			ids = new Ids(this.config);
+			this.ids = ids;
+		}
+
+		return ids;
+	}
+
+	private static String describe(ValueCodec codec) {
+		return codec.element() == null ? codec.kind().name() : codec.kind() + "<" + describe(codec.element()) + ">";
+	}
+
+	private static void writeValue(DataOutputStream out, ValueCodec codec, Object value) throws IOException {
+		switch (codec.kind()) {
+			case INTEGER:
+			case LONG: {
+				long l = ((Number) value).longValue();
+				writeVarLong(out, (l << 1) ^ (l >> 63));
+				break;
+			}
+			case FLOAT:
+				out.writeFloat((Float) value);
+				break;
+			case DOUBLE:
+				out.writeDouble((Double) value);
+				break;
+			case BOOLEAN:
+				out.writeBoolean((Boolean) value);
+				break;
+			case STRING:
+				writeString(out, (String) value);
+				break;
+			case ENUM:
+				writeString(out, ((Enum<?>) value).name());
+				break;
+			case LIST: {
+				ValueList<?> list = (ValueList<?>) value;
+				writeVarLong(out, list.size());
+
+				for (Object element : list) {
+					writeValue(out, codec.element(), element);
+				}
+
+				break;
+			}
+			case MAP: {
+				ValueMap<?> map = (ValueMap<?>) value;
+				writeVarLong(out, map.size());
+
+				for (Map.Entry<String, ?> entry : map) {
+					writeString(out, entry.getKey());
+					writeValue(out, codec.element(), entry.getValue());
+				}
+
+				break;
+			}
+			case SERIALIZABLE:
+				writeValue(out, codec.element(), ((ConfigSerializableObject<?>) value).getRepresentation());
+				break;
+		}
+	}
+
+	private static Object readValue(DataInputStream in, ValueCodec codec) throws IOException {
+		switch (codec.kind()) {
+			case INTEGER:
+			case LONG: {
+				long l = readVarLong(in);
+				l = (l >>> 1) ^ -(l & 1);
+				return codec.kind() == ValueCodec.Kind.INTEGER ? (Object) (int) l : (Object) l;
+			}
+			case FLOAT:
+				return in.readFloat();
+			case DOUBLE:
+				return in.readDouble();
+			case BOOLEAN:
+				return in.readBoolean();
+			case STRING:
+				return readString(in);
+			case ENUM:
+				return codec.coerce(readString(in), null);
+			case LIST: {
+				int size = readSize(in);
+				List<Object> values = new ArrayList<>(size);
+
+				for (int i = 0; i < size; i++) {
+					values.add(readValue(in, codec.element()));
+				}
+
+				return codec.fromList(values);
+			}
+			case MAP: {
+				int size = readSize(in);
+				Map<String, Object> values = new LinkedHashMap<>();
+
+				for (int i = 0; i < size; i++) {
+					String key = readString(in);
+					values.put(key, readValue(in, codec.element()));
+				}
+
+				return codec.fromMap(values);
+			}
+			case SERIALIZABLE:
+				return codec.fromRepresentation(readValue(in, codec.element()));
+		}
+
+		throw new ConfigParseException("Unexpected value type: " + codec.kind());
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readSize(in)];
+		in.readFully(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int readSize(DataInputStream in) throws IOException {
+		long size = readVarLong(in);
+
+		if (size < 0 || size > in.available()) {
+			throw new ConfigParseException("Invalid size " + size + " in config delta");
+		}
+
+		return (int) size;
+	}
+
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.readByte();
+			value |= (long) (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+
+		throw new ConfigParseException("Malformed variable-length number in config delta");
+	}
+
+	/**
+	 * The ids of the values of a config, along with a hash of their keys and types that is sent with every delta.
+	 */
+	private static final class Ids {
+		private final List<TrackedValue<?>> declared = new ArrayList<>();
+		private final List<TrackedValue<?>> values;
+		private final int schema;
+
+		private Ids(Config config) {
+			for (TrackedValue<?> value : config.values()) {
+				this.declared.add(value);
+			}
+
+			this.values = new ArrayList<>(this.declared);
+			this.values.sort(Comparator.comparing(value -> value.key().toString()));
+
+			int schema = 1;
+
+			for (TrackedValue<?> value : this.values) {
+				schema = 31 * schema + value.key().toString().hashCode();
+				schema = 31 * schema + describe(SerializerUtils.getCodec(value)).hashCode();
+			}
+
+			this.schema = schema;
+		}
+
+		/**
+		 * @return whether the config still has exactly the values these ids were assigned to
+		 */
+		private boolean matches(Config config) {
+			int i = 0;
+
+			for (TrackedValue<?> value : config.values()) {
+				if (i >= this.declared.size() || this.declared.get(i++) != value) {
+					return false;
+				}
+			}
+
+			return i == this.declared.size();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.api;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.quiltmc.config.api.exceptions.TrackedValueException;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.api.values.ValueKey;
+import org.quiltmc.config.impl.LoadContextImpl;
+
+import java.util.Set;
+
+/**
+ * Collects values decoded by a {@link Serializer} so that they can be applied to a {@link Config} in one batch.
+ *
+ * <p>Unlike calling {@link TrackedValue#setValue} for each value, committing a load context validates every staged
+ * value before changing any of them, and invokes each config-level {@link Config.UpdateCallback} only once no matter
+ * how many values were loaded. Values whose decoded value equals their current value are not updated at all.
+ */
+@ApiStatus.NonExtendable
+public interface LoadContext {
+	/**
+	 * Stages a decoded value to be set when this context is committed
+	 *
+	 * @param value the value to update
+	 * @param newValue the decoded value
+	 */
+	<T> void stage(TrackedValue<T> value, T newValue);
+
+	/**
+	 * Validates all staged values and sets those that pass their constraints.
+	 *
+	 * <p>Once all values are set, the update callbacks of each changed value are invoked, followed by the config's
+	 * update callbacks and then its {@link Config.ReloadCallback}s, each exactly once. The callbacks of a config are
+	 * only invoked if the visible value of any of its values changed, so not for changes to overridden values.
+	 *
+	 * @return the keys of all values that changed
+	 * @throws TrackedValueException if any staged value fails its constraints, once all other values have been set;
+	 * the failing values keep their current value
+	 */
+	Set<ValueKey> commit();
+
+	static LoadContext create() {
+		return new LoadContextImpl(false);
+	}
+
+	/**
+	 * Creates a context that applies its values as overrides, as if by {@link TrackedValue#setOverride}, without
+	 * changing their real values or saving their configs.
+	 *
+	 * <p>Every staged value becomes overridden, but only values whose {@linkplain TrackedValue#value() current value}
+	 * differs from the staged value are reported as changed.
+	 */
+	static LoadContext overriding() {
+		return new LoadContextImpl(true);
+	}
+}
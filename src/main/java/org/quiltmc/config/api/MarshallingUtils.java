@@ -16,14 +16,9 @@
 
 package org.quiltmc.config.api;
 
-import org.quiltmc.config.api.exceptions.ConfigParseException;
-import org.quiltmc.config.api.values.ConfigSerializableObject;
+import org.jetbrains.annotations.ApiStatus;
 import org.quiltmc.config.api.values.TrackedValue;
-import org.quiltmc.config.api.values.ValueList;
-import org.quiltmc.config.api.values.ValueMap;
-
-import java.util.List;
-import java.util.function.BiFunction;
+import org.quiltmc.config.impl.util.ValueCodec;
 
 /**
  * Utility class that serializers can use to convert intermediary representations of config values to values that
@@ -35,49 +30,41 @@ private MarshallingUtils() { }
 	/**
 	 * Converts a serialized object into a value object to be stored in a {@link TrackedValue}
 	 *
+	 * <p>When converting many values of the same type, prefer creating a {@link Coercer} once with {@link #coercer(Object)}.
+	 *
 	 * @param object some object to convert
 	 * @param to the default value of the object for the given type
-	 * @param valueMapCreator a function that converts an arbitrary object into a ValueMap with the given default
-	 * @param valueListCreator a function that converts an arbitrary object into a ValueList with the given default
+	 * @param creator a function that reads the entries of the serializer's map representation
 	 * @return some value
 	 */
-	@SuppressWarnings({"unchecked", "rawtypes"})
-	private static <M, L> Object coerce(Object object, Object to, BiFunction<M, ValueMap<?>, ValueMap<?>> valueMapCreator, BiFunction<L, ValueList<?>, ValueList<?>> valueListCreator) {
-		if (to instanceof Integer) {
-			return ((Number) object).intValue();
-		} else if (to instanceof Long) {
-			return ((Number) object).longValue();
-		} else if (to instanceof Float) {
-			return ((Number) object).floatValue();
-		} else if (to instanceof Double) {
-			return ((Number) object).doubleValue();
-		} else if (to instanceof String) {
-			return object;
-		} else if (to instanceof Boolean) {
-			return object;
-		} else if (to instanceof ConfigSerializableObject) {
-			return ((ConfigSerializableObject) to).convertFrom(coerce(object, ((ConfigSerializableObject<?>) to).getRepresentation(), valueMapCreator, valueListCreator));
-		} else if (to instanceof ValueMap) {
-			return valueMapCreator.apply((M) object, (ValueMap<?>) to);
-		} else if (to instanceof ValueList) {
-			return valueListCreator.apply((L) object, (ValueList<?>) to);
-		} else if (to.getClass().isEnum()) {
-			for (Object o : to.getClass().getEnumConstants()) {
-				if (((Enum<?>) o).name().equalsIgnoreCase((String) object)) {
-					return o;
-				}
-			}
-
-			throw new ConfigParseException("Unexpected value '" + object + "' for enum class '" + to.getClass() + "'");
-		} else {
-			throw new ConfigParseException("Unexpected value type: " + to.getClass());
-		}
+	public static <M> Object coerce(Object object, Object to, ValueMapCreator<M> creator) {
+		return ValueCodec.of(to).coerce(object, creator);
 	}
 
-	public static <M, L> Object coerce(Object object, Object to, ValueMapCreator<M> creator) {
-		MapCoercer<M> mapCoercer = new MapCoercer<>(creator);
+	/**
+	 * Creates a reusable conversion plan for values of the same type as the given default value.
+	 *
+	 * <p>The plan resolves the type of the value and of all of its nested elements once, and looks up enum constants
+	 * through a case-insensitive table shared by every plan for the same enum class.
+	 *
+	 * @param to the default value of the type to convert to
+	 * @return a coercer that can be used for any number of values
+	 */
+	public static Coercer coercer(Object to) {
+		return ValueCodec.of(to);
+	}
 
-		return coerce(object, to, mapCoercer, new ListCoercer<>(mapCoercer));
+	/**
+	 * Converts serialized objects into values of a single, pre-resolved type.
+	 */
+	@ApiStatus.NonExtendable
+	public interface Coercer {
+		/**
+		 * @param object some object to convert
+		 * @param creator a function that reads the entries of the serializer's map representation
+		 * @return some value
+		 */
+		<M> Object coerce(Object object, ValueMapCreator<M> creator);
 	}
 
 	public interface ValueMapCreator<M> {
@@ -87,43 +74,4 @@ public static <M, L> Object coerce(Object object, Object to, ValueMapCreator<M>
 	public interface MapEntryConsumer {
 		void put(String key, Object value);
 	}
-
-	@SuppressWarnings("rawtypes")
-	private static final class MapCoercer<M> implements BiFunction<M, ValueMap<?>, ValueMap<?>> {
-		private final ValueMapCreator<M> creator;
-
-		private MapCoercer(ValueMapCreator<M> creator) {
-			this.creator = creator;
-		}
-
-		@Override
-		@SuppressWarnings({"unchecked"})
-		public ValueMap<?> apply(M object, ValueMap<?> defaultValue) {
-			ValueMap.Builder builder = ValueMap.builder(defaultValue.getDefaultValue());
-
-			this.creator.create(object, (key, value) ->
-					builder.put(key, coerce(value, defaultValue.getDefaultValue(), this.creator)));
-
-			return builder.build();
-		}
-	}
-
-	private static final class ListCoercer<M> implements BiFunction<List<?>, ValueList<?>, ValueList<?>> {
-		private final BiFunction<M, ValueMap<?>, ValueMap<?>> valueMapCreator;
-
-		private ListCoercer(BiFunction<M, ValueMap<?>, ValueMap<?>> valueMapCreator) {
-			this.valueMapCreator = valueMapCreator;
-		}
-
-		@Override
-		public ValueList<?> apply(List<?> list, ValueList<?> defaultValue) {
-			Object[] values = list.toArray();
-
-			for (int i = 0; i < values.length; ++i) {
-				values[i] = coerce(values[i], defaultValue.getDefaultValue(), this.valueMapCreator, this);
-			}
-
-			return ValueList.create(defaultValue.getDefaultValue(), values);
-		}
-	}
 }
@@ -17,6 +17,7 @@
 package org.quiltmc.config.api;
 
 import org.quiltmc.config.api.metadata.MetadataType;
+import org.quiltmc.config.api.values.DerivedValue;
 import org.quiltmc.config.api.values.TrackedValue;
 import org.quiltmc.config.api.values.ValueList;
 import org.quiltmc.config.api.values.ValueMap;
@@ -29,6 +30,8 @@
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public abstract class ReflectiveConfig implements Config {
 	private Config wrapped;
@@ -53,6 +56,11 @@ public final void registerCallback(UpdateCallback callback) {
 		this.wrapped.registerCallback(callback);
 	}
 
+	@Override
+	public final void registerReloadCallback(ReloadCallback callback) {
+		this.wrapped.registerReloadCallback(callback);
+	}
+
 	@Override
 	public final <M> M metadata(MetadataType<M, ?> type) {
 		return this.wrapped.metadata(type);
@@ -78,6 +86,21 @@ public final Iterable<TrackedValue<?>> values() {
 		return this.wrapped.values();
 	}
 
+	@Override
+	public final Iterable<TrackedValue<?>> modifiedValues() {
+		return this.wrapped.modifiedValues();
+	}
+
+	@Override
+	public final long version() {
+		return this.wrapped.version();
+	}
+
+	@Override
+	public final <T> DerivedValue<T> derive(Supplier<T> function, TrackedValue<?>... dependencies) {
+		return this.wrapped.derive(function, dependencies);
+	}
+
 	@Override
 	public final TrackedValue<?> getValue(Iterable<String> key) {
 		return this.wrapped.getValue(key);
@@ -93,6 +116,21 @@ public final ValueTreeNode getNode(Iterable<String> key) {
 		return this.wrapped.getNode(key);
 	}
 
+	@Override
+	public final void addValue(TrackedValue<?> value) {
+		this.wrapped.addValue(value);
+	}
+
+	@Override
+	public final void addSection(Iterable<String> key, Consumer<SectionBuilder> creator) {
+		this.wrapped.addSection(key, creator);
+	}
+
+	@Override
+	public final boolean removeNode(Iterable<String> key) {
+		return this.wrapped.removeNode(key);
+	}
+
 	final void setWrappedConfig(Config config) {
 		this.wrapped = config;
 	}
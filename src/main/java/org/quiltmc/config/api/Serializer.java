@@ -19,9 +19,15 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Handles serialization and deserialization of configs for a specific file type.
+ *
+ * <p>Deserializers should apply the values they read through a {@link LoadContext}, so that listeners are notified
+ * once per load rather than once per value. Formats that can be written and read as a stream of tokens should extend
+ * {@link StreamingSerializer} instead, which does both for them.
  */
 public interface Serializer {
 	String getFileExtension();
@@ -29,4 +35,14 @@ public interface Serializer {
 	void serialize(Config config, OutputStream to) throws IOException;
 
 	void deserialize(Config config, InputStream from) throws IOException;
+
+	/**
+	 * Reads a config from a file. Serializers may override this to read large files more efficiently than through
+	 * {@link #deserialize(Config, InputStream)}.
+	 */
+	default void deserialize(Config config, Path from) throws IOException {
+		try (InputStream in = Files.newInputStream(from)) {
+			this.deserialize(config, in);
+		}
+	}
 }
@@ -0,0 +1,438 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.api;
+
+import org.quiltmc.config.api.exceptions.ConfigParseException;
+import org.quiltmc.config.api.values.ConfigSerializableObject;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.api.values.ValueList;
+import org.quiltmc.config.api.values.ValueMap;
+import org.quiltmc.config.api.values.ValueTreeNode;
+import org.quiltmc.config.impl.util.SerializerUtils;
+import org.quiltmc.config.impl.util.ValueCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Serializer} that only has to handle the syntax of its file format.
+ *
+ * <p>The config tree is walked for the serializer, which receives a stream of events through its {@link Writer} with
+ * serialized names and comments already resolved. When deserializing, values are pulled from a {@link Reader}, decoded
+ * according to the type of the value they belong to, and applied through a single {@link LoadContext}. Entries that do
+ * not belong to any value in the config are kept aside, so that values added to the config later can still be read
+ * from them. Entries that do not match the type of their value are skipped, and reported once all other values have
+ * been applied.
+ */
+public abstract class StreamingSerializer implements Serializer {
+	// Returned in place of a value that could not be decoded, once all of its tokens have been consumed
+	private static final Object INVALID = new Object();
+
+	/**
+	 * Creates an event writer for the given stream. The stream is already buffered.
+	 */
+	protected abstract Writer createWriter(OutputStream to) throws IOException;
+
+	/**
+	 * Creates a pull reader for the given stream. The stream is already buffered.
+	 */
+	protected abstract Reader createReader(InputStream from) throws IOException;
+
+	@Override
+	public void serialize(Config config, OutputStream to) throws IOException {
+		try (Writer writer = this.createWriter(new BufferedOutputStream(to))) {
+			writer.beginConfig(SerializerUtils.getHeaderComments(config));
+
+			for (ValueTreeNode node : config.nodes()) {
+				writeNode(writer, node);
+			}
+
+			writer.endConfig();
+		}
+	}
+
+	/**
+	 * Creates a pull reader for the given file. By default, the file is read through a buffered stream.
+	 */
+	protected Reader createReader(Path from) throws IOException {
+		return this.createReader(new BufferedInputStream(Files.newInputStream(from)));
+	}
+
+	@Override
+	public void deserialize(Config config, InputStream from) throws IOException {
+		read(config, this.createReader(new BufferedInputStream(from)));
+	}
+
+	@Override
+	public void deserialize(Config config, Path from) throws IOException {
+		read(config, this.createReader(from));
+	}
+
+	private static void read(Config config, Reader from) throws IOException {
+		LoadContext context = LoadContext.create();
+		List<String> invalid = new ArrayList<>();
+
+		try (Reader reader = from) {
+			readSection(reader, config, Collections.emptyList(), config.nodes(), context, invalid);
+		} catch (IOException | RuntimeException e) {
+			// Values read before the malformed part of the file are kept
+			context.commit();
+			throw e;
+		}
+
+		context.commit();
+
+		if (!invalid.isEmpty()) {
+			throw new ConfigParseException("Skipped entries of the wrong type: " + String.join(", ", invalid));
+		}
+	}
+
+	private static void writeNode(Writer writer, ValueTreeNode node) throws IOException {
+		if (!SerializerUtils.isWritten(node)) {
+			return;
+		}
+
+		List<String> comments = SerializerUtils.getCommentBlock(node).lines();
+		String name = getName(node);
+
+		if (node instanceof ValueTreeNode.Section) {
+			writer.beginSection(name, comments);
+
+			for (ValueTreeNode child : (ValueTreeNode.Section) node) {
+				writeNode(writer, child);
+			}
+
+			writer.endSection();
+		} else {
+			TrackedValue<?> value = (TrackedValue<?>) node;
+
+			writer.beginValue(name, comments);
+			writeValue(writer, SerializerUtils.getCodec(value), SerializerUtils.getWrittenValue(value));
+			writer.endValue();
+		}
+	}
+
+	/**
+	 * Sections are always written under their plain key; only values use their serialized name.
+	 */
+	private static String getName(ValueTreeNode node) {
+		return node instanceof ValueTreeNode.Section ? node.key().getLastComponent() : SerializerUtils.getSerializedName(node);
+	}
+
+	private static void writeValue(Writer writer, ValueCodec codec, Object value) throws IOException {
+		if (value == null) {
+			writer.nullValue();
+			return;
+		}
+
+		switch (codec.kind()) {
+			case INTEGER:
+			case LONG:
+			case FLOAT:
+			case DOUBLE:
+				writer.value((Number) value);
+				break;
+			case BOOLEAN:
+				writer.value((boolean) (Boolean) value);
+				break;
+			case STRING:
+				writer.value((String) value);
+				break;
+			case ENUM:
+				writer.value(((Enum<?>) value).name());
+				break;
+			case LIST: {
+				ValueList<?> list = (ValueList<?>) value;
+				writer.beginList(list.size());
+
+				for (Object element : list) {
+					writeValue(writer, codec.element(), element);
+				}
+
+				writer.endList();
+				break;
+			}
+			case MAP: {
+				ValueMap<?> map = (ValueMap<?>) value;
+				writer.beginMap(map.size());
+
+				for (Map.Entry<String, ?> entry : map) {
+					writer.key(entry.getKey());
+					writeValue(writer, codec.element(), entry.getValue());
+				}
+
+				writer.endMap();
+				break;
+			}
+			case SERIALIZABLE:
+				writeValue(writer, codec.element(), ((ConfigSerializableObject<?>) value).getRepresentation());
+				break;
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static void readSection(Reader reader, Config config, List<String> path, Iterable<ValueTreeNode> nodes, LoadContext context, List<String> invalid) throws IOException {
+		Map<String, ValueTreeNode> children = new HashMap<>();
+
+		for (ValueTreeNode node : nodes) {
+			children.put(getName(node), node);
+		}
+
+		reader.beginObject();
+
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			ValueTreeNode node = children.get(name);
+
+			if (node == null) {
+				List<String> key = new ArrayList<>(path);
+				key.add(name);
+				SerializerUtils.putUnreadEntry(config, key, readAny(reader));
+			} else if (node instanceof ValueTreeNode.Section && reader.peek() == Token.BEGIN_OBJECT) {
+				List<String> key = new ArrayList<>(path);
+				key.add(name);
+				readSection(reader, config, key, (ValueTreeNode.Section) node, context, invalid);
+			} else if (node instanceof TrackedValue) {
+				TrackedValue<?> value = (TrackedValue<?>) node;
+				Object read = readValue(reader, SerializerUtils.getCodec(value));
+
+				if (read == INVALID) {
+					invalid.add(value.key().toString());
+				} else {
+					context.stage((TrackedValue) value, read);
+				}
+			} else {
+				reader.skipValue();
+			}
+		}
+
+		reader.endObject();
+	}
+
+	/**
+	 * Reads a value without knowing its type, as a {@link Map}, a {@link List}, or a scalar.
+	 */
+	private static Object readAny(Reader reader) throws IOException {
+		switch (reader.peek()) {
+			case BEGIN_OBJECT: {
+				Map<String, Object> values = new LinkedHashMap<>();
+				reader.beginObject();
+
+				while (reader.hasNext()) {
+					String key = reader.nextName();
+					values.put(key, readAny(reader));
+				}
+
+				reader.endObject();
+
+				return values;
+			}
+			case BEGIN_ARRAY: {
+				List<Object> values = new ArrayList<>();
+				reader.beginArray();
+
+				while (reader.hasNext()) {
+					values.add(readAny(reader));
+				}
+
+				reader.endArray();
+
+				return values;
+			}
+			default:
+				return reader.nextScalar();
+		}
+	}
+
+	/**
+	 * @return the decoded value, or {@link #INVALID} if it does not match the type of the given plan, in which case the
+	 * rest of the value is still consumed so that reading can go on with the next entry
+	 */
+	private static Object readValue(Reader reader, ValueCodec codec) throws IOException {
+		switch (codec.kind()) {
+			case LIST: {
+				if (reader.peek() != Token.BEGIN_ARRAY) {
+					reader.skipValue();
+					return INVALID;
+				}
+
+				List<Object> values = new ArrayList<>();
+				boolean valid = true;
+				reader.beginArray();
+
+				while (reader.hasNext()) {
+					Object value = readValue(reader, codec.element());
+					valid &= value != INVALID;
+					values.add(value);
+				}
+
+				reader.endArray();
+
+				return valid ? codec.fromList(values) : INVALID;
+			}
+			case MAP: {
+				if (reader.peek() != Token.BEGIN_OBJECT) {
+					reader.skipValue();
+					return INVALID;
+				}
+
+				Map<String, Object> values = new LinkedHashMap<>();
+				boolean valid = true;
+				reader.beginObject();
+
+				while (reader.hasNext()) {
+					String key = reader.nextName();
+					Object value = readValue(reader, codec.element());
+					valid &= value != INVALID;
+					values.put(key, value);
+				}
+
+				reader.endObject();
+
+				return valid ? codec.fromMap(values) : INVALID;
+			}
+			case SERIALIZABLE: {
+				Object representation = readValue(reader, codec.element());
+
+				return representation == INVALID ? INVALID : decode(() -> codec.fromRepresentation(representation));
+			}
+			default:
+				if (reader.peek() != Token.SCALAR) {
+					reader.skipValue();
+					return INVALID;
+				}
+
+				Object scalar = reader.nextScalar();
+
+				return decode(() -> codec.coerce(scalar, null));
+		}
+	}
+
+	private static Object decode(Supplier<Object> decoder) {
+		try {
+			return decoder.get();
+		} catch (ConfigParseException | ClassCastException | NullPointerException e) {
+			return INVALID;
+		}
+	}
+
+	/**
+	 * Receives the contents of a config as a stream of events.
+	 *
+	 * <p>Every value begins with {@link #beginValue} and ends with {@link #endValue}, and is written in between as either
+	 * a single scalar or a list or map of further values. Map entries are each preceded by {@link #key}.
+	 */
+	public interface Writer extends Closeable {
+		/**
+		 * @param comments the comments of the config itself
+		 */
+		void beginConfig(List<String> comments) throws IOException;
+
+		void endConfig() throws IOException;
+
+		/**
+		 * @param name the key of the section
+		 * @param comments the comment lines of the section, including any generated ones
+		 */
+		void beginSection(String name, List<String> comments) throws IOException;
+
+		void endSection() throws IOException;
+
+		/**
+		 * @param name the serialized name of the value
+		 * @param comments the comment lines of the value, including its options, constraints, and default value
+		 */
+		void beginValue(String name, List<String> comments) throws IOException;
+
+		void endValue() throws IOException;
+
+		void beginList(int size) throws IOException;
+
+		void endList() throws IOException;
+
+		void beginMap(int size) throws IOException;
+
+		void key(String key) throws IOException;
+
+		void endMap() throws IOException;
+
+		void value(Number value) throws IOException;
+
+		void value(boolean value) throws IOException;
+
+		void value(String value) throws IOException;
+
+		void nullValue() throws IOException;
+	}
+
+	/**
+	 * Reads the contents of a file one token at a time.
+	 *
+	 * <p>The file itself is read as an object, and sections and maps as nested objects.
+	 */
+	public interface Reader extends Closeable {
+		Token peek() throws IOException;
+
+		/**
+		 * @return whether the current object or array has any more entries
+		 */
+		boolean hasNext() throws IOException;
+
+		void beginObject() throws IOException;
+
+		void endObject() throws IOException;
+
+		void beginArray() throws IOException;
+
+		void endArray() throws IOException;
+
+		String nextName() throws IOException;
+
+		/**
+		 * @return the next scalar, as a {@link Number}, {@link Boolean}, {@link String}, or {@code null}
+		 */
+		Object nextScalar() throws IOException;
+
+		/**
+		 * Skips the next value, including all of its contents if it is an object or array.
+		 */
+		void skipValue() throws IOException;
+	}
+
+	public enum Token {
+		BEGIN_OBJECT,
+		END_OBJECT,
+		BEGIN_ARRAY,
+		END_ARRAY,
+		NAME,
+		SCALAR,
+		END_DOCUMENT
+	}
+}
@@ -18,10 +18,14 @@
 
 import org.jetbrains.annotations.ApiStatus;
 import org.quiltmc.config.api.metadata.MetadataType;
+import org.quiltmc.config.api.values.DerivedValue;
 import org.quiltmc.config.api.values.TrackedValue;
 import org.quiltmc.config.api.values.ValueTreeNode;
 
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 
 /**
@@ -51,6 +55,11 @@ public final void registerCallback(UpdateCallback callback) {
 		this.wrapped.registerCallback(callback);
 	}
 
+	@Override
+	public final void registerReloadCallback(ReloadCallback callback) {
+		this.wrapped.registerReloadCallback(callback);
+	}
+
 	@Override
 	public final <M> M metadata(MetadataType<M, ?> type) {
 		return this.wrapped.metadata(type);
@@ -61,6 +70,11 @@ public final <M> boolean hasMetadata(MetadataType<M, ?> type) {
 		return this.wrapped.hasMetadata(type);
 	}
 
+	@Override
+	public final Map<MetadataType<?, ?>, Object> metadata() {
+		return this.wrapped.metadata();
+	}
+
 	@Override
 	public final void save() {
 		this.wrapped.save();
@@ -71,6 +85,21 @@ public final Iterable<TrackedValue<?>> values() {
 		return this.wrapped.values();
 	}
 
+	@Override
+	public final Iterable<TrackedValue<?>> modifiedValues() {
+		return this.wrapped.modifiedValues();
+	}
+
+	@Override
+	public final long version() {
+		return this.wrapped.version();
+	}
+
+	@Override
+	public final <T> DerivedValue<T> derive(Supplier<T> function, TrackedValue<?>... dependencies) {
+		return this.wrapped.derive(function, dependencies);
+	}
+
 	@Override
 	public final TrackedValue<?> getValue(Iterable<String> key) {
 		return this.wrapped.getValue(key);
@@ -86,6 +115,21 @@ public final ValueTreeNode getNode(Iterable<String> key) {
 		return this.wrapped.getNode(key);
 	}
 
+	@Override
+	public final void addValue(TrackedValue<?> value) {
+		this.wrapped.addValue(value);
+	}
+
+	@Override
+	public final void addSection(Iterable<String> key, Consumer<SectionBuilder> creator) {
+		this.wrapped.addSection(key, creator);
+	}
+
+	@Override
+	public final boolean removeNode(Iterable<String> key) {
+		return this.wrapped.removeNode(key);
+	}
+
 	@ApiStatus.Internal
 	public final void setWrappedConfig(Config config) {
 		this.wrapped = config;
@@ -16,10 +16,12 @@
 
 package org.quiltmc.config.api.metadata;
 
+import org.jetbrains.annotations.ApiStatus;
 import org.quiltmc.config.api.Config;
 import org.quiltmc.config.api.values.*;
 
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -30,6 +32,10 @@
  * <p>See also {@link TrackedValue.Builder#metadata}, {@link Config.Builder#metadata}, and {@link Config.SectionBuilder#metadata}
  */
 public final class MetadataType<T, B extends MetadataType.Builder<T>> {
+	// Copy-on-write, so that lookups by id never lock; metadata types are only created a few times per program
+	private static volatile MetadataType<?, ?>[] types = new MetadataType<?, ?>[0];
+
+	private final int id;
 	private final Supplier<Optional<T>> defaultValueSupplier;
 	private final Function<Type, Optional<T>> trackedValueDefaultValueSupplier;
 	private final Supplier<B> builderSupplier;
@@ -38,6 +44,41 @@ private MetadataType(Supplier<Optional<T>> defaultValueSupplier, Function<Type,
 		this.defaultValueSupplier = defaultValueSupplier;
 		this.trackedValueDefaultValueSupplier = trackedValueDefaultValueSupplier;
 		this.builderSupplier = builderSupplier;
+		this.id = register(this);
+	}
+
+	private static synchronized int register(MetadataType<?, ?> type) {
+		int id = types.length;
+		MetadataType<?, ?>[] updated = Arrays.copyOf(types, id + 1);
+
+		updated[id] = type;
+		types = updated;
+
+		return id;
+	}
+
+	/**
+	 * @return the index of this type among all metadata types, which are numbered densely in order of creation
+	 */
+	@ApiStatus.Internal
+	public int id() {
+		return this.id;
+	}
+
+	/**
+	 * @return the number of metadata types created so far
+	 */
+	@ApiStatus.Internal
+	public static int count() {
+		return types.length;
+	}
+
+	/**
+	 * @return the metadata type with the given {@linkplain #id() id}
+	 */
+	@ApiStatus.Internal
+	public static MetadataType<?, ?> byId(int id) {
+		return types[id];
 	}
 
 	/**
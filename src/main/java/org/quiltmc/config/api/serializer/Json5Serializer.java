@@ -16,21 +16,17 @@
 
 package org.quiltmc.config.api.serializer;
 
+import org.jetbrains.annotations.ApiStatus;
 import org.quiltmc.config.api.Config;
-import org.quiltmc.config.api.Constraint;
-import org.quiltmc.config.api.MarshallingUtils;
-import org.quiltmc.config.api.Serializer;
-import org.quiltmc.config.api.annotations.Comment;
-import org.quiltmc.config.api.annotations.SerializedName;
+import org.quiltmc.config.api.StreamingSerializer;
 import org.quiltmc.config.api.exceptions.ConfigParseException;
-import org.quiltmc.config.api.values.CompoundConfigValue;
 import org.quiltmc.config.api.values.ConfigSerializableObject;
-import org.quiltmc.config.api.values.TrackedValue;
 import org.quiltmc.config.api.values.ValueList;
 import org.quiltmc.config.api.values.ValueMap;
-import org.quiltmc.config.api.values.ValueTreeNode;
-import org.quiltmc.config.impl.tree.TrackedValueImpl;
-import org.quiltmc.config.impl.util.SerializerUtils;
+import org.quiltmc.config.impl.util.Json5LiteralScanner;
+import org.quiltmc.config.impl.util.MappedFileReader;
+import org.quiltmc.config.impl.util.PatchableFormat;
+import org.quiltmc.config.impl.util.ValueCodec;
 import org.quiltmc.parsers.json.JsonReader;
 import org.quiltmc.parsers.json.JsonToken;
 import org.quiltmc.parsers.json.JsonWriter;
@@ -40,17 +36,23 @@
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * A default serializer that writes in the <a href="https://json5.org/">JSON5 format</a>.
  */
-public final class Json5Serializer implements Serializer {
+public final class Json5Serializer extends StreamingSerializer implements PatchableFormat {
 	public static final Json5Serializer INSTANCE = new Json5Serializer();
+	/**
+	 * Files at least this large are memory-mapped when read, below it mapping costs more than it saves.
+	 */
+	private static final long MAPPED_READ_THRESHOLD = 1 << 20;
 
 	private Json5Serializer() {
 
@@ -61,128 +63,130 @@ public String getFileExtension() {
 		return "json5";
 	}
 
-	private void serialize(JsonWriter writer, Object value) throws IOException {
-		if (value instanceof Integer) {
-			writer.value((Integer) value);
-		} else if (value instanceof Long) {
-			writer.value((Long) value);
-		} else if (value instanceof Float) {
-			writer.value((Float) value);
-		} else if (value instanceof Double) {
-			writer.value((Double) value);
-		} else if (value instanceof Boolean) {
-			writer.value((Boolean) value);
-		} else if (value instanceof String) {
-			writer.value((String) value);
-		} else if (value instanceof ValueList<?>) {
-			writer.beginArray();
-
-			for (Object v : (ValueList<?>) value) {
-				serialize(writer, v);
-			}
-
-			writer.endArray();
-		} else if (value instanceof ValueMap<?>) {
-			writer.beginObject();
-
-			for (Map.Entry<String, ?> entry : (ValueMap<?>) value) {
-				writer.name(entry.getKey());
-				serialize(writer, entry.getValue());
-			}
-
-			writer.endObject();
-		} else if (value instanceof ConfigSerializableObject) {
-			serialize(writer, ((ConfigSerializableObject<?>) value).getRepresentation());
-		} else if (value == null) {
-			writer.nullValue();
-		} else if (value.getClass().isEnum()) {
-			writer.value(((Enum<?>) value).name());
-		} else {
-			throw new ConfigParseException();
-		}
+	@Override
+	@ApiStatus.Internal
+	public Map<List<String>, int[]> scanLiterals(String text) {
+		return Json5LiteralScanner.scan(text);
 	}
 
-	private void serialize(JsonWriter writer, ValueTreeNode node) throws IOException {
-		for (String comment : node.metadata(Comment.TYPE)) {
-			writer.comment(comment);
+	@Override
+	@ApiStatus.Internal
+	public String renderLiteral(ValueCodec codec, Object value) {
+		switch (codec.kind()) {
+			case INTEGER:
+			case LONG:
+			case FLOAT:
+			case DOUBLE:
+			case BOOLEAN:
+				return String.valueOf(value);
+			case STRING:
+				return PatchableFormat.quote((String) value);
+			case ENUM:
+				return PatchableFormat.quote(((Enum<?>) value).name());
+			default:
+				return null;
 		}
+	}
 
-		if (node instanceof ValueTreeNode.Section) {
-			writer.name(node.key().getLastComponent());
-			writer.beginObject();
-
-			for (ValueTreeNode child : ((ValueTreeNode.Section) node)) {
-				serialize(writer, child);
-			}
-
-			writer.endObject();
-		} else {
-			TrackedValue<?> trackedValue = ((TrackedValue<?>) node);
-			Object defaultValue = trackedValue.getDefaultValue();
+	@Override
+	public Charset getCharset() {
+		return Charset.defaultCharset();
+	}
 
-			Optional<String> enumOptionsComment = SerializerUtils.createEnumOptionsComment(defaultValue);
-			if (enumOptionsComment.isPresent()) {
-				writer.comment(enumOptionsComment.get());
-			}
+	/**
+	 * Writes a single config value, including any nested lists, maps and serializable objects, using a plan compiled
+	 * from its default value.
+	 */
+	@ApiStatus.Internal
+	public static void writeValue(JsonWriter writer, ValueCodec codec, Object value) throws IOException {
+		if (value == null) {
+			writer.nullValue();
+			return;
+		}
 
-			for (Constraint<?> constraint : trackedValue.constraints()) {
-				writer.comment(constraint.getRepresentation());
-			}
+		switch (codec.kind()) {
+			case INTEGER:
+				writer.value((Integer) value);
+				break;
+			case LONG:
+				writer.value((Long) value);
+				break;
+			case FLOAT:
+				writer.value((Float) value);
+				break;
+			case DOUBLE:
+				writer.value((Double) value);
+				break;
+			case BOOLEAN:
+				writer.value((Boolean) value);
+				break;
+			case STRING:
+				writer.value((String) value);
+				break;
+			case ENUM:
+				writer.value(((Enum<?>) value).name());
+				break;
+			case LIST:
+				writer.beginArray();
+
+				for (Object v : (ValueList<?>) value) {
+					writeValue(writer, codec.element(), v);
+				}
 
-			if (!(defaultValue instanceof CompoundConfigValue<?>)) {
-				writer.comment("default: " + defaultValue);
-			}
+				writer.endArray();
+				break;
+			case MAP:
+				writer.beginObject();
 
-			String name = SerializerUtils.getSerializedName(trackedValue);
-			writer.name(name);
+				for (Map.Entry<String, ?> entry : (ValueMap<?>) value) {
+					writer.name(entry.getKey());
+					writeValue(writer, codec.element(), entry.getValue());
+				}
 
-			serialize(writer, trackedValue.getRealValue());
+				writer.endObject();
+				break;
+			case SERIALIZABLE:
+				writeValue(writer, codec.element(), ((ConfigSerializableObject<?>) value).getRepresentation());
+				break;
+			default:
+				throw new ConfigParseException();
 		}
 	}
 
 	@Override
-	public void serialize(Config config, OutputStream to) throws IOException {
-		JsonWriter writer = JsonWriter.json5(new OutputStreamWriter(to));
+	protected StreamingSerializer.Writer createWriter(OutputStream to) {
+		return new Json5Writer(JsonWriter.json5(new OutputStreamWriter(to)));
+	}
 
-		for (String comment : config.metadata(Comment.TYPE)) {
-			writer.comment(comment);
-		}
+	@Override
+	protected StreamingSerializer.Reader createReader(InputStream from) {
+		return new Json5Reader(JsonReader.json5(new InputStreamReader(from)));
+	}
 
-		writer.beginObject();
+	@Override
+	protected StreamingSerializer.Reader createReader(Path from) throws IOException {
+		long size = Files.size(from);
 
-		for (ValueTreeNode node : config.nodes()) {
-			this.serialize(writer, node);
+		if (size >= MAPPED_READ_THRESHOLD && size <= Integer.MAX_VALUE && MappedFileReader.isSupported()) {
+			return new Json5Reader(JsonReader.json5(MappedFileReader.open(from, Charset.defaultCharset())));
 		}
 
-		writer.endObject();
-		writer.close();
+		return super.createReader(from);
 	}
 
 	@Override
-	@SuppressWarnings({"unchecked", "rawtypes"})
 	public void deserialize(Config config, InputStream from) {
 		try {
-			JsonReader reader = JsonReader.json5(new InputStreamReader(from));
-
-			Map<String, Object> values = parseObject(reader);
-
-			for (TrackedValue<?> value : config.values()) {
-				Map<String, Object> m = values;
-
-				for (int i = 0; i < value.key().length(); ++i) {
-					String name = value.key().getKeyComponent(i);
-					if (value.hasMetadata(SerializedName.TYPE)) {
-						name = value.metadata(SerializedName.TYPE).getName();
-					}
+			super.deserialize(config, from);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
 
-					if (m.containsKey(name) && i != value.key().length() - 1) {
-						m = (Map<String, Object>) m.get(name);
-					} else if (m.containsKey(name)) {
-						((TrackedValueImpl) value).setValue(MarshallingUtils.coerce(m.get(name), value.getDefaultValue(), (Map<String, ?> map, MarshallingUtils.MapEntryConsumer entryConsumer) ->
-								map.forEach(entryConsumer::put)), false);
-					}
-				}
-			}
+	@Override
+	public void deserialize(Config config, Path from) {
+		try {
+			super.deserialize(config, from);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -216,7 +220,11 @@ public static List<Object> parseArray(JsonReader reader) throws IOException {
 		return array;
 	}
 
-	private static Object parseElement(JsonReader reader) throws IOException {
+	/**
+	 * Reads a single element into plain maps, lists, strings, numbers, and booleans.
+	 */
+	@ApiStatus.Internal
+	public static Object parseElement(JsonReader reader) throws IOException {
 		switch (reader.peek()) {
 			case END_ARRAY:
 				throw new ConfigParseException("Unexpected end of array");
@@ -243,4 +251,180 @@ private static Object parseElement(JsonReader reader) throws IOException {
 
 		throw new ConfigParseException("Encountered unknown JSON token");
 	}
+
+	private static final class Json5Writer implements StreamingSerializer.Writer {
+		private final JsonWriter writer;
+
+		private Json5Writer(JsonWriter writer) {
+			this.writer = writer;
+		}
+
+		private void comments(List<String> comments) throws IOException {
+			for (String comment : comments) {
+				this.writer.comment(comment);
+			}
+		}
+
+		@Override
+		public void beginConfig(List<String> comments) throws IOException {
+			this.comments(comments);
+			this.writer.beginObject();
+		}
+
+		@Override
+		public void endConfig() throws IOException {
+			this.writer.endObject();
+		}
+
+		@Override
+		public void beginSection(String name, List<String> comments) throws IOException {
+			this.comments(comments);
+			this.writer.name(name);
+			this.writer.beginObject();
+		}
+
+		@Override
+		public void endSection() throws IOException {
+			this.writer.endObject();
+		}
+
+		@Override
+		public void beginValue(String name, List<String> comments) throws IOException {
+			this.comments(comments);
+			this.writer.name(name);
+		}
+
+		@Override
+		public void endValue() {
+
+		}
+
+		@Override
+		public void beginList(int size) throws IOException {
+			this.writer.beginArray();
+		}
+
+		@Override
+		public void endList() throws IOException {
+			this.writer.endArray();
+		}
+
+		@Override
+		public void beginMap(int size) throws IOException {
+			this.writer.beginObject();
+		}
+
+		@Override
+		public void key(String key) throws IOException {
+			this.writer.name(key);
+		}
+
+		@Override
+		public void endMap() throws IOException {
+			this.writer.endObject();
+		}
+
+		@Override
+		public void value(Number value) throws IOException {
+			this.writer.value(value);
+		}
+
+		@Override
+		public void value(boolean value) throws IOException {
+			this.writer.value(value);
+		}
+
+		@Override
+		public void value(String value) throws IOException {
+			this.writer.value(value);
+		}
+
+		@Override
+		public void nullValue() throws IOException {
+			this.writer.nullValue();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.writer.close();
+		}
+	}
+
+	private static final class Json5Reader implements StreamingSerializer.Reader {
+		private final JsonReader reader;
+
+		private Json5Reader(JsonReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public StreamingSerializer.Token peek() throws IOException {
+			switch (this.reader.peek()) {
+				case BEGIN_OBJECT:
+					return StreamingSerializer.Token.BEGIN_OBJECT;
+				case END_OBJECT:
+					return StreamingSerializer.Token.END_OBJECT;
+				case BEGIN_ARRAY:
+					return StreamingSerializer.Token.BEGIN_ARRAY;
+				case END_ARRAY:
+					return StreamingSerializer.Token.END_ARRAY;
+				case NAME:
+					return StreamingSerializer.Token.NAME;
+				case END_DOCUMENT:
+					return StreamingSerializer.Token.END_DOCUMENT;
+				default:
+					return StreamingSerializer.Token.SCALAR;
+			}
+		}
+
+		@Override
+		public boolean hasNext() throws IOException {
+			if (!this.reader.hasNext()) {
+				return false;
+			}
+
+			JsonToken token = this.reader.peek();
+			return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY;
+		}
+
+		@Override
+		public void beginObject() throws IOException {
+			this.reader.beginObject();
+		}
+
+		@Override
+		public void endObject() throws IOException {
+			this.reader.endObject();
+		}
+
+		@Override
+		public void beginArray() throws IOException {
+			this.reader.beginArray();
+		}
+
+		@Override
+		public void endArray() throws IOException {
+			this.reader.endArray();
+		}
+
+		@Override
+		public String nextName() throws IOException {
+			return this.reader.nextName();
+		}
+
+		@Override
+		public Object nextScalar() throws IOException {
+			return parseElement(this.reader);
+		}
+
+		@Override
+		public void skipValue() throws IOException {
+			parseElement(this.reader);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.reader.close();
+		}
+	}
 }
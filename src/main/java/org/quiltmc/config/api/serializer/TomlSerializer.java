@@ -19,30 +19,39 @@
 import com.electronwill.nightconfig.core.CommentedConfig;
 import com.electronwill.nightconfig.core.InMemoryCommentedFormat;
 import com.electronwill.nightconfig.core.UnmodifiableCommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
 import com.electronwill.nightconfig.core.io.ConfigParser;
 import com.electronwill.nightconfig.core.io.ConfigWriter;
 import com.electronwill.nightconfig.toml.TomlParser;
 import com.electronwill.nightconfig.toml.TomlWriter;
+import org.jetbrains.annotations.ApiStatus;
 import org.quiltmc.config.api.Config;
-import org.quiltmc.config.api.Constraint;
+import org.quiltmc.config.api.LoadContext;
 import org.quiltmc.config.api.MarshallingUtils;
 import org.quiltmc.config.api.Serializer;
-import org.quiltmc.config.api.annotations.Comment;
-import org.quiltmc.config.api.values.CompoundConfigValue;
+import org.quiltmc.config.api.exceptions.ConfigParseException;
 import org.quiltmc.config.api.values.ConfigSerializableObject;
 import org.quiltmc.config.api.values.TrackedValue;
 import org.quiltmc.config.api.values.ValueKey;
 import org.quiltmc.config.api.values.ValueList;
 import org.quiltmc.config.api.values.ValueMap;
 import org.quiltmc.config.api.values.ValueTreeNode;
+import org.quiltmc.config.impl.util.PatchableFormat;
 import org.quiltmc.config.impl.util.SerializerUtils;
+import org.quiltmc.config.impl.util.TomlLiteralScanner;
+import org.quiltmc.config.impl.util.ValueCodec;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A default serializer that writes in the <a href="https://toml.io/en/">TOML format</a>.
@@ -51,8 +60,10 @@
  * This completely breaks TOML serialization, since we allow dots in keys, using either {@link org.quiltmc.config.api.annotations.SerializedName} or {@link ValueMap}, whose keys are not validated for certain characters.
  * To get around this, use {@link com.electronwill.nightconfig.core.Config#add(List, Object)} via passing your key into {@link #toNightConfigSerializable(ValueKey)}.
  */
-public final class TomlSerializer implements Serializer {
+public final class TomlSerializer implements Serializer, PatchableFormat {
 	public static final TomlSerializer INSTANCE = new TomlSerializer();
+	private static final MarshallingUtils.ValueMapCreator<CommentedConfig> MAP_READER = (c, entryConsumer) ->
+			c.entrySet().forEach(e -> entryConsumer.put(e.getKey(), e.getValue()));
 	private final ConfigParser<CommentedConfig> parser = new TomlParser();
 	private final ConfigWriter writer = new TomlWriter();
 
@@ -65,6 +76,46 @@ public String getFileExtension() {
 		return "toml";
 	}
 
+	@Override
+	@ApiStatus.Internal
+	public Map<List<String>, int[]> scanLiterals(String text) {
+		return TomlLiteralScanner.scan(text);
+	}
+
+	@Override
+	@ApiStatus.Internal
+	public String renderLiteral(ValueCodec codec, Object value) {
+		switch (codec.kind()) {
+			case INTEGER:
+			case LONG:
+			case BOOLEAN:
+				return String.valueOf(value);
+			case FLOAT:
+			case DOUBLE: {
+				double d = ((Number) value).doubleValue();
+
+				if (Double.isNaN(d)) {
+					return "nan";
+				} else if (Double.isInfinite(d)) {
+					return d > 0 ? "inf" : "-inf";
+				}
+
+				return String.valueOf(value);
+			}
+			case STRING:
+				return PatchableFormat.quote((String) value);
+			case ENUM:
+				return PatchableFormat.quote(((Enum<?>) value).name());
+			default:
+				return null;
+		}
+	}
+
+	@Override
+	public Charset getCharset() {
+		return StandardCharsets.UTF_8;
+	}
+
 	@Override
 	public void serialize(Config config, OutputStream to) {
 		this.writer.write(write(config, createCommentedConfig(), config.nodes()), to);
@@ -74,84 +125,136 @@ public void serialize(Config config, OutputStream to) {
 	@Override
 	public void deserialize(Config config, InputStream from) {
 		CommentedConfig read = this.parser.parse(from);
+		LoadContext context = LoadContext.create();
+		List<String> invalid = new ArrayList<>();
+		Set<List<String>> keys = new HashSet<>();
+		Set<List<String>> sections = new HashSet<>();
 
 		for (TrackedValue<?> trackedValue : config.values()) {
-			String key = SerializerUtils.getSerializedKey(config, trackedValue).toString();
+			ValueKey serializedKey = SerializerUtils.getSerializedKey(config, trackedValue);
+			String key = serializedKey.toString();
+			List<String> components = new ArrayList<>();
+			serializedKey.forEach(components::add);
+
+			keys.add(components);
+
+			for (int i = 1; i < components.size(); i++) {
+				sections.add(new ArrayList<>(components.subList(0, i)));
+			}
 
 			if (read.contains(key)) {
-				((TrackedValue) trackedValue).setValue(MarshallingUtils.coerce(read.get(key), trackedValue.getDefaultValue(), (CommentedConfig c, MarshallingUtils.MapEntryConsumer entryConsumer) ->
-					c.entrySet().forEach(e -> entryConsumer.put(e.getKey(), e.getValue()))), false);
+				try {
+					context.stage((TrackedValue) trackedValue, SerializerUtils.getCodec(trackedValue).coerce(read.get(key), MAP_READER));
+				} catch (ConfigParseException | ClassCastException | NullPointerException e) {
+					// Entries of the wrong type are skipped, so that they don't prevent the others from being applied
+					invalid.add(key);
+				}
 			}
 		}
+
+		putUnreadEntries(config, read, Collections.emptyList(), keys, sections);
+		context.commit();
+
+		if (!invalid.isEmpty()) {
+			throw new ConfigParseException("Skipped entries of the wrong type: " + String.join(", ", invalid));
+		}
 	}
 
-	private static List<Object> convertList(List<?> list) {
+	/**
+	 * Keeps the entries that don't belong to any value of the config, so that values added to it later can still be
+	 * read from them.
+	 */
+	private static void putUnreadEntries(Config config, UnmodifiableConfig read, List<String> path, Set<List<String>> keys, Set<List<String>> sections) {
+		for (UnmodifiableConfig.Entry entry : read.entrySet()) {
+			List<String> key = new ArrayList<>(path);
+			key.add(entry.getKey());
+
+			Object value = entry.getValue();
+
+			if (value instanceof UnmodifiableConfig && sections.contains(key)) {
+				putUnreadEntries(config, (UnmodifiableConfig) value, key, keys, sections);
+			} else if (!keys.contains(key)) {
+				SerializerUtils.putUnreadEntry(config, key, toPlain(value));
+			}
+		}
+	}
+
+	private static Object toPlain(Object value) {
+		if (value instanceof UnmodifiableConfig) {
+			Map<String, Object> map = new LinkedHashMap<>();
+
+			for (UnmodifiableConfig.Entry entry : ((UnmodifiableConfig) value).entrySet()) {
+				map.put(entry.getKey(), toPlain(entry.getValue()));
+			}
+
+			return map;
+		} else if (value instanceof List) {
+			List<Object> list = new ArrayList<>(((List<?>) value).size());
+
+			for (Object element : (List<?>) value) {
+				list.add(toPlain(element));
+			}
+
+			return list;
+		}
+
+		return value;
+	}
+
+	private static List<Object> convertList(ValueCodec codec, List<?> list) {
 		List<Object> result = new ArrayList<>(list.size());
 
 		for (Object value : list) {
-			result.add(convertAny(value));
+			result.add(convertAny(codec, value));
 		}
 
 		return result;
 	}
 
-	private static UnmodifiableCommentedConfig convertMap(ValueMap<?> map) {
+	private static UnmodifiableCommentedConfig convertMap(ValueCodec codec, ValueMap<?> map) {
 		CommentedConfig result = createCommentedConfig();
 
 		for (Map.Entry<String, ?> entry : map.entrySet()) {
-			List<String> key = new ArrayList<>();
+			List<String> key = new ArrayList<>(1);
 			key.add(entry.getKey());
-			result.add(key, convertAny(entry.getValue()));
+			result.add(key, convertAny(codec, entry.getValue()));
 		}
 
 		return result;
 	}
 
-	private static Object convertAny(Object value) {
-		if (value instanceof ValueMap) {
-			return convertMap((ValueMap<?>) value);
-		} else if (value instanceof ValueList) {
-			return convertList((ValueList<?>) value);
-		} else if (value instanceof ConfigSerializableObject) {
-			return convertAny(((ConfigSerializableObject<?>) value).getRepresentation());
-		} else {
-			return value;
+	private static Object convertAny(ValueCodec codec, Object value) {
+		switch (codec.kind()) {
+			case MAP:
+				return convertMap(codec.element(), (ValueMap<?>) value);
+			case LIST:
+				return convertList(codec.element(), (ValueList<?>) value);
+			case SERIALIZABLE:
+				return convertAny(codec.element(), ((ConfigSerializableObject<?>) value).getRepresentation());
+			default:
+				return value;
 		}
 	}
 
 	private static CommentedConfig write(Config config, CommentedConfig commentedConfig, Iterable<ValueTreeNode> nodes) {
 		for (ValueTreeNode node : nodes) {
-			List<String> comments = new ArrayList<>();
-
-			if (node.hasMetadata(Comment.TYPE)) {
-				for (String string : node.metadata(Comment.TYPE)) {
-					comments.add(string);
-				}
+			if (!SerializerUtils.isWritten(node)) {
+				continue;
 			}
 
+			SerializerUtils.CommentBlock comments = SerializerUtils.getCommentBlock(node);
 			ValueKey key = SerializerUtils.getSerializedKey(config, node);
 
 			if (node instanceof TrackedValue<?>) {
 				TrackedValue<?> value = (TrackedValue<?>) node;
-				Object defaultValue = value.getDefaultValue();
-
-				SerializerUtils.createEnumOptionsComment(defaultValue).ifPresent(comments::add);
-
-				for (Constraint<?> constraint : value.constraints()) {
-					comments.add(constraint.getRepresentation());
-				}
-
-				if (!(defaultValue instanceof CompoundConfigValue<?>)) {
-					comments.add("default: " + defaultValue);
-				}
 
-				commentedConfig.add(toNightConfigSerializable(key), convertAny(value.getRealValue()));
+				commentedConfig.add(toNightConfigSerializable(key), convertAny(SerializerUtils.getCodec(value), SerializerUtils.getWrittenValue(value)));
 			} else {
 				write(config, commentedConfig, ((ValueTreeNode.Section) node));
 			}
 
 			if (!comments.isEmpty()) {
-				commentedConfig.setComment(toNightConfigSerializable(key), " " + String.join("\n ", comments));
+				commentedConfig.setComment(toNightConfigSerializable(key), comments.join(" ", "\n "));
 			}
 		}
 
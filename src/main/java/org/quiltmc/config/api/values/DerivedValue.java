@@ -0,0 +1,34 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.api.values;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.quiltmc.config.api.Config;
+
+/**
+ * A value computed from some number of {@link TrackedValue}s, created with {@link Config#derive}.
+ *
+ * <p>The value is computed on first access and cached until any of its dependencies changes, at which point it is
+ * recomputed once on the next access. Reading a cached value takes no locks and registers no callbacks.
+ */
+@ApiStatus.NonExtendable
+public interface DerivedValue<T> {
+	/**
+	 * @return the cached value, first recomputing it if any dependency changed since it was last computed
+	 */
+	T value();
+}
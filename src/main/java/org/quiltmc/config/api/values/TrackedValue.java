@@ -26,6 +26,7 @@
 import org.quiltmc.config.impl.util.ConfigUtils;
 import org.quiltmc.config.impl.values.ValueKeyImpl;
 
+import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.Objects;
@@ -72,6 +73,21 @@
 
 	void removeOverride();
 
+	/**
+	 * Returns a method handle that takes no arguments and returns the current {@linkplain #value() value} of this value.
+	 *
+	 * <p>When stored in a {@code static final} field and called with {@link MethodHandle#invokeExact}, the JIT compiler
+	 * treats the value as a constant in compiled code, so reading it costs nothing at all. Whenever the value changes,
+	 * the handle is relinked and all code compiled against the old value is deoptimized, which is expensive. This is
+	 * therefore only suited to values that rarely change, such as feature flags read in hot code.
+	 *
+	 * <p>The handle returns the primitive type for numbers and booleans, the enum class for enums, {@link String} for
+	 * strings, and {@link Object} for all other values.
+	 *
+	 * @return a handle that always returns the current value
+	 */
+	MethodHandle constantHandle();
+
 	T getDefaultValue();
 
 	/**
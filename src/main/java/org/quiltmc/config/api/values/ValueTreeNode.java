@@ -30,6 +30,17 @@ public interface ValueTreeNode extends MetadataContainer {
 	 */
 	ValueKey key();
 
+	/**
+	 * Returns a version that increases whenever this node changes, which for a section means whenever any value within
+	 * it changes. Can be compared against a previously read version to check for changes without registering a callback.
+	 *
+	 * <p>All versions are drawn from a single counter, so the version of a section or config is always the version of
+	 * its most recently changed value.
+	 *
+	 * @return the version of the latest change to this node, or {@code 0} if it has never changed
+	 */
+	long version();
+
 	/**
 	 * A node that contains any number of child nodes.
 	 */
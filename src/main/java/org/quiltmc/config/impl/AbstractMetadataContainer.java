@@ -18,38 +18,198 @@
 
 import org.quiltmc.config.api.metadata.MetadataContainer;
 import org.quiltmc.config.api.metadata.MetadataType;
+import org.quiltmc.config.impl.util.InternTable;
+import org.quiltmc.config.impl.util.SerializerUtils;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Stores metadata in an array indexed by {@linkplain MetadataType#id() metadata type id}.
+ *
+ * <p>Default metadata is resolved at most once per container and stored in the same array, with {@link #ABSENT} marking
+ * types that have no default. Each slot is only ever filled once, through a compare-and-set, so lookups never lock and
+ * concurrent lookups of a default always return the same instance.
+ */
 public abstract class AbstractMetadataContainer implements MetadataContainer {
-	public Map<MetadataType<?, ?>, Object> metadata;
+	private static final Object ABSENT = new Object();
+
+	private volatile AtomicReferenceArray<Object> metadata;
+	private volatile SerializerUtils.CommentBlock commentBlock;
+	private boolean compact;
 
 	protected AbstractMetadataContainer(Map<MetadataType<?, ?>, Object> metadata) {
-		this.metadata = metadata;
+		this.metadata = toArray(metadata);
+	}
+
+	/**
+	 * Creates a container that shares all metadata of another one.
+	 *
+	 * <p>The metadata array itself is shared on purpose, so that defaults resolved or metadata compacted through either
+	 * container are seen by both. The containers stop sharing once either one {@linkplain #grow() grows} to make room
+	 * for a new metadata type, after which each resolves its own defaults again.
+	 */
+	protected AbstractMetadataContainer(AbstractMetadataContainer other) {
+		this.metadata = other.metadata;
+		this.compact = other.compact;
+	}
+
+	private static AtomicReferenceArray<Object> toArray(Map<MetadataType<?, ?>, Object> metadata) {
+		AtomicReferenceArray<Object> array = new AtomicReferenceArray<>(MetadataType.count());
+
+		for (Map.Entry<MetadataType<?, ?>, Object> entry : metadata.entrySet()) {
+			array.set(entry.getKey().id(), entry.getValue());
+		}
+
+		return array;
 	}
 
 	@SuppressWarnings("unchecked")
 	public <M> M metadata(MetadataType<M, ?> type) {
-		if (this.metadata.containsKey(type)) {
-			return (M) this.metadata.get(type);
-		} else {
-			Optional<M> defaultValue = type.getDefaultValue(this);
-
-			if (defaultValue.isPresent()) {
-				this.metadata.put(type, defaultValue.get());
-				return (M) this.metadata.get(type);
-			} else {
-				return null;
+		Object value = this.resolve(type);
+
+		return value == ABSENT ? null : (M) value;
+	}
+
+	public <M> boolean hasMetadata(MetadataType<M, ?> type) {
+		return this.resolve(type) != ABSENT;
+	}
+
+	/**
+	 * @return the metadata of the given type, resolving and storing its default value if needed, or {@link #ABSENT}
+	 */
+	private Object resolve(MetadataType<?, ?> type) {
+		int id = type.id();
+
+		while (true) {
+			AtomicReferenceArray<Object> metadata = this.metadata;
+
+			if (id >= metadata.length()) {
+				this.grow();
+				continue;
+			}
+
+			Object value = metadata.get(id);
+
+			if (value != null) {
+				return value;
+			}
+
+			Optional<?> defaultValue = type.getDefaultValue(this);
+			value = defaultValue.isPresent() ? defaultValue.get() : ABSENT;
+
+			// Retry if another thread stored a value first, or if the array grew without it in the meantime
+			if (metadata.compareAndSet(id, null, value) && metadata == this.metadata) {
+				return value;
 			}
 		}
 	}
 
-	public <M> boolean hasMetadata(MetadataType<M, ?> type) {
-		return this.metadata.containsKey(type) || type.getDefaultValue(this).isPresent();
+	/**
+	 * Makes room for metadata types created after this container. The grown array belongs to this container alone, even
+	 * if the old one was shared.
+	 */
+	private synchronized void grow() {
+		AtomicReferenceArray<Object> metadata = this.metadata;
+		int count = MetadataType.count();
+
+		if (metadata.length() < count) {
+			AtomicReferenceArray<Object> grown = new AtomicReferenceArray<>(count);
+
+			for (int i = 0; i < metadata.length(); i++) {
+				grown.set(i, metadata.get(i));
+			}
+
+			this.metadata = grown;
+		}
+	}
+
+	/**
+	 * @return whether any metadata, including resolved defaults, is stored in this container
+	 */
+	public boolean hasAnyMetadata() {
+		AtomicReferenceArray<Object> metadata = this.metadata;
+
+		for (int i = 0; i < metadata.length(); i++) {
+			Object value = metadata.get(i);
+
+			if (value != null && value != ABSENT) {
+				return true;
+			}
+		}
+
+		return false;
 	}
 
+	/**
+	 * Replaces all metadata of this container with that of another one. Only used while a config is being built, and
+	 * when a config is created from a {@linkplain org.quiltmc.config.implementor_api.ConfigTemplate template}.
+	 *
+	 * <p>Like {@linkplain #AbstractMetadataContainer(AbstractMetadataContainer) sharing} a container, this shares the
+	 * metadata array with the other container until either one grows.
+	 */
+	public void copyMetadataFrom(AbstractMetadataContainer other) {
+		this.metadata = other.metadata;
+	}
+
+	/**
+	 * Replaces each piece of metadata stored in this container by its {@linkplain InternTable#internMetadata canonical
+	 * instance} in the given table, and stops caching rendered comments on this container, as they are only needed
+	 * while saving.
+	 */
+	public void compact(InternTable table) {
+		AtomicReferenceArray<Object> metadata = this.metadata;
+
+		for (int i = 0; i < metadata.length(); i++) {
+			Object value = metadata.get(i);
+
+			if (value != null && value != ABSENT) {
+				metadata.compareAndSet(i, value, table.internMetadata(value));
+			}
+		}
+
+		this.compact = true;
+		this.commentBlock = null;
+	}
+
+	public boolean isCompact() {
+		return this.compact;
+	}
+
+	/**
+	 * @return the comment lines last rendered for this container by {@link SerializerUtils#getCommentBlock}, if any
+	 */
+	public SerializerUtils.CommentBlock getCommentBlock() {
+		return this.commentBlock;
+	}
+
+	/**
+	 * Caches the rendered comment lines of this container, unless it is {@linkplain #compact(InternTable) compact}.
+	 */
+	public void setCommentBlock(SerializerUtils.CommentBlock block) {
+		if (!this.compact) {
+			this.commentBlock = block;
+		}
+	}
+
+	/**
+	 * @return the metadata stored in this container, in order of metadata type creation
+	 */
 	public Map<MetadataType<?, ?>, Object> metadata() {
-		return this.metadata;
+		AtomicReferenceArray<Object> metadata = this.metadata;
+		Map<MetadataType<?, ?>, Object> map = new LinkedHashMap<>();
+
+		for (int i = 0; i < metadata.length(); i++) {
+			Object value = metadata.get(i);
+
+			if (value != null && value != ABSENT) {
+				map.put(MetadataType.byId(i), value);
+			}
+		}
+
+		return Collections.unmodifiableMap(map);
 	}
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl;
+
+import org.quiltmc.config.api.exceptions.ConfigParseException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A single file holding the serialized contents of many configs.
+ *
+ * <p>The file is a sequence of records, each holding the name of an entry and its contents, or a tombstone for a
+ * removed entry. It is read once, in full, the first time any entry is accessed, and the latest record of each entry
+ * wins. Changing an entry appends a single record, and the file is compacted once it holds more superseded data than
+ * live data. Entries are named after the path their config would have in the per-file layout, relative to the
+ * environment's save directory.
+ */
+public final class ConfigBundle {
+	private static final int MAGIC = 0x51434231;
+	private static final int TOMBSTONE = -1;
+
+	private final Path path;
+	private final Map<String, byte[]> entries = new TreeMap<>();
+	private boolean read;
+	private long liveBytes;
+	private long fileBytes;
+
+	public ConfigBundle(Path path) {
+		this.path = path;
+	}
+
+	public Path getPath() {
+		return this.path;
+	}
+
+	/**
+	 * @return the name of the entry a config is stored under, which is also its path in the per-file layout
+	 */
+	public static String entryName(Path saveDir, Path file) {
+		return saveDir.relativize(file).toString().replace(File.separatorChar, '/');
+	}
+
+	public synchronized byte[] get(String name) throws IOException {
+		this.ensureRead();
+
+		return this.entries.get(name);
+	}
+
+	/**
+	 * Stores the contents of an entry, appending it to the file unless it is unchanged.
+	 */
+	public synchronized void put(String name, byte[] data) throws IOException {
+		this.ensureRead();
+
+		byte[] old = this.entries.put(name, data);
+
+		if (Arrays.equals(old, data)) {
+			return;
+		}
+
+		this.liveBytes += data.length - (old == null ? 0 : old.length);
+		this.append(name, data);
+	}
+
+	public synchronized void remove(String name) throws IOException {
+		this.ensureRead();
+
+		byte[] old = this.entries.remove(name);
+
+		if (old != null) {
+			this.liveBytes -= old.length;
+			this.append(name, null);
+		}
+	}
+
+	/**
+	 * @return a snapshot of all entries in this bundle
+	 */
+	public synchronized Map<String, byte[]> entries() throws IOException {
+		this.ensureRead();
+
+		return new TreeMap<>(this.entries);
+	}
+
+	/**
+	 * Rewrites the file so that it only holds the latest contents of each entry.
+	 */
+	public synchronized void compact() throws IOException {
+		this.ensureRead();
+
+		Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+		Files.createDirectories(this.path.toAbsolutePath().getParent());
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+
+			for (Map.Entry<String, byte[]> entry : this.entries.entrySet()) {
+				writeRecord(out, entry.getKey(), entry.getValue());
+			}
+
+			this.fileBytes = out.size();
+		}
+
+		Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Reads the file the first time it is needed. A file that is not a bundle is never written to: every later access
+	 * reads it again and fails the same way, until the file is fixed or removed.
+	 */
+	private void ensureRead() throws IOException {
+		if (this.read) {
+			return;
+		}
+
+		if (!Files.exists(this.path)) {
+			this.read = true;
+			return;
+		}
+
+		byte[] bytes = Files.readAllBytes(this.path);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		Map<String, byte[]> entries = new TreeMap<>();
+		long end = 4;
+
+		if (bytes.length < 4 || in.readInt() != MAGIC) {
+			throw new ConfigParseException("'" + this.path + "' is not a config bundle");
+		}
+
+		try {
+			while (in.available() > 0) {
+				String name = in.readUTF();
+				int length = in.readInt();
+
+				if (length == TOMBSTONE) {
+					entries.remove(name);
+				} else if (length < 0 || length > in.available()) {
+					throw new EOFException();
+				} else {
+					byte[] data = new byte[length];
+					in.readFully(data);
+					entries.put(name, data);
+				}
+
+				end = bytes.length - in.available();
+			}
+		} catch (EOFException | UTFDataFormatException | RuntimeException e) {
+			// The last record was only partially written or is corrupt; it and anything after it are dropped by
+			// rewriting the file below
+		}
+
+		this.entries.putAll(entries);
+
+		for (byte[] data : this.entries.values()) {
+			this.liveBytes += data.length;
+		}
+
+		this.fileBytes = bytes.length;
+		this.read = true;
+
+		if (end != bytes.length) {
+			this.compact();
+		}
+	}
+
+	private void append(String name, byte[] data) throws IOException {
+		if (this.fileBytes - this.liveBytes > Math.max(this.liveBytes, 4096)) {
+			this.compact();
+			return;
+		}
+
+		boolean create = !Files.exists(this.path);
+
+		if (create) {
+			Files.createDirectories(this.path.toAbsolutePath().getParent());
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+			if (create) {
+				out.writeInt(MAGIC);
+			}
+
+			writeRecord(out, name, data);
+			this.fileBytes += out.size();
+		}
+	}
+
+	private static void writeRecord(DataOutputStream out, String name, byte[] data) throws IOException {
+		out.writeUTF(name);
+
+		if (data == null) {
+			out.writeInt(TOMBSTONE);
+		} else {
+			out.writeInt(data.length);
+			out.write(data);
+		}
+	}
+}
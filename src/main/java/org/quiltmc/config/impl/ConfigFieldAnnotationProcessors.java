@@ -26,8 +26,17 @@
 import java.lang.annotation.Annotation;
 import java.util.*;
 
+/**
+ * The registry of annotation processors applied to the fields of config classes.
+ *
+ * <p>The registry is copy-on-write: registering a processor publishes a new map holding the complete processor chain of
+ * every annotation type, so lookups never lock and configs can be created on several threads while processors are
+ * being registered.
+ */
 public final class ConfigFieldAnnotationProcessors {
-	private static final Map<Class<? extends Annotation>, List<ConfigFieldAnnotationProcessor<?>>> PROCESSORS = new HashMap<>();
+	private static volatile Map<Class<? extends Annotation>, ConfigFieldAnnotationProcessor<?>[]> processors = Collections.emptyMap();
+	private static volatile boolean builtInsReplaced;
+	private static volatile int generation;
 
 	static {
 		register(Comment.class, new CommentProcessor());
@@ -38,95 +47,171 @@ public final class ConfigFieldAnnotationProcessors {
 		register(SerializedName.class, new SerialNameProcessor());
 	}
 
-	public static <T extends Annotation> void register(Class<T> annotationClass, ConfigFieldAnnotationProcessor<T> processor) {
-		PROCESSORS.computeIfAbsent(annotationClass, c -> new ArrayList<>())
-				.add(processor);
+	public static synchronized <T extends Annotation> void register(Class<T> annotationClass, ConfigFieldAnnotationProcessor<T> processor) {
+		Map<Class<? extends Annotation>, ConfigFieldAnnotationProcessor<?>[]> updated = new HashMap<>(processors);
+		ConfigFieldAnnotationProcessor<?>[] chain = updated.get(annotationClass);
+
+		builtInsReplaced |= chain != null || annotationClass == Processor.class;
+
+		if (chain == null) {
+			chain = new ConfigFieldAnnotationProcessor<?>[] { processor };
+		} else {
+			chain = Arrays.copyOf(chain, chain.length + 1);
+			chain[chain.length - 1] = processor;
+		}
+
+		updated.put(annotationClass, chain);
+		processors = updated;
+		generation++;
+	}
+
+	/**
+	 * @return a number that changes every time a processor is registered, so that resolved processors can be cached
+	 */
+	public static int generation() {
+		return generation;
+	}
+
+	/**
+	 * @return the processors registered for the given annotation type, in registration order
+	 */
+	public static List<ConfigFieldAnnotationProcessor<?>> getProcessors(Class<? extends Annotation> annotationClass) {
+		ConfigFieldAnnotationProcessor<?>[] chain = processors.get(annotationClass);
+
+		return chain == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(chain));
 	}
 
-	private static <T extends Annotation> void process(ConfigFieldAnnotationProcessor<T> processor, T annotation, MetadataContainerBuilder<?> builder) {
-		processor.process(annotation, builder);
+	/**
+	 * @return whether any processor was registered for an annotation that already has a built-in processor, in which
+	 * case the annotations of a config class can no longer be applied without reflection
+	 */
+	public static boolean areBuiltInsReplaced() {
+		return builtInsReplaced;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T extends Annotation> void process(ConfigFieldAnnotationProcessor<T> processor, Annotation annotation, MetadataContainerBuilder<?> builder) {
+		processor.process((T) annotation, builder);
 	}
 
-	@SuppressWarnings({"unchecked", "rawtypes"})
 	public static void applyAnnotationProcessors(Annotation annotation, MetadataContainerBuilder<?> builder) {
-		for (ConfigFieldAnnotationProcessor<?> processor : PROCESSORS.getOrDefault(annotation.annotationType(), Collections.emptyList())) {
-			process((ConfigFieldAnnotationProcessor) processor, annotation, builder);
+		ConfigFieldAnnotationProcessor<?>[] chain = processors.get(annotation.annotationType());
+
+		if (chain != null) {
+			for (ConfigFieldAnnotationProcessor<?> processor : chain) {
+				process(processor, annotation, builder);
+			}
+		}
+	}
+
+	/**
+	 * Applies a {@link Comment} annotation with the given lines.
+	 */
+	public static void comment(MetadataContainerBuilder<?> builder, String... lines) {
+		for (String c : lines) {
+			builder.metadata(Comment.TYPE, comments -> comments.add(c));
+		}
+	}
+
+	/**
+	 * Applies a {@link SerializedName} annotation with the given name.
+	 */
+	public static void serializedName(MetadataContainerBuilder<?> builder, String name) {
+		builder.metadata(SerializedName.TYPE, nameBuilder -> nameBuilder.withName(name));
+	}
+
+	/**
+	 * Applies a {@link FloatRange} annotation with the given bounds.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void floatRange(MetadataContainerBuilder<?> builder, double min, double max) {
+		if (builder instanceof TrackedValue.Builder) {
+			Object defaultValue = ((TrackedValue.Builder<?>) builder).getDefaultValue();
+
+			if (defaultValue instanceof Float) {
+				((TrackedValue.Builder<Float>) builder).constraint(Constraint.range((float) min, (float) max));
+			} else if (defaultValue instanceof Double) {
+				((TrackedValue.Builder<Double>) builder).constraint(Constraint.range(min, max));
+			} else if (defaultValue instanceof CompoundConfigValue && Float.class.isAssignableFrom(((CompoundConfigValue<?>) defaultValue).getType())) {
+				((TrackedValue.Builder<CompoundConfigValue<Float>>) builder).constraint(Constraint.all(Constraint.range((float) min, (float) max)));
+			} else if (defaultValue instanceof CompoundConfigValue && Double.class.isAssignableFrom(((CompoundConfigValue<?>) defaultValue).getType())) {
+				((TrackedValue.Builder<CompoundConfigValue<Double>>) builder).constraint(Constraint.all(Constraint.range(min, max)));
+			} else {
+				throw new ConfigFieldException("Constraint FloatRange not applicable for type '" + defaultValue.getClass() + "'");
+			}
+		}
+	}
+
+	/**
+	 * Applies an {@link IntegerRange} annotation with the given bounds.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void integerRange(MetadataContainerBuilder<?> builder, long min, long max) {
+		if (builder instanceof TrackedValue.Builder) {
+			Object defaultValue = ((TrackedValue.Builder<?>) builder).getDefaultValue();
+
+			if (defaultValue instanceof Integer) {
+				((TrackedValue.Builder<Integer>) builder).constraint(Constraint.range((int) min, (int) max));
+			} else if (defaultValue instanceof Long) {
+				((TrackedValue.Builder<Long>) builder).constraint(Constraint.range(min, max));
+			} else if (defaultValue instanceof CompoundConfigValue && Integer.class.isAssignableFrom(((CompoundConfigValue<?>) defaultValue).getType())) {
+				((TrackedValue.Builder<CompoundConfigValue<Integer>>) builder).constraint(Constraint.all(Constraint.range((int) min, (int) max)));
+			} else if (defaultValue instanceof CompoundConfigValue && Long.class.isAssignableFrom(((CompoundConfigValue<?>) defaultValue).getType())) {
+				((TrackedValue.Builder<CompoundConfigValue<Long>>) builder).constraint(Constraint.all(Constraint.range(min, max)));
+			} else {
+				throw new ConfigFieldException("Constraint LongRange not applicable for type '" + defaultValue.getClass() + "'");
+			}
+		}
+	}
+
+	/**
+	 * Applies a {@link Matches} annotation with the given pattern.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void matches(MetadataContainerBuilder<?> builder, String regex) {
+		if (builder instanceof TrackedValue.Builder) {
+			Object defaultValue = ((TrackedValue.Builder<?>) builder).getDefaultValue();
+
+			if (defaultValue instanceof String) {
+				((TrackedValue.Builder<String>) builder).constraint(Constraint.matching(regex));
+			} else if (defaultValue instanceof CompoundConfigValue && ((CompoundConfigValue<?>) defaultValue).getType().equals(String.class)) {
+				((TrackedValue.Builder<CompoundConfigValue<String>>) builder).constraint(Constraint.all(Constraint.matching(regex)));
+			}
 		}
 	}
 
 	private static final class CommentProcessor implements ConfigFieldAnnotationProcessor<Comment> {
 		@Override
 		public void process(Comment comment, MetadataContainerBuilder<?> builder) {
-			for (String c : comment.value()) {
-				builder.metadata(Comment.TYPE, comments -> comments.add(c));
-			}
+			comment(builder, comment.value());
 		}
 	}
 
 	private static final class SerialNameProcessor implements ConfigFieldAnnotationProcessor<SerializedName> {
 		@Override
 		public void process(SerializedName name, MetadataContainerBuilder<?> builder) {
-			builder.metadata(SerializedName.TYPE, nameBuilder -> nameBuilder.withName(name.value()));
+			serializedName(builder, name.value());
 		}
 	}
 
 	private static final class FloatRangeProcessor implements ConfigFieldAnnotationProcessor<FloatRange> {
 		@Override
-		@SuppressWarnings("unchecked")
 		public void process(FloatRange range, MetadataContainerBuilder<?> builder) {
-			if (builder instanceof TrackedValue.Builder) {
-				Object defaultValue = ((TrackedValue.Builder<?>) builder).getDefaultValue();
-
-				if (defaultValue instanceof Float) {
-					((TrackedValue.Builder<Float>) builder).constraint(Constraint.range((float) range.min(), (float) range.max()));
-				} else if (defaultValue instanceof Double) {
-					((TrackedValue.Builder<Double>) builder).constraint(Constraint.range(range.min(), range.max()));
-				} else if (defaultValue instanceof CompoundConfigValue && Float.class.isAssignableFrom(((CompoundConfigValue<?>) defaultValue).getType())) {
-					((TrackedValue.Builder<CompoundConfigValue<Float>>) builder).constraint(Constraint.all(Constraint.range((float) range.min(), (float) range.max())));
-				} else if (defaultValue instanceof CompoundConfigValue && Double.class.isAssignableFrom(((CompoundConfigValue<?>) defaultValue).getType())) {
-					((TrackedValue.Builder<CompoundConfigValue<Double>>) builder).constraint(Constraint.all(Constraint.range(range.min(), range.max())));
-				} else {
-					throw new ConfigFieldException("Constraint FloatRange not applicable for type '" + defaultValue.getClass() + "'");
-				}
-			}
+			floatRange(builder, range.min(), range.max());
 		}
 	}
 
 	private static final class IntegerRangeProcessor implements ConfigFieldAnnotationProcessor<IntegerRange> {
 		@Override
-		@SuppressWarnings("unchecked")
 		public void process(IntegerRange range, MetadataContainerBuilder<?> builder) {
-			if (builder instanceof TrackedValue.Builder) {
-				Object defaultValue = ((TrackedValue.Builder<?>) builder).getDefaultValue();
-
-				if (defaultValue instanceof Integer) {
-					((TrackedValue.Builder<Integer>) builder).constraint(Constraint.range((int) range.min(), (int) range.max()));
-				} else if (defaultValue instanceof Long) {
-					((TrackedValue.Builder<Long>) builder).constraint(Constraint.range(range.min(), range.max()));
-				} else if (defaultValue instanceof CompoundConfigValue && Integer.class.isAssignableFrom(((CompoundConfigValue<?>) defaultValue).getType())) {
-					((TrackedValue.Builder<CompoundConfigValue<Integer>>) builder).constraint(Constraint.all(Constraint.range((int) range.min(), (int) range.max())));
-				} else if (defaultValue instanceof CompoundConfigValue && Long.class.isAssignableFrom(((CompoundConfigValue<?>) defaultValue).getType())) {
-					((TrackedValue.Builder<CompoundConfigValue<Long>>) builder).constraint(Constraint.all(Constraint.range(range.min(), range.max())));
-				} else {
-					throw new ConfigFieldException("Constraint LongRange not applicable for type '" + defaultValue.getClass() + "'");
-				}
-			}
+			integerRange(builder, range.min(), range.max());
 		}
 	}
 
 	private static final class MatchesProcessor implements ConfigFieldAnnotationProcessor<Matches> {
 		@Override
-		@SuppressWarnings("unchecked")
 		public void process(Matches matches, MetadataContainerBuilder<?> builder) {
-			if (builder instanceof TrackedValue.Builder) {
-				Object defaultValue = ((TrackedValue.Builder<?>) builder).getDefaultValue();
-
-				if (defaultValue instanceof String) {
-					((TrackedValue.Builder<String>) builder).constraint(Constraint.matching(matches.value()));
-				} else if (defaultValue instanceof CompoundConfigValue && ((CompoundConfigValue<?>) defaultValue).getType().equals(String.class)) {
-					((TrackedValue.Builder<CompoundConfigValue<String>>) builder).constraint(Constraint.all(Constraint.matching(matches.value())));
-				}
-			}
+			matches(builder, matches.value());
 		}
 	}
 }
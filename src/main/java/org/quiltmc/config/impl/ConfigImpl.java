@@ -16,45 +16,100 @@
 
 package org.quiltmc.config.impl;
 
-import org.jetbrains.annotations.NotNull;
 import org.quiltmc.config.api.*;
+import org.quiltmc.config.api.exceptions.ConfigParseException;
+import org.quiltmc.config.api.exceptions.TrackedValueException;
 import org.quiltmc.config.api.metadata.MetadataType;
+import org.quiltmc.config.api.values.DerivedValue;
 import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.api.values.ValueKey;
 import org.quiltmc.config.api.values.ValueTreeNode;
 import org.quiltmc.config.impl.builders.ConfigBuilderImpl;
+import org.quiltmc.config.impl.builders.GeneratedConfigCreator;
 import org.quiltmc.config.impl.builders.ReflectiveConfigCreator;
+import org.quiltmc.config.impl.builders.SectionBuilderImpl;
 import org.quiltmc.config.impl.builders.WrappedConfigCreator;
-import org.quiltmc.config.impl.tree.Trie;
+import org.quiltmc.config.impl.tree.ConfigTree;
+import org.quiltmc.config.impl.tree.SectionTreeNode;
+import org.quiltmc.config.impl.tree.TrackedValueImpl;
 import org.quiltmc.config.impl.util.ImmutableIterable;
+import org.quiltmc.config.impl.util.InternTable;
+import org.quiltmc.config.impl.util.PatchableFormat;
+import org.quiltmc.config.impl.util.SerializerUtils;
+import org.quiltmc.config.impl.values.DerivedValueImpl;
+import org.quiltmc.config.impl.values.ValueKeyImpl;
 import org.quiltmc.config.implementor_api.ConfigEnvironment;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public final class ConfigImpl extends AbstractMetadataContainer implements Config {
+	public static final String DEFAULTS_SUFFIX = ".defaults";
+
 	private final ConfigEnvironment environment;
 	private final String family, id;
 	private final Path path;
 	private final List<UpdateCallback> callbacks;
-	private final Trie values;
+	private final List<ReloadCallback> reloadCallbacks = new ArrayList<>(0);
+	private final Object editLock = new Object();
+	private volatile ConfigTree tree;
 	private final String defaultFileType;
 
-	public ConfigImpl(ConfigEnvironment environment, String id, Path path, Map<MetadataType<?, ?>, Object> metadata, String family, List<UpdateCallback> callbacks, Trie values, String defaultFileType) {
+	private volatile boolean loaded = true;
+	private boolean loading;
+	private ConfigJournal journal;
+	private static final AtomicLong VERSIONS = new AtomicLong();
+	private static final MarshallingUtils.ValueMapCreator<Map<String, ?>> MAP_READER = (map, entryConsumer) -> map.forEach(entryConsumer::put);
+
+	private final AtomicLong version = new AtomicLong();
+	private final Set<TrackedValue<?>> modified = new LinkedHashSet<>();
+	private boolean sparse;
+	private boolean writeDefaults;
+	private volatile boolean writingDefaults;
+	private boolean preserveLayout;
+	private ConfigLayout layout;
+	private final Map<List<String>, Object> unreadEntries = new HashMap<>(0);
+
+	public ConfigImpl(ConfigEnvironment environment, String id, Path path, Map<MetadataType<?, ?>, Object> metadata, String family, List<UpdateCallback> callbacks, ConfigTree tree, String defaultFileType) {
 		super(metadata);
 		this.environment = environment;
 		this.family = family;
 		this.id = id;
 		this.path = path;
 		this.callbacks = callbacks;
-		this.values = values;
+		this.tree = tree;
 		this.defaultFileType = defaultFileType;
 	}
 
+	/**
+	 * Creates a config that shares the environment, metadata and file type of the given config.
+	 */
+	public ConfigImpl(ConfigImpl prototype, String family, String id, Path path, List<UpdateCallback> callbacks, ConfigTree tree) {
+		super(prototype);
+		this.environment = prototype.environment;
+		this.family = family;
+		this.id = id;
+		this.path = path;
+		this.callbacks = callbacks;
+		this.tree = tree;
+		this.defaultFileType = prototype.defaultFileType;
+	}
+
 	@Override
 	public String family() {
 		return this.family;
@@ -75,6 +130,11 @@ public void registerCallback(UpdateCallback callback) {
 		this.callbacks.add(callback);
 	}
 
+	@Override
+	public void registerReloadCallback(ReloadCallback callback) {
+		this.reloadCallbacks.add(callback);
+	}
+
 	public String getDefaultFileType() {
 		return this.defaultFileType;
 	}
@@ -83,71 +143,541 @@ public ConfigEnvironment getEnvironment() {
 		return this.environment;
 	}
 
-	private Path getPath() {
+	/**
+	 * Marks this config as not yet read from disk. Its file will be read the first time it is accessed.
+	 */
+	public void deferLoading() {
+		this.loaded = false;
+	}
+
+	/**
+	 * Makes changes to individual values be appended to a journal next to this config's file rather than rewriting the
+	 * whole file. The file is rewritten once the journal holds the given number of records, or when {@link #save()} is
+	 * called.
+	 */
+	public void enableJournal(int compactionThreshold) {
+		this.journal = new ConfigJournal(this.environment.getSaveDir().resolve(this.family).resolve(this.path).resolve(this.id + ".journal"), compactionThreshold);
+	}
+
+	public ConfigJournal getJournal() {
+		return this.journal;
+	}
+
+	/**
+	 * Makes this config only write values that differ from their defaults to its file.
+	 *
+	 * @param writeDefaults whether to also write a reference file holding the default of every value
+	 */
+	public void setSparse(boolean writeDefaults) {
+		this.sparse = true;
+		this.writeDefaults = writeDefaults;
+	}
+
+	/**
+	 * Makes changes to single values be saved by patching their literal into this config's file, if its format
+	 * supports it, rather than regenerating the whole file.
+	 */
+	public void setPreserveLayout() {
+		this.preserveLayout = true;
+	}
+
+	/**
+	 * @return whether this config's file is patched in place when it is read with the given serializer
+	 */
+	public boolean preservesLayout(Serializer serializer) {
+		return this.preserveLayout && serializer instanceof PatchableFormat && this.environment.getBundle(this.family) == null;
+	}
+
+	/**
+	 * Reads this config from its own file and records the file's layout, so that later changes can be patched into it.
+	 *
+	 * @return whether the file already holds every value that should be written, so that it doesn't need to be rewritten
+	 */
+	public boolean readPreservingLayout(Serializer serializer, Path path) throws IOException {
+		byte[] bytes = Files.readAllBytes(path);
+
+		serializer.deserialize(this, new ByteArrayInputStream(bytes));
+		this.layout = ConfigLayout.scan((PatchableFormat) serializer, new String(bytes, ((PatchableFormat) serializer).getCharset()));
+
+		if (this.layout == null) {
+			return false;
+		}
+
+		for (TrackedValue<?> value : this.values()) {
+			if (SerializerUtils.isWritten(value) && !this.layout.contains(getSerializedKey(value))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private List<String> getSerializedKey(TrackedValue<?> value) {
+		List<String> key = new ArrayList<>();
+		SerializerUtils.getSerializedKey(this, value).forEach(key::add);
+
+		return key;
+	}
+
+	public boolean isSparse() {
+		return this.sparse;
+	}
+
+	public boolean hasDefaultsFile() {
+		return this.sparse && this.writeDefaults;
+	}
+
+	/**
+	 * @return whether this config is currently being written to its defaults reference file
+	 */
+	public boolean isWritingDefaults() {
+		return this.writingDefaults;
+	}
+
+	/**
+	 * Called whenever a value changes, to keep track of which values differ from their defaults.
+	 */
+	public void updateModified(TrackedValue<?> value, boolean modified) {
+		synchronized (this.modified) {
+			if (modified) {
+				this.modified.add(value);
+			} else {
+				this.modified.remove(value);
+			}
+		}
+	}
+
+	public boolean isModified(TrackedValue<?> value) {
+		synchronized (this.modified) {
+			return this.modified.contains(value);
+		}
+	}
+
+	@Override
+	public Iterable<TrackedValue<?>> modifiedValues() {
+		this.ensureLoaded();
+
+		synchronized (this.modified) {
+			return new ImmutableIterable<>(new ArrayList<>(this.modified));
+		}
+	}
+
+	/**
+	 * @return a new version, greater than every version handed out before it
+	 */
+	public static long nextVersion() {
+		return VERSIONS.incrementAndGet();
+	}
+
+	@Override
+	public long version() {
+		return this.version.get();
+	}
+
+	@Override
+	public <T> DerivedValue<T> derive(Supplier<T> function, TrackedValue<?>... dependencies) {
+		return new DerivedValueImpl<>(function, dependencies);
+	}
+
+	public void updateVersion(long version) {
+		this.version.accumulateAndGet(version, Math::max);
+	}
+
+	/**
+	 * @return the sections containing the given key, outermost first
+	 */
+	public SectionTreeNode[] getSections(ValueKey key) {
+		return this.tree.getSections(key);
+	}
+
+	/**
+	 * Keeps an entry that was read from this config's file or journal without belonging to any of its values, so that a
+	 * value added later can still be read from it. The file itself no longer holds the entry once it is rewritten.
+	 *
+	 * @param key the names the entry was read under
+	 * @param value the entry, as a {@link Map}, {@link List}, or scalar
+	 */
+	public void putUnreadEntry(List<String> key, Object value) {
+		synchronized (this.unreadEntries) {
+			this.unreadEntries.put(key, value);
+		}
+	}
+
+	public boolean isLoaded() {
+		return this.loaded;
+	}
+
+	/**
+	 * Performs the initial serialization of this config if it was deferred. Safe to call from any thread; calls made
+	 * while the config is being read, such as from update callbacks, return immediately.
+	 */
+	public void ensureLoaded() {
+		if (!this.loaded) {
+			synchronized (this) {
+				if (!this.loaded && !this.loading) {
+					this.loading = true;
+
+					try {
+						ConfigBuilderImpl.doInitialSerialization(this);
+
+						// A config that failed to load is read again on next access, rather than saved with its defaults
+						this.loaded = true;
+					} finally {
+						this.loading = false;
+					}
+				}
+			}
+		}
+	}
+
+	public Path getPath() {
 		return this.environment.getSaveDir().resolve(this.family).resolve(this.path).resolve(this.id + "." + this.environment.getSerializer(this.defaultFileType).getFileExtension());
 	}
 
+	public Path getDefaultsPath() {
+		return this.getPath().resolveSibling(this.id + DEFAULTS_SUFFIX + "." + this.environment.getSerializer(this.defaultFileType).getFileExtension());
+	}
+
+	/**
+	 * Serializes this config to its bundle if its environment stores configs in bundles, or to its own file otherwise.
+	 */
+	public synchronized void write() throws IOException {
+		Serializer serializer = this.environment.getSerializer(this.defaultFileType);
+		ConfigBundle bundle = this.environment.getBundle(this.family);
+		Path path = this.getPath();
+
+		if (bundle == null && this.preservesLayout(serializer)) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			serializer.serialize(this, out);
+
+			Files.createDirectories(path.getParent());
+			Files.write(path, out.toByteArray());
+			this.layout = ConfigLayout.scan((PatchableFormat) serializer, new String(out.toByteArray(), ((PatchableFormat) serializer).getCharset()));
+		} else if (bundle == null) {
+			Files.createDirectories(path.getParent());
+			serializer.serialize(this, Files.newOutputStream(path));
+		} else {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			serializer.serialize(this, out);
+			bundle.put(ConfigBundle.entryName(this.environment.getSaveDir(), path), out.toByteArray());
+		}
+	}
+
+	/**
+	 * Regenerates the defaults reference file of a sparse config, if it has one.
+	 */
+	public void writeDefaults() throws IOException {
+		if (!this.hasDefaultsFile()) {
+			return;
+		}
+
+		Path path = this.getDefaultsPath();
+		Files.createDirectories(path.getParent());
+
+		synchronized (this) {
+			this.writingDefaults = true;
+
+			try {
+				this.environment.getSerializer(this.defaultFileType).serialize(this, Files.newOutputStream(path));
+			} finally {
+				this.writingDefaults = false;
+			}
+		}
+	}
+
 	@Override
 	public void save() {
-		Path path = this.getPath();
+		this.ensureLoaded();
 
 		try {
-			Files.createDirectories(path.getParent());
-			this.environment.getSerializer(this.defaultFileType).serialize(this, Files.newOutputStream(path));
+			this.write();
+
+			if (this.journal != null) {
+				this.journal.clear();
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * Persists a change to a single value, either by appending it to this config's journal or by saving the whole file.
+	 */
+	public void save(TrackedValue<?> changed) {
+		if (this.journal == null) {
+			if (!this.patch(changed)) {
+				this.save();
+			}
+
+			return;
+		}
+
+		this.ensureLoaded();
+
+		try {
+			if (this.journal.append(changed)) {
+				this.save();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			this.save();
+		}
+	}
+
+	/**
+	 * Splices the new literal of a single value into this config's file.
+	 *
+	 * @return whether the file was patched, or {@code false} if it has to be regenerated
+	 */
+	private synchronized boolean patch(TrackedValue<?> value) {
+		Serializer serializer = this.environment.getSerializer(this.defaultFileType);
+
+		if (this.layout == null || !this.preservesLayout(serializer) || !SerializerUtils.isWritten(value)) {
+			return false;
+		}
+
+		PatchableFormat format = (PatchableFormat) serializer;
+		String literal = format.renderLiteral(SerializerUtils.getCodec(value), value.getRealValue());
+		ConfigLayout.Patch patch = literal == null ? null : this.layout.patch(this.getSerializedKey(value), literal);
+
+		if (patch == null) {
+			return false;
+		}
+
+		try {
+			return patch.write(this.getPath());
+		} catch (IOException e) {
+			e.printStackTrace();
+
+			return false;
+		}
+	}
+
 	public void invokeCallbacks() {
 		for (UpdateCallback callback : this.callbacks) {
 			callback.onUpdate(this);
 		}
 	}
 
+	public void invokeReloadCallbacks(Set<ValueKey> changedKeys) {
+		for (ReloadCallback callback : this.reloadCallbacks) {
+			callback.onReload(this, changedKeys);
+		}
+	}
+
 	public Iterable<TrackedValue<?>> values() {
-		return new Iterable<TrackedValue<?>>() {
-			@NotNull
-			@Override
-			public Iterator<TrackedValue<?>> iterator() {
-				return new Iterator<TrackedValue<?>>() {
-					private final Iterator<ValueTreeNode> itr = ConfigImpl.this.values.leaves().iterator();
-					private ValueTreeNode next;
-
-					@Override
-					public boolean hasNext() {
-						// Consume non-leaf nodes
-						while (this.itr.hasNext() && !(this.next instanceof TrackedValue)) {
-							this.next = this.itr.next();
-						}
-
-						return next != null;
-					}
+		this.ensureLoaded();
 
-					@Override
-					public TrackedValue<?> next() {
-						TrackedValue<?> value = (TrackedValue<?>) this.next;
+		return this.tree.values();
+	}
 
-						this.next = null;
+	@Override
+	public TrackedValue<?> getValue(Iterable<String> key) {
+		this.ensureLoaded();
 
-						return value;
-					}
-				};
-			}
-		};
+		return this.tree.getValue(key);
+	}
+
+	/**
+	 * Compacts the metadata of this config and of all of its nodes into the intern table of its environment.
+	 */
+	public void compact() {
+		this.compact(this.environment.getInternTable());
 	}
 
 	@Override
-	public TrackedValue<?> getValue(Iterable<String> key) {
-		return this.values.get(key);
+	public void compact(InternTable table) {
+		super.compact(table);
+		compact(this.tree.nodes(), table);
+	}
+
+	private static void compact(Iterable<ValueTreeNode> nodes, InternTable table) {
+		for (ValueTreeNode node : nodes) {
+			if (node instanceof AbstractMetadataContainer) {
+				((AbstractMetadataContainer) node).compact(table);
+			}
+
+			if (node instanceof ValueTreeNode.Section) {
+				compact((ValueTreeNode.Section) node, table);
+			}
+		}
 	}
 
 	public Iterable<ValueTreeNode> nodes() {
-		return new ImmutableIterable<>(this.values.nodes());
+		this.ensureLoaded();
+
+		return new ImmutableIterable<>(this.tree.nodes());
 	}
 
 	public ValueTreeNode getNode(Iterable<String> key) {
-		return this.values.getNode(key);
+		this.ensureLoaded();
+
+		return this.tree.getNode(key);
+	}
+
+	public ConfigTree getTree() {
+		return this.tree;
+	}
+
+	@Override
+	public void addValue(TrackedValue<?> value) {
+		synchronized (this.editLock) {
+			ConfigTree.Builder tree = this.tree.edit();
+
+			tree.put(value.key(), (TrackedValueImpl<?>) value);
+			this.replaceTree(tree.build());
+		}
+	}
+
+	@Override
+	public void addSection(Iterable<String> key, Consumer<SectionBuilder> creator) {
+		List<String> components = new ArrayList<>();
+		key.forEach(components::add);
+
+		synchronized (this.editLock) {
+			ConfigTree.Builder tree = this.tree.edit();
+			SectionBuilderImpl sectionBuilder = new SectionBuilderImpl(new ValueKeyImpl(components.toArray(new String[0])), tree);
+
+			creator.accept(sectionBuilder);
+			sectionBuilder.build();
+			this.replaceTree(tree.build());
+		}
+	}
+
+	@Override
+	public boolean removeNode(Iterable<String> key) {
+		synchronized (this.editLock) {
+			ConfigTree.Builder tree = this.tree.edit();
+
+			if (!tree.remove(key)) {
+				return false;
+			}
+
+			this.replaceTree(tree.build());
+
+			return true;
+		}
+	}
+
+	/**
+	 * Replaces the tree of this config by an edited copy. Iterations that are in progress keep using the old tree.
+	 *
+	 * <p>Values added by the edit are first read from the {@linkplain #putUnreadEntry unread entries} of this config, so
+	 * that values saved before a restart are never replaced by their defaults once they are added again.
+	 */
+	private void replaceTree(ConfigTree tree) {
+		List<TrackedValueImpl<?>> added = new ArrayList<>();
+
+		for (TrackedValue<?> value : tree.values()) {
+			ConfigImpl config = ((TrackedValueImpl<?>) value).getConfig();
+
+			if (config == null) {
+				added.add((TrackedValueImpl<?>) value);
+			} else if (config != this) {
+				throw new TrackedValueException("TrackedValue '" + value.key() + "' cannot be assigned to multiple configs");
+			}
+		}
+
+		if (!added.isEmpty()) {
+			this.readUnreadEntries(tree, added);
+		}
+
+		for (TrackedValueImpl<?> value : added) {
+			value.setConfig(this, tree);
+			this.updateModified(value, !Objects.equals(value.getRealValue(), value.getDefaultValue()));
+		}
+
+		if (this.isCompact()) {
+			compact(tree.nodes(), this.environment.getInternTable());
+		}
+
+		this.tree = tree;
+
+		synchronized (this.modified) {
+			this.modified.removeIf(value -> tree.getNode(value.key()) != value);
+		}
+	}
+
+	/**
+	 * Reads the given values, which are about to be added to this config, from its unread entries.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void readUnreadEntries(ConfigTree tree, List<TrackedValueImpl<?>> values) {
+		LoadContext context = LoadContext.create();
+
+		synchronized (this.unreadEntries) {
+			if (this.unreadEntries.isEmpty()) {
+				return;
+			}
+
+			for (TrackedValueImpl<?> value : values) {
+				Object entry = this.takeUnreadEntry(tree, value);
+
+				if (entry != null) {
+					try {
+						context.stage((TrackedValue) value, value.getCodec().coerce(entry, MAP_READER));
+					} catch (ConfigParseException | ClassCastException | NullPointerException e) {
+						// Entries of the wrong type are skipped, as they would have been when the file was read
+					}
+				}
+			}
+		}
+
+		context.commit();
+	}
+
+	/**
+	 * Removes the entry a value would have been read from. Journals write values under their plain key, most
+	 * serializers under their serialized key, and streaming serializers under plain section names.
+	 */
+	private Object takeUnreadEntry(ConfigTree tree, TrackedValue<?> value) {
+		List<String> plain = new ArrayList<>();
+		List<String> serialized = new ArrayList<>();
+		List<String> streaming = new ArrayList<>();
+
+		for (String component : value.key()) {
+			plain.add(component);
+
+			String name = SerializerUtils.getSerializedName(tree.getNode(plain));
+
+			serialized.add(name);
+			streaming.add(plain.size() == value.key().length() ? name : component);
+		}
+
+		for (List<String> key : Arrays.asList(plain, serialized, streaming)) {
+			Object entry = this.takeUnreadEntry(key);
+
+			if (entry != null) {
+				return entry;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes the entry with the given key, which may also be nested in an entry that was read as a whole under one of
+	 * the sections containing it.
+	 */
+	@SuppressWarnings("unchecked")
+	private Object takeUnreadEntry(List<String> key) {
+		if (this.unreadEntries.containsKey(key)) {
+			return this.unreadEntries.remove(key);
+		}
+
+		for (int length = key.size() - 1; length > 0; length--) {
+			Object entry = this.unreadEntries.get(key.subList(0, length));
+
+			for (int i = length; i < key.size() - 1 && entry instanceof Map; i++) {
+				entry = ((Map<String, Object>) entry).get(key.get(i));
+			}
+
+			if (entry instanceof Map && ((Map<String, Object>) entry).containsKey(key.get(key.size() - 1))) {
+				return ((Map<String, Object>) entry).remove(key.get(key.size() - 1));
+			}
+		}
+
+		return null;
 	}
 
 	public static Config create(ConfigEnvironment environment, String familyId, String id, Creator... creators) {
@@ -176,9 +706,18 @@ public static <C extends WrappedConfig> C create(ConfigEnvironment environment,
 	}
 
 	public static <C extends ReflectiveConfig> C createReflective(ConfigEnvironment environment, String familyId, String id, Path path, Creator before, Class<C> configCreatorClass, Creator after) {
-		ReflectiveConfigCreator<C> creator = ReflectiveConfigCreator.of(configCreatorClass);
-		Config config = create(environment, familyId, id, path, before, creator, after);
-		C c = creator.getInstance();
+		GeneratedConfigCreator<C> generated = GeneratedConfigCreator.of(configCreatorClass);
+		Config config;
+		C c;
+
+		if (generated != null) {
+			config = create(environment, familyId, id, path, before, generated, after);
+			c = generated.getInstance();
+		} else {
+			ReflectiveConfigCreator<C> creator = ReflectiveConfigCreator.of(configCreatorClass);
+			config = create(environment, familyId, id, path, before, creator, after);
+			c = creator.getInstance();
+		}
 
 		InternalsHelper.setWrappedConfig(c, config);
 
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl;
+
+import org.quiltmc.config.api.Config;
+import org.quiltmc.config.api.LoadContext;
+import org.quiltmc.config.api.MarshallingUtils;
+import org.quiltmc.config.api.serializer.Json5Serializer;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.impl.util.SerializerUtils;
+import org.quiltmc.parsers.json.JsonReader;
+import org.quiltmc.parsers.json.JsonWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append-only log of value changes kept next to a config file, so that frequent edits don't rewrite the whole file.
+ *
+ * <p>Each record is a single line containing a JSON object with the raw key and the new value of one
+ * {@link TrackedValue}. Records are replayed in order after the config file is read, and the journal is cleared
+ * whenever the full file is written.
+ */
+public final class ConfigJournal {
+	private static final MarshallingUtils.ValueMapCreator<Map<String, ?>> MAP_READER = (map, entryConsumer) -> map.forEach(entryConsumer::put);
+
+	private final Path path;
+	private final int compactionThreshold;
+	private int records;
+
+	public ConfigJournal(Path path, int compactionThreshold) {
+		this.path = path;
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	public Path getPath() {
+		return this.path;
+	}
+
+	/**
+	 * Appends the current value of the given {@link TrackedValue} to the journal.
+	 *
+	 * @return whether the journal has reached its compaction threshold and the config should be saved in full
+	 */
+	public synchronized boolean append(TrackedValue<?> value) throws IOException {
+		StringWriter record = new StringWriter();
+		JsonWriter writer = JsonWriter.json(record);
+
+		writer.beginObject();
+		writer.name("key");
+		writer.beginArray();
+
+		for (String component : value.key()) {
+			writer.value(component);
+		}
+
+		writer.endArray();
+		writer.name("value");
+		Json5Serializer.writeValue(writer, SerializerUtils.getCodec(value), value.getRealValue());
+		writer.endObject();
+		writer.close();
+
+		// Newlines only appear in the writer's formatting, since string values are always escaped
+		String line = record.toString().replace('\n', ' ').replace('\r', ' ') + '\n';
+
+		Files.createDirectories(this.path.getParent());
+
+		try (Writer out = Files.newBufferedWriter(this.path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			out.write(line);
+		}
+
+		return ++this.records >= this.compactionThreshold;
+	}
+
+	/**
+	 * Applies every record in the journal to the given config as a single batch.
+	 *
+	 * <p>Replay stops at the first malformed record, which is usually the result of a write that was interrupted. Records
+	 * of values that are not in the config are kept as its unread entries.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public synchronized void replay(Config config) throws IOException {
+		if (!Files.exists(this.path)) {
+			return;
+		}
+
+		LoadContext context = LoadContext.create();
+		Map<List<String>, TrackedValue<?>> values = new HashMap<>();
+
+		// Looked up by key here rather than through the config, so that stale keys can never add nodes to it
+		for (TrackedValue<?> value : config.values()) {
+			List<String> key = new ArrayList<>();
+			value.key().forEach(key::add);
+			values.put(key, value);
+		}
+
+		try (BufferedReader in = Files.newBufferedReader(this.path, StandardCharsets.UTF_8)) {
+			String line;
+
+			while ((line = in.readLine()) != null) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+
+				Map<String, Object> record;
+
+				try {
+					record = (Map<String, Object>) Json5Serializer.parseElement(JsonReader.json5(new StringReader(line)));
+				} catch (IOException | RuntimeException e) {
+					// Stop at the truncated record
+					e.printStackTrace();
+					break;
+				}
+
+				List<String> key = new ArrayList<>();
+
+				for (Object component : (List<Object>) record.get("key")) {
+					key.add((String) component);
+				}
+
+				TrackedValue value = values.get(key);
+
+				if (value != null) {
+					context.stage(value, SerializerUtils.getCodec(value).coerce(record.get("value"), MAP_READER));
+				} else {
+					SerializerUtils.putUnreadEntry(config, key, record.get("value"));
+				}
+			}
+		}
+
+		context.commit();
+	}
+
+	/**
+	 * Deletes the journal. Should be called once its records have been written to the config file.
+	 */
+	public synchronized void clear() throws IOException {
+		Files.deleteIfExists(this.path);
+		this.records = 0;
+	}
+}
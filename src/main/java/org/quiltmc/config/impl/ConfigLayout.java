@@ -0,0 +1,262 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl;
+
+import org.jetbrains.annotations.Nullable;
+import org.quiltmc.config.impl.util.PatchableFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The location of each value's literal in a config file, as it was last read or written.
+ *
+ * <p>Used to save a change to a single value by splicing its new literal into the file, which keeps any formatting and
+ * comments added by hand, and avoids serializing the whole config again. Each literal may be followed by room to grow
+ * into: the spaces after it, other than one that separates it from anything else on its line.
+ *
+ * <p>A literal that fits in its own length plus its room is written over the old one in place, padded with spaces,
+ * which costs the same regardless of the size of the file. This covers all literals that get shorter, and those that
+ * get longer by no more than their room. A literal that outgrows its room moves the rest of the file, and is given
+ * {@value #GROWTH_ROOM} spaces of room, so that a value that keeps changing within a similar length, such as a boolean
+ * or a counter, moves the file at most once.
+ */
+public final class ConfigLayout {
+	private static final int GROWTH_ROOM = 4;
+
+	// The start and end byte offsets of each literal, and the number of bytes of room after it
+	private final Map<List<String>, long[]> spans = new HashMap<>();
+	private final Set<List<String>> present = new HashSet<>();
+	private final Charset charset;
+	private final byte space;
+	private long length;
+
+	private ConfigLayout(Charset charset, String text, Map<List<String>, int[]> spans) {
+		this.charset = charset;
+
+		byte[] space = " ".getBytes(charset);
+		// Padding is only written in charsets that encode a space as a single byte
+		this.space = space.length == 1 ? space[0] : 0;
+
+		// Collect every offset that is needed in bytes, so that the file is encoded only once
+		TreeMap<Integer, Long> offsets = new TreeMap<>();
+		Map<List<String>, int[]> rooms = new HashMap<>();
+
+		for (Map.Entry<List<String>, int[]> entry : spans.entrySet()) {
+			int[] span = entry.getValue();
+			int room = this.space == 0 || span[0] == span[1] ? 0 : room(text, span[1]);
+
+			rooms.put(entry.getKey(), new int[] {span[0], span[1], span[1] + room});
+			offsets.put(span[0], 0L);
+			offsets.put(span[1], 0L);
+			offsets.put(span[1] + room, 0L);
+		}
+
+		int chars = 0;
+		long bytes = 0;
+
+		for (Map.Entry<Integer, Long> offset : offsets.entrySet()) {
+			bytes += text.substring(chars, offset.getKey()).getBytes(charset).length;
+			chars = offset.getKey();
+			offset.setValue(bytes);
+		}
+
+		this.length = bytes + text.substring(chars).getBytes(charset).length;
+
+		for (Map.Entry<List<String>, int[]> entry : rooms.entrySet()) {
+			int[] span = entry.getValue();
+			long end = offsets.get(span[1]);
+
+			this.spans.put(entry.getKey(), new long[] {offsets.get(span[0]), end, offsets.get(span[2]) - end});
+		}
+
+		// Values written as tables or objects count as present even if the format does not give them a literal
+		for (List<String> key : spans.keySet()) {
+			for (int i = 1; i <= key.size(); i++) {
+				this.present.add(new ArrayList<>(key.subList(0, i)));
+			}
+		}
+	}
+
+	/**
+	 * @return the number of spaces after the given offset that can be written over, keeping one that separates them
+	 * from anything else on the same line
+	 */
+	private static int room(String text, int offset) {
+		int end = offset;
+
+		while (end < text.length() && text.charAt(end) == ' ') {
+			end++;
+		}
+
+		boolean endOfLine = end == text.length() || text.charAt(end) == '\n' || text.charAt(end) == '\r';
+
+		return endOfLine || end == offset ? end - offset : end - offset - 1;
+	}
+
+	/**
+	 * @return the layout of the given file, or {@code null} if it could not be scanned
+	 */
+	public static @Nullable ConfigLayout scan(PatchableFormat format, String text) {
+		Map<List<String>, int[]> spans = format.scanLiterals(text);
+
+		return spans == null ? null : new ConfigLayout(format.getCharset(), text, spans);
+	}
+
+	/**
+	 * @return whether the file contains the value or section with the given serialized key
+	 */
+	public boolean contains(List<String> key) {
+		return this.present.contains(key);
+	}
+
+	/**
+	 * Replaces the literal of a single value.
+	 *
+	 * @return the change to write to the file, or {@code null} if the value has no literal in the file
+	 */
+	public synchronized @Nullable Patch patch(List<String> key, String literal) {
+		long[] span = this.spans.get(key);
+
+		// Tables are recorded without a literal
+		if (span == null || span[0] == span[1]) {
+			return null;
+		}
+
+		byte[] bytes = literal.getBytes(this.charset);
+		long start = span[0];
+		long replaced = span[1] - start + span[2];
+
+		if (bytes.length == replaced || bytes.length < replaced && this.space != 0) {
+			span[1] = start + bytes.length;
+			span[2] = replaced - bytes.length;
+
+			return new Patch(this.length, start, replaced, this.pad(bytes, (int) replaced));
+		}
+
+		byte[] padded = this.pad(bytes, bytes.length + (this.space == 0 ? 0 : GROWTH_ROOM));
+		long end = start + replaced;
+		long delta = padded.length - replaced;
+		Patch patch = new Patch(this.length, start, replaced, padded);
+
+		for (long[] other : this.spans.values()) {
+			if (other[0] >= end) {
+				other[0] += delta;
+				other[1] += delta;
+			} else if (other[1] >= end && other != span) {
+				// An object that contains the patched value
+				other[1] += delta;
+			}
+		}
+
+		span[1] = start + bytes.length;
+		span[2] = padded.length - bytes.length;
+		this.length += delta;
+
+		return patch;
+	}
+
+	private byte[] pad(byte[] bytes, int length) {
+		byte[] padded = Arrays.copyOf(bytes, length);
+		Arrays.fill(padded, bytes.length, length, this.space);
+
+		return padded;
+	}
+
+	/**
+	 * A new literal to write over an old one and the room after it.
+	 */
+	public static final class Patch {
+		private final long fileLength;
+		private final long offset;
+		private final long replaced;
+		private final byte[] bytes;
+
+		private Patch(long fileLength, long offset, long replaced, byte[] bytes) {
+			this.fileLength = fileLength;
+			this.offset = offset;
+			this.replaced = replaced;
+			this.bytes = bytes;
+		}
+
+		/**
+		 * @return whether the new literal is written over the old one without moving the rest of the file
+		 */
+		public boolean isInPlace() {
+			return this.bytes.length == this.replaced;
+		}
+
+		/**
+		 * Writes this patch to the given file. A literal that does not fit in place moves the rest of the file after it,
+		 * which is read and written again.
+		 *
+		 * @return whether the file was patched, or {@code false} if it changed since it was last read or written and has
+		 * to be regenerated
+		 */
+		public boolean write(Path path) throws IOException {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				// A file that changed length since it was read is not the file the offsets were computed for
+				if (channel.size() != this.fileLength) {
+					return false;
+				}
+
+				long end = this.offset + this.replaced;
+				ByteBuffer tail = null;
+
+				if (!this.isInPlace()) {
+					tail = ByteBuffer.allocate((int) (this.fileLength - end));
+
+					while (tail.hasRemaining()) {
+						if (channel.read(tail, end + tail.position()) < 0) {
+							return false;
+						}
+					}
+
+					tail.flip();
+				}
+
+				long position = write(channel, ByteBuffer.wrap(this.bytes), this.offset);
+
+				if (tail != null) {
+					channel.truncate(write(channel, tail, position));
+				}
+
+				return true;
+			}
+		}
+
+		private static long write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+
+			return position;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl;
+
+import org.quiltmc.config.api.LoadContext;
+import org.quiltmc.config.api.exceptions.TrackedValueException;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.api.values.ValueKey;
+import org.quiltmc.config.impl.tree.TrackedValueImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+public final class LoadContextImpl implements LoadContext {
+	private final Map<TrackedValueImpl<?>, Object> staged = new LinkedHashMap<>();
+	private final boolean override;
+
+	public LoadContextImpl(boolean override) {
+		this.override = override;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> void stage(TrackedValue<T> value, T newValue) {
+		this.staged.put((TrackedValueImpl<T>) value, newValue);
+	}
+
+	@Override
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public Set<ValueKey> commit() {
+		StringBuilder errorMessage = null;
+
+		for (Iterator<Map.Entry<TrackedValueImpl<?>, Object>> itr = this.staged.entrySet().iterator(); itr.hasNext(); ) {
+			Map.Entry<TrackedValueImpl<?>, Object> entry = itr.next();
+			Optional<Iterable<String>> errors = ((TrackedValueImpl) entry.getKey()).checkForFailingConstraints(entry.getValue());
+
+			if (errors.isPresent()) {
+				if (errorMessage == null) {
+					errorMessage = new StringBuilder();
+				}
+
+				for (String message : errors.get()) {
+					errorMessage.append(entry.getKey().key()).append(": ").append(message).append('\n');
+				}
+
+				// Invalid values keep their current value, while all valid ones are still set
+				itr.remove();
+			}
+		}
+
+		Set<ValueKey> result = this.apply();
+
+		if (errorMessage != null) {
+			throw new TrackedValueException(errorMessage.toString());
+		}
+
+		return result;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Set<ValueKey> apply() {
+		Set<ValueKey> changed = new LinkedHashSet<>();
+		List<TrackedValueImpl<?>> changedValues = new ArrayList<>();
+		Set<ConfigImpl> configs = new LinkedHashSet<>();
+
+		for (Map.Entry<TrackedValueImpl<?>, Object> entry : this.staged.entrySet()) {
+			TrackedValueImpl value = entry.getKey();
+			Object newValue = entry.getValue();
+
+			if (this.override) {
+				Object oldValue = value.value();
+				value.setOverrideQuietly(newValue);
+
+				if (Objects.equals(oldValue, newValue)) {
+					continue;
+				}
+			} else if (Objects.equals(value.getRealValue(), newValue)) {
+				continue;
+			} else {
+				value.setValueQuietly(newValue);
+			}
+
+			changed.add(value.key());
+			changedValues.add(value);
+
+			// Changes to the real value of an overridden value aren't visible, so they don't notify its config
+			if (value.getConfig() != null && (this.override || !value.isBeingOverridden())) {
+				configs.add(value.getConfig());
+			}
+		}
+
+		this.staged.clear();
+
+		if (changed.isEmpty()) {
+			return Collections.emptySet();
+		}
+
+		Set<ValueKey> result = Collections.unmodifiableSet(changed);
+
+		for (TrackedValueImpl<?> value : changedValues) {
+			if (this.override || !value.isBeingOverridden()) {
+				value.invokeValueCallbacks();
+			}
+		}
+
+		for (ConfigImpl config : configs) {
+			config.invokeCallbacks();
+			config.invokeReloadCallbacks(result);
+		}
+
+		return result;
+	}
+}
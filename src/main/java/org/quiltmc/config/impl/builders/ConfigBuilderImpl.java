@@ -21,13 +21,15 @@
 import org.quiltmc.config.api.metadata.MetadataType;
 import org.quiltmc.config.api.values.TrackedValue;
 import org.quiltmc.config.api.values.ValueKey;
+import org.quiltmc.config.impl.ConfigBundle;
 import org.quiltmc.config.impl.ConfigImpl;
+import org.quiltmc.config.impl.tree.ConfigTree;
 import org.quiltmc.config.impl.tree.TrackedValueImpl;
-import org.quiltmc.config.impl.tree.Trie;
 import org.quiltmc.config.impl.util.ConfigsImpl;
 import org.quiltmc.config.impl.values.ValueKeyImpl;
 import org.quiltmc.config.implementor_api.ConfigEnvironment;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -45,9 +47,14 @@ public final class ConfigBuilderImpl implements Config.Builder {
 	private final Map<MetadataType<?, ?>, MetadataType.Builder<?>> metadata = new LinkedHashMap<>();
 	private final List<Config.UpdateCallback> callbacks = new ArrayList<>();
 
-	final Trie values = new Trie();
+	final ConfigTree.Builder values = ConfigTree.builder();
 
 	private String format;
+	private boolean lazy;
+	private int journalThreshold;
+	private boolean sparse;
+	private boolean writeDefaults;
+	private boolean preserveLayout;
 
 	public ConfigBuilderImpl(ConfigEnvironment environment, String familyId, String id, Path path) {
 		this.environment = environment;
@@ -59,7 +66,7 @@ public ConfigBuilderImpl(ConfigEnvironment environment, String familyId, String
 
 	@Override
 	public Config.Builder field(TrackedValue<?> value) {
-		this.values.put(value.key(), value);
+		this.values.put(value.key(), (TrackedValueImpl<?>) value);
 
 		return this;
 	}
@@ -67,10 +74,10 @@ public Config.Builder field(TrackedValue<?> value) {
 	@Override
 	public Config.Builder section(String key, Consumer<Config.SectionBuilder> creator) {
 		ValueKey valueKey = new ValueKeyImpl(key);
-		SectionBuilderImpl sectionBuilder = new SectionBuilderImpl(valueKey, this);
+		SectionBuilderImpl sectionBuilder = new SectionBuilderImpl(valueKey, this.values);
 
 		creator.accept(sectionBuilder);
-		this.values.put(valueKey, sectionBuilder);
+		sectionBuilder.build();
 
 		return this;
 	}
@@ -97,22 +104,97 @@ public Config.Builder format(String format) {
 		return this;
 	}
 
+	@Override
+	public Config.Builder lazy() {
+		this.lazy = true;
+
+		return this;
+	}
+
+	@Override
+	public Config.Builder journal(int compactionThreshold) {
+		if (compactionThreshold < 1) {
+			throw new IllegalArgumentException("Journal compaction threshold must be positive");
+		}
+
+		this.journalThreshold = compactionThreshold;
+
+		return this;
+	}
+
+	@Override
+	public Config.Builder preserveLayout() {
+		this.preserveLayout = true;
+
+		return this;
+	}
+
+	@Override
+	public Config.Builder sparse(boolean writeDefaults) {
+		this.sparse = true;
+		this.writeDefaults = writeDefaults;
+
+		return this;
+	}
+
 	public ConfigImpl build() {
+		return this.register(this.buildPrototype());
+	}
+
+	/**
+	 * Creates the config described by this builder without registering or loading it.
+	 */
+	public ConfigImpl buildPrototype() {
 		Map<MetadataType<?, ?>, Object> metadata = new LinkedHashMap<>();
 
 		for (Map.Entry<MetadataType<?, ?>, MetadataType.Builder<?>> entry : this.metadata.entrySet()) {
 			metadata.put(entry.getKey(), entry.getValue().build());
 		}
 
-		ConfigImpl config = new ConfigImpl(this.environment, this.id, this.path, metadata, this.familyId, this.callbacks, this.values, this.format);
+		return new ConfigImpl(this.environment, this.id, this.path, metadata, this.familyId, this.callbacks, this.values.build(), this.format);
+	}
 
-		ConfigsImpl.put(familyId, config);
+	/**
+	 * Creates, registers and loads a config with the same structure as a {@linkplain #buildPrototype() prototype}
+	 * created by this builder. Nothing but the values of the new config and its callbacks is copied.
+	 *
+	 * @param values values created elsewhere to use in the new config, by the index of their node
+	 */
+	public ConfigImpl instantiate(ConfigImpl prototype, String familyId, String id, Path path, TrackedValueImpl<?>[] values) {
+		return this.register(new ConfigImpl(prototype, familyId, id, path, new ArrayList<>(this.callbacks), prototype.getTree().instantiate(values)));
+	}
+
+	private ConfigImpl register(ConfigImpl config) {
+		ConfigsImpl.put(config.family(), config);
+
+		if (this.journalThreshold > 0) {
+			config.enableJournal(this.journalThreshold);
+		}
+
+		if (this.sparse) {
+			config.setSparse(this.writeDefaults);
+		}
+
+		if (this.preserveLayout) {
+			config.setPreserveLayout();
+		}
 
 		for (TrackedValue<?> value : config.values()) {
 			((TrackedValueImpl<?>) value).setConfig(config);
 		}
 
-		doInitialSerialization(config);
+		if (this.environment.getMemoryMode() == ConfigEnvironment.MemoryMode.COMPACT) {
+			config.compact();
+		}
+
+		if (this.lazy) {
+			config.deferLoading();
+		} else if (this.environment.isInitializationDeferred()) {
+			config.deferLoading();
+			this.environment.defer(config);
+		} else {
+			doInitialSerialization(config);
+		}
 
 		return config;
 	}
@@ -126,25 +208,72 @@ public static void doInitialSerialization(ConfigImpl config) {
 		Path directory = environment.getSaveDir().resolve(config.family()).resolve(config.savePath());
 		Path defaultPath = directory.resolve(config.id() + "." + defaultSerializer.getFileExtension());
 		Path path = directory.resolve(config.id() + "." + serializer.getFileExtension());
+		ConfigBundle bundle = environment.getBundle(config.family());
 
 		try {
-			Files.createDirectories(path.getParent());
+			// Configs that were not yet bundled are read from their own file, which is removed once they are written
+			boolean unbundled = bundle != null && !exists(environment, bundle, path) && Files.exists(path);
+
+			// A file that was read with its layout intact and already holds every value doesn't need to be rewritten
+			boolean complete = false;
 
-			if ((defaultSerializer == serializer || !Files.exists(defaultPath)) && Files.exists(path)) {
-				serializer.deserialize(config, Files.newInputStream(path));
-			} else if (Files.exists(defaultPath)) {
-				defaultSerializer.deserialize(config, Files.newInputStream(defaultPath));
+			if ((defaultSerializer == serializer || !exists(environment, bundle, defaultPath)) && (unbundled || exists(environment, bundle, path))) {
+				complete = read(serializer, config, bundle, path);
+			} else if (exists(environment, bundle, defaultPath)) {
+				read(defaultSerializer, config, bundle, defaultPath);
 
 				try {
-					Files.delete(defaultPath);
+					delete(environment, bundle, defaultPath);
 				} catch (IOException e) {
 					throw new ConfigParseException(e);
 				}
 			}
 
-			serializer.serialize(config, Files.newOutputStream(path));
+			if (config.getJournal() != null) {
+				config.getJournal().replay(config);
+			}
+
+			if (!complete || config.getJournal() != null) {
+				config.write();
+			}
+
+			config.writeDefaults();
+
+			if (config.getJournal() != null) {
+				config.getJournal().clear();
+			}
+
+			if (unbundled) {
+				Files.delete(path);
+			}
 		} catch (IOException e) {
 			throw new ConfigParseException(e);
 		}
 	}
+
+	private static boolean exists(ConfigEnvironment environment, ConfigBundle bundle, Path path) throws IOException {
+		return bundle == null ? Files.exists(path) : bundle.get(ConfigBundle.entryName(environment.getSaveDir(), path)) != null;
+	}
+
+	private static boolean read(Serializer serializer, ConfigImpl config, ConfigBundle bundle, Path path) throws IOException {
+		byte[] data = bundle == null ? null : bundle.get(ConfigBundle.entryName(config.getEnvironment().getSaveDir(), path));
+
+		if (data != null) {
+			serializer.deserialize(config, new ByteArrayInputStream(data));
+		} else if (bundle == null && config.preservesLayout(serializer)) {
+			return config.readPreservingLayout(serializer, path);
+		} else {
+			serializer.deserialize(config, path);
+		}
+
+		return false;
+	}
+
+	private static void delete(ConfigEnvironment environment, ConfigBundle bundle, Path path) throws IOException {
+		if (bundle == null) {
+			Files.delete(path);
+		} else {
+			bundle.remove(ConfigBundle.entryName(environment.getSaveDir(), path));
+		}
+	}
 }
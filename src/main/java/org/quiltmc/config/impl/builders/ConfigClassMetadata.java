@@ -0,0 +1,293 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.builders;
+
+import org.quiltmc.config.api.Config;
+import org.quiltmc.config.api.annotations.ConfigFieldAnnotationProcessor;
+import org.quiltmc.config.api.annotations.Processor;
+import org.quiltmc.config.api.exceptions.ConfigCreationException;
+import org.quiltmc.config.api.metadata.MetadataContainerBuilder;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.impl.ConfigFieldAnnotationProcessors;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything the reflective creators need to know about a config or section class, resolved once per class.
+ *
+ * <p>Field accessors, processor methods and the constructor are held as method handles. Failures to resolve them are
+ * kept and only thrown when a config is actually created from the class, so that errors surface at the same point as
+ * they would without the cache.
+ */
+final class ConfigClassMetadata {
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType PROCESSOR_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final ClassValue<ConfigClassMetadata> CACHE = new ClassValue<ConfigClassMetadata>() {
+		@Override
+		protected ConfigClassMetadata computeValue(Class<?> type) {
+			return new ConfigClassMetadata(type);
+		}
+	};
+
+	private final MethodHandle constructor;
+	private final ReflectiveOperationException constructorError;
+	private final List<FieldMetadata> fields;
+	private final ProcessorMethod processor;
+
+	private ConfigClassMetadata(Class<?> type) {
+		MethodHandle constructor = null;
+		ReflectiveOperationException constructorError = null;
+
+		try {
+			constructor = MethodHandles.publicLookup().unreflectConstructor(type.getDeclaredConstructor()).asType(CONSTRUCTOR_TYPE);
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			constructorError = e;
+		}
+
+		this.constructor = constructor;
+		this.constructorError = constructorError;
+
+		List<FieldMetadata> fields = new ArrayList<>();
+
+		for (Field field : type.getDeclaredFields()) {
+			if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+				fields.add(new FieldMetadata(field));
+			}
+		}
+
+		this.fields = Collections.unmodifiableList(fields);
+		this.processor = ProcessorMethod.of(type, type.getAnnotation(Processor.class), Config.Builder.class);
+	}
+
+	static ConfigClassMetadata of(Class<?> type) {
+		return CACHE.get(type);
+	}
+
+	/**
+	 * Creates a new instance of the class through its no-arg constructor.
+	 *
+	 * @throws ReflectiveOperationException if the constructor doesn't exist or is not accessible
+	 * @throws Throwable anything thrown by the constructor itself
+	 */
+	Object newInstance() throws Throwable {
+		if (this.constructor == null) {
+			throw this.constructorError;
+		}
+
+		return (Object) this.constructor.invokeExact();
+	}
+
+	/**
+	 * @return the non-static, non-transient fields of the class, in declaration order
+	 */
+	List<FieldMetadata> fields() {
+		return this.fields;
+	}
+
+	/**
+	 * Calls the processor method named by a {@link Processor} annotation on the class, if any.
+	 */
+	void applyProcessor(Object instance, Config.Builder builder) {
+		if (this.processor != null) {
+			this.processor.invoke(instance, builder);
+		}
+	}
+
+	static final class FieldMetadata {
+		private final Field field;
+		private final boolean isFinal;
+		private final MethodHandle getter;
+		private final IllegalAccessException getterError;
+		private volatile MethodHandle setter;
+		private final Annotation[] annotations;
+		private final ProcessorMethod processor;
+		private volatile ResolvedAnnotations resolved;
+
+		private FieldMetadata(Field field) {
+			this.field = field;
+			this.isFinal = Modifier.isFinal(field.getModifiers());
+			this.annotations = field.getAnnotations();
+
+			MethodHandle getter = null;
+			IllegalAccessException getterError = null;
+
+			if (this.isFinal) {
+				if (!Modifier.isPublic(field.getModifiers())) {
+					field.setAccessible(true);
+				}
+
+				try {
+					getter = MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+				} catch (IllegalAccessException e) {
+					getterError = e;
+				}
+			}
+
+			this.getter = getter;
+			this.getterError = getterError;
+			this.processor = ProcessorMethod.of(field.getDeclaringClass(), field.getAnnotation(Processor.class), TrackedValue.Builder.class);
+		}
+
+		Field getField() {
+			return this.field;
+		}
+
+		String getName() {
+			return this.field.getName();
+		}
+
+		boolean isFinal() {
+			return this.isFinal;
+		}
+
+		boolean isSynthetic() {
+			return this.field.isSynthetic();
+		}
+
+		/**
+		 * Reads the field. Must only be called for final fields.
+		 */
+		Object get(Object object) throws IllegalAccessException {
+			if (this.getter == null) {
+				throw this.getterError;
+			}
+
+			try {
+				return (Object) this.getter.invokeExact(object);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new ConfigCreationException(t);
+			}
+		}
+
+		/**
+		 * @return a handle that writes the field even though it is final, taking the owner and the new value
+		 */
+		MethodHandle setter() throws IllegalAccessException {
+			MethodHandle setter = this.setter;
+
+			if (setter == null) {
+				this.field.setAccessible(true);
+				this.setter = setter = MethodHandles.lookup().unreflectSetter(this.field).asType(SETTER_TYPE);
+			}
+
+			return setter;
+		}
+
+		/**
+		 * Applies all registered annotation processors for the annotations of this field.
+		 */
+		void applyAnnotations(MetadataContainerBuilder<?> builder) {
+			ResolvedAnnotations resolved = this.resolved;
+			int generation = ConfigFieldAnnotationProcessors.generation();
+
+			if (resolved == null || resolved.generation != generation) {
+				this.resolved = resolved = new ResolvedAnnotations(this.annotations, generation);
+			}
+
+			for (int i = 0; i < resolved.annotations.length; i++) {
+				ConfigFieldAnnotationProcessors.process(resolved.processors[i], resolved.annotations[i], builder);
+			}
+		}
+
+		/**
+		 * Calls the processor method named by a {@link Processor} annotation on this field, if any.
+		 */
+		void applyProcessor(Object object, TrackedValue.Builder<?> builder) {
+			if (this.processor != null) {
+				this.processor.invoke(object, builder);
+			}
+		}
+	}
+
+	/**
+	 * The annotations of a field paired with their processors, flattened so that applying them needs no lookups.
+	 */
+	private static final class ResolvedAnnotations {
+		private final int generation;
+		private final Annotation[] annotations;
+		private final ConfigFieldAnnotationProcessor<?>[] processors;
+
+		private ResolvedAnnotations(Annotation[] fieldAnnotations, int generation) {
+			List<Annotation> annotations = new ArrayList<>();
+			List<ConfigFieldAnnotationProcessor<?>> processors = new ArrayList<>();
+
+			for (Annotation annotation : fieldAnnotations) {
+				for (ConfigFieldAnnotationProcessor<?> processor : ConfigFieldAnnotationProcessors.getProcessors(annotation.annotationType())) {
+					annotations.add(annotation);
+					processors.add(processor);
+				}
+			}
+
+			this.generation = generation;
+			this.annotations = annotations.toArray(new Annotation[0]);
+			this.processors = processors.toArray(new ConfigFieldAnnotationProcessor<?>[0]);
+		}
+	}
+
+	private static final class ProcessorMethod {
+		private final String name;
+		private final MethodHandle handle;
+		private final String error;
+
+		private ProcessorMethod(String name, MethodHandle handle, String error) {
+			this.name = name;
+			this.handle = handle;
+			this.error = error;
+		}
+
+		static ProcessorMethod of(Class<?> owner, Processor processor, Class<?> builderType) {
+			if (processor == null) {
+				return null;
+			}
+
+			try {
+				Method method = owner.getMethod(processor.value(), builderType);
+
+				return new ProcessorMethod(processor.value(), MethodHandles.publicLookup().unreflect(method).asType(PROCESSOR_TYPE), null);
+			} catch (NoSuchMethodException e) {
+				return new ProcessorMethod(processor.value(), null, "Processor method '" + processor.value() + "' not found.");
+			} catch (IllegalAccessException e) {
+				return new ProcessorMethod(processor.value(), null, "Exception invoking processor method '" + processor.value() + "': " + e.getLocalizedMessage());
+			}
+		}
+
+		void invoke(Object target, Object builder) {
+			if (this.handle == null) {
+				throw new ConfigCreationException(this.error);
+			}
+
+			try {
+				this.handle.invokeExact(target, builder);
+			} catch (Throwable t) {
+				throw new ConfigCreationException("Exception invoking processor method '" + this.name + "': " + t.getLocalizedMessage(), t);
+			}
+		}
+	}
+}
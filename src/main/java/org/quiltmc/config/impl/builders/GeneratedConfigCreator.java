@@ -0,0 +1,175 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.builders;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.quiltmc.config.api.Config;
+import org.quiltmc.config.api.ReflectiveConfig;
+import org.quiltmc.config.api.exceptions.ConfigCreationException;
+import org.quiltmc.config.api.exceptions.ConfigFieldException;
+import org.quiltmc.config.api.metadata.MetadataContainerBuilder;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.impl.ConfigFieldAnnotationProcessors;
+import org.quiltmc.config.impl.tree.TrackedValueImpl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * The base class of the creators generated at compile time for {@link ReflectiveConfig} classes by the
+ * {@code quilt-config-processor} annotation processor.
+ *
+ * <p>A generated creator does exactly what a {@link ReflectiveConfigCreator} does for the same class, but with direct
+ * field accesses and method calls instead of reflection. The processor only generates a creator for classes whose
+ * fields and processor methods it can access from the same package, and whose annotations it knows how to apply, so
+ * all other classes keep using reflection.
+ */
+@ApiStatus.Internal
+public abstract class GeneratedConfigCreator<C extends ReflectiveConfig> implements Config.Creator {
+	public static final String SUFFIX = "_ConfigCreator";
+
+	private static final ClassValue<Optional<Constructor<?>>> CONSTRUCTORS = new ClassValue<Optional<Constructor<?>>>() {
+		@Override
+		protected Optional<Constructor<?>> computeValue(Class<?> type) {
+			try {
+				Class<?> creator = Class.forName(getCreatorName(type), false, type.getClassLoader());
+
+				if (!GeneratedConfigCreator.class.isAssignableFrom(creator)) {
+					return Optional.empty();
+				}
+
+				return Optional.of(creator.getConstructor());
+			} catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+				return Optional.empty();
+			}
+		}
+	};
+
+	private C instance;
+
+	/**
+	 * @return the name of the class generated for the given config class
+	 */
+	public static String getCreatorName(Class<?> configClass) {
+		return configClass.getName().replace('$', '_') + SUFFIX;
+	}
+
+	/**
+	 * Finds the creator generated for the given config class.
+	 *
+	 * @return a new creator, or {@code null} if none was generated or if the config's annotations have to be applied
+	 * through reflection because processors were registered for any of the built-in annotations
+	 */
+	@SuppressWarnings("unchecked")
+	public static <C extends ReflectiveConfig> GeneratedConfigCreator<C> of(Class<C> configClass) {
+		Optional<Constructor<?>> constructor = CONSTRUCTORS.get(configClass);
+
+		if (!constructor.isPresent() || ConfigFieldAnnotationProcessors.areBuiltInsReplaced()) {
+			return null;
+		}
+
+		try {
+			return (GeneratedConfigCreator<C>) constructor.get().newInstance();
+		} catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+			throw new ConfigCreationException(e);
+		}
+	}
+
+	/**
+	 * @return a new instance of the config class
+	 */
+	protected abstract C createInstance();
+
+	/**
+	 * Adds the values and sections of the given config instance to the builder.
+	 */
+	protected abstract void create(Config.Builder builder, C config);
+
+	@Override
+	public final void create(Config.Builder builder) {
+		if (this.instance != null) {
+			throw new ConfigCreationException("Generated config creator used more than once");
+		}
+
+		try {
+			this.instance = this.createInstance();
+		} catch (RuntimeException e) {
+			throw new ConfigCreationException(e);
+		}
+
+		this.create(builder, this.instance);
+	}
+
+	public final C getInstance() {
+		if (this.instance == null) {
+			throw new RuntimeException("Config not built yet");
+		}
+
+		return this.instance;
+	}
+
+	/**
+	 * Adds a value held by a field of a config class.
+	 *
+	 * @param annotations applies the annotations of the field to the value
+	 */
+	@SuppressWarnings("unchecked")
+	protected static <T> void value(Config.SectionBuilder builder, TrackedValue<T> value, String name, Consumer<TrackedValue.Builder<T>> annotations) {
+		if (value == null) {
+			throw new ConfigFieldException("Default value for field '" + name + "' cannot be null");
+		}
+
+		TrackedValueBuilderImpl<T> delegateBuilder = new TrackedValueBuilderImpl<>(value.getDefaultValue(), name);
+		annotations.accept(delegateBuilder);
+		ReflectiveConfigCreator.addValue(builder, (TrackedValueImpl<?>) value, delegateBuilder);
+	}
+
+	/**
+	 * Adds a section held by a field of a config class.
+	 *
+	 * @param contents applies the annotations of the field to the section, and then adds the section's fields
+	 */
+	protected static void section(Config.SectionBuilder builder, ReflectiveConfig.Section section, String name, Consumer<Config.SectionBuilder> contents) {
+		if (section == null) {
+			throw new ConfigFieldException("Default value for field '" + name + "' cannot be null");
+		}
+
+		builder.section(name, contents);
+	}
+
+	protected static void comment(MetadataContainerBuilder<?> builder, String... lines) {
+		ConfigFieldAnnotationProcessors.comment(builder, lines);
+	}
+
+	protected static void serializedName(MetadataContainerBuilder<?> builder, String name) {
+		ConfigFieldAnnotationProcessors.serializedName(builder, name);
+	}
+
+	protected static void floatRange(MetadataContainerBuilder<?> builder, double min, double max) {
+		ConfigFieldAnnotationProcessors.floatRange(builder, min, max);
+	}
+
+	protected static void integerRange(MetadataContainerBuilder<?> builder, long min, long max) {
+		ConfigFieldAnnotationProcessors.integerRange(builder, min, max);
+	}
+
+	protected static void matches(MetadataContainerBuilder<?> builder, String regex) {
+		ConfigFieldAnnotationProcessors.matches(builder, regex);
+	}
+}
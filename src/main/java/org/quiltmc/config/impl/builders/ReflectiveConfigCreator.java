@@ -18,19 +18,11 @@
 
 import org.quiltmc.config.api.Config;
 import org.quiltmc.config.api.ReflectiveConfig;
-import org.quiltmc.config.api.annotations.Processor;
-import org.quiltmc.config.api.values.TrackedValue;
-import org.quiltmc.config.impl.ConfigFieldAnnotationProcessors;
 import org.quiltmc.config.api.exceptions.ConfigCreationException;
 import org.quiltmc.config.api.exceptions.ConfigFieldException;
+import org.quiltmc.config.impl.tree.ConfigTree;
 import org.quiltmc.config.impl.tree.TrackedValueImpl;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-
 public class ReflectiveConfigCreator<C> implements Config.Creator {
 	private final Class<C> creatorClass;
 	private C instance;
@@ -39,82 +31,69 @@ public ReflectiveConfigCreator(Class<C> creatorClass) {
 		this.creatorClass = creatorClass;
 	}
 
-	@SuppressWarnings({"unchecked", "rawtypes"})
-	private void createField(Config.SectionBuilder builder, Object object, Field field) throws IllegalAccessException {
-		if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
-			if (!Modifier.isFinal(field.getModifiers())) {
-				throw new ConfigFieldException("Field '" + field.getType().getName() + ':' + field.getName() + "' is not final");
-			}
-			if (!Modifier.isPublic(field.getModifiers())) {
-				field.setAccessible(true);
-			}
-			Object defaultValue = field.get(object);
+	private void createField(Config.SectionBuilder builder, Object object, ConfigClassMetadata.FieldMetadata field) throws IllegalAccessException {
+		if (!field.isFinal()) {
+			throw new ConfigFieldException("Field '" + field.getField().getType().getName() + ':' + field.getName() + "' is not final");
+		}
 
-			if (defaultValue instanceof TrackedValueImpl) {
-				TrackedValueImpl<?> value = (TrackedValueImpl<?>) defaultValue;
+		Object defaultValue = field.get(object);
 
-				TrackedValueBuilderImpl<?> delegateBuilder = new TrackedValueBuilderImpl<>(value.getDefaultValue(), field.getName());
+		if (defaultValue instanceof TrackedValueImpl) {
+			TrackedValueImpl<?> value = (TrackedValueImpl<?>) defaultValue;
 
-				for (Annotation annotation : field.getAnnotations()) {
-					ConfigFieldAnnotationProcessors.applyAnnotationProcessors(annotation, delegateBuilder);
-				}
+			TrackedValueBuilderImpl<?> delegateBuilder = new TrackedValueBuilderImpl<>(value.getDefaultValue(), field.getName());
 
-				if (field.isAnnotationPresent(Processor.class)) {
-					Processor processor = field.getAnnotation(Processor.class);
+			field.applyAnnotations(delegateBuilder);
+			field.applyProcessor(object, delegateBuilder);
 
-					try {
-						Method method = field.getDeclaringClass().getMethod(processor.value(), TrackedValue.Builder.class);
+			addValue(builder, value, delegateBuilder);
+		} else if (defaultValue instanceof ReflectiveConfig.Section) {
+			builder.section(field.getName(), b -> {
+				field.applyAnnotations(b);
 
-						method.invoke(object, delegateBuilder);
-					} catch (NoSuchMethodException e) {
-						throw new ConfigCreationException("Processor method '" + processor.value() + "' not found.");
-					} catch (InvocationTargetException | IllegalAccessException e) {
-						throw new ConfigCreationException("Exception invoking processor method '" + processor.value() + "': " + e.getLocalizedMessage());
+				for (ConfigClassMetadata.FieldMetadata f : ConfigClassMetadata.of(defaultValue.getClass()).fields()) {
+					if (!f.isSynthetic()) {
+						try {
+							this.createField(b, defaultValue, f);
+						} catch (IllegalAccessException e) {
+							throw new RuntimeException(e);
+						}
 					}
 				}
+			});
+		} else if (defaultValue == null) {
+			throw new ConfigFieldException("Default value for field '" + field.getName() + "' cannot be null");
+		} else {
+			throw new ConfigFieldException("Class '" + defaultValue.getClass().getName() + "' of field '" + field.getName() + "' " +
+					"of config class '" + field.getField().getDeclaringClass().getName() + "'is not a valid config value: it must be a TrackedValue or implement org.quiltmc.loader.api.Config.Section");
+		}
+	}
 
-				TrackedValueImpl delegate = (TrackedValueImpl<?>) delegateBuilder.build();
-				if (value.key() != null) {
-					throw new IllegalStateException("Unexpected key set in TrackedValue. Please report this!");
-				}
-				value.setKey(delegate.key());
-				if (!value.metadata.isEmpty()) {
-					throw new IllegalStateException("Unexpected metadata value set in TrackedValue. Please report this!");
-				}
-				value.metadata = delegate.metadata;
-				if (!value.constraints.isEmpty()) {
-					throw new IllegalStateException("Unexpected constraints value set in TrackedValue. Please report this!");
-				}
-				value.constraints = delegate.constraints;
-				if (!value.callbacks.isEmpty()) {
-					throw new IllegalStateException("Unexpected callback value set in TrackedValue. Please report this!");
-				}
-				value.callbacks = delegate.callbacks;
-
-				builder.field(value);
-			} else if (defaultValue instanceof ReflectiveConfig.Section) {
-				builder.section(field.getName(), b -> {
-					for (Annotation annotation : field.getAnnotations()) {
-						ConfigFieldAnnotationProcessors.applyAnnotationProcessors(annotation, b);
-					}
-
-					for (Field f : defaultValue.getClass().getDeclaredFields()) {
-						if (!f.isSynthetic()) {
-							try {
-								this.createField(b, defaultValue, f);
-							} catch (IllegalAccessException e) {
-								throw new RuntimeException(e);
-							}
-						}
-					}
-				});
-			} else if (defaultValue == null) {
-				throw new ConfigFieldException("Default value for field '" + field.getName() + "' cannot be null");
-			} else {
-				throw new ConfigFieldException("Class '" + defaultValue.getClass().getName() + "' of field '" + field.getName() + "' " +
-						"of config class '" + field.getDeclaringClass().getName() + "'is not a valid config value: it must be a TrackedValue or implement org.quiltmc.loader.api.Config.Section");
-			}
+	/**
+	 * Adds a value that was created by a config class to the given builder, taking its key and metadata from a builder
+	 * for a value with the name of its field.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	static void addValue(Config.SectionBuilder builder, TrackedValueImpl<?> value, TrackedValueBuilderImpl<?> delegateBuilder) {
+		TrackedValueImpl delegate = (TrackedValueImpl<?>) delegateBuilder.build();
+		if (value.key() != null) {
+			throw new IllegalStateException("Unexpected key set in TrackedValue. Please report this!");
+		}
+		value.setKey(delegate.key());
+		if (value.hasAnyMetadata()) {
+			throw new IllegalStateException("Unexpected metadata value set in TrackedValue. Please report this!");
+		}
+		value.copyMetadataFrom(delegate);
+		if (!value.constraints.isEmpty()) {
+			throw new IllegalStateException("Unexpected constraints value set in TrackedValue. Please report this!");
 		}
+		value.constraints = delegate.constraints;
+		if (!value.callbacks.isEmpty()) {
+			throw new IllegalStateException("Unexpected callback value set in TrackedValue. Please report this!");
+		}
+		value.callbacks = delegate.callbacks;
+
+		builder.field(value);
 	}
 
 	public void create(Config.Builder builder) {
@@ -122,28 +101,64 @@ public void create(Config.Builder builder) {
 			throw new ConfigCreationException("Reflective config creator used more than once");
 		}
 
+		ConfigClassMetadata metadata = ConfigClassMetadata.of(this.creatorClass);
+
 		try {
-			this.instance = this.creatorClass.getDeclaredConstructor().newInstance();
+			this.instance = this.creatorClass.cast(metadata.newInstance());
+		} catch (Throwable t) {
+			throw new ConfigCreationException(t);
+		}
 
-			for (Field field : this.creatorClass.getDeclaredFields()) {
+		try {
+			for (ConfigClassMetadata.FieldMetadata field : metadata.fields()) {
 				this.createField(builder, this.instance, field);
 			}
+		} catch (IllegalAccessException e) {
+			throw new ConfigCreationException(e);
+		}
 
-			if (this.creatorClass.isAnnotationPresent(Processor.class)) {
-				Processor processor = this.creatorClass.getAnnotation(Processor.class);
+		metadata.applyProcessor(this.instance, builder);
+	}
 
-				try {
-					Method method = this.creatorClass.getMethod(processor.value(), Config.Builder.class);
+	/**
+	 * Creates a new instance of the class of the given config instance, and collects the values created by it by the
+	 * index of the corresponding value of the given instance in the given tree.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <C> C instantiate(C prototype, ConfigTree tree, TrackedValueImpl<?>[] values) {
+		ConfigClassMetadata metadata = ConfigClassMetadata.of(prototype.getClass());
+		C instance;
 
-					method.invoke(this.instance, builder);
-				} catch (NoSuchMethodException e) {
-					throw new ConfigCreationException("Processor method '" + processor.value() + "' not found.");
-				} catch (InvocationTargetException | IllegalAccessException e) {
-					throw new ConfigCreationException("Exception invoking processor method '" + processor.value() + "': " + e.getLocalizedMessage());
-				}
-			}		} catch (InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
+		try {
+			instance = (C) metadata.newInstance();
+		} catch (Throwable t) {
+			throw new ConfigCreationException(t);
+		}
+
+		try {
+			collectValues(metadata, prototype, instance, tree, values);
+		} catch (IllegalAccessException e) {
 			throw new ConfigCreationException(e);
 		}
+
+		return instance;
+	}
+
+	private static void collectValues(ConfigClassMetadata metadata, Object prototype, Object instance, ConfigTree tree, TrackedValueImpl<?>[] values) throws IllegalAccessException {
+		for (ConfigClassMetadata.FieldMetadata field : metadata.fields()) {
+			Object prototypeValue = field.get(prototype);
+			Object value = field.get(instance);
+
+			if (prototypeValue instanceof TrackedValueImpl && value instanceof TrackedValueImpl) {
+				int index = tree.indexOf(((TrackedValueImpl<?>) prototypeValue).key());
+
+				if (index >= 0) {
+					values[index] = (TrackedValueImpl<?>) value;
+				}
+			} else if (prototypeValue instanceof ReflectiveConfig.Section && value != null && value.getClass() == prototypeValue.getClass()) {
+				collectValues(ConfigClassMetadata.of(value.getClass()), prototypeValue, value, tree, values);
+			}
+		}
 	}
 
 	public static <C> ReflectiveConfigCreator<C> of(Class<C> creatorClass) {
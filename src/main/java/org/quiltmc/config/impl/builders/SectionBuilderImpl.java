@@ -20,9 +20,8 @@
 import org.quiltmc.config.api.metadata.MetadataType;
 import org.quiltmc.config.api.values.TrackedValue;
 import org.quiltmc.config.api.values.ValueKey;
-import org.quiltmc.config.impl.tree.SectionTreeNode;
+import org.quiltmc.config.impl.tree.ConfigTree;
 import org.quiltmc.config.impl.tree.TrackedValueImpl;
-import org.quiltmc.config.impl.tree.Trie;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -30,13 +29,13 @@
 
 public class SectionBuilderImpl implements Config.SectionBuilder {
 	private final ValueKey key;
-	private final ConfigBuilderImpl builder;
+	private final ConfigTree.Builder tree;
 	final Map<MetadataType<?, ?>, MetadataType.Builder<?>> metadata = new LinkedHashMap<>();
 	private final Map<ValueKey, TrackedValueImpl<?>> values = new LinkedHashMap<>();
 
-	public SectionBuilderImpl(ValueKey key, ConfigBuilderImpl builder) {
+	public SectionBuilderImpl(ValueKey key, ConfigTree.Builder tree) {
 		this.key = key;
-		this.builder = builder;
+		this.tree = tree;
 	}
 
 	@Override
@@ -50,10 +49,10 @@ public Config.SectionBuilder field(TrackedValue<?> value) {
 	@Override
 	public Config.SectionBuilder section(String key, Consumer<Config.SectionBuilder> creator) {
 		ValueKey valueKey = this.key.child(key);
-		SectionBuilderImpl sectionBuilder = new SectionBuilderImpl(valueKey, this.builder);
+		SectionBuilderImpl sectionBuilder = new SectionBuilderImpl(valueKey, this.tree);
 
 		creator.accept(sectionBuilder);
-		this.builder.values.put(valueKey, sectionBuilder);
+		sectionBuilder.build();
 
 		return this;
 	}
@@ -75,11 +74,11 @@ public <M, B extends MetadataType.Builder<M>> Config.SectionBuilder metadata(Met
 		return metadata;
 	}
 
-	public void build(Trie.Node node) {
-		node.setValue(new SectionTreeNode(node, this.buildMetadata()));
+	public void build() {
+		this.tree.putSection(this.key, this.buildMetadata());
 
 		for (Map.Entry<ValueKey, TrackedValueImpl<?>> entry : this.values.entrySet()) {
-			this.builder.values.put(entry.getKey(), entry.getValue());
+			this.tree.put(entry.getKey(), entry.getValue());
 		}
 	}
 }
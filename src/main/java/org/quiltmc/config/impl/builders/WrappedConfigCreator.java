@@ -17,92 +17,62 @@
 package org.quiltmc.config.impl.builders;
 
 import org.quiltmc.config.api.Config;
-import org.quiltmc.config.api.annotations.Processor;
 import org.quiltmc.config.api.values.TrackedValue;
-import org.quiltmc.config.impl.ConfigFieldAnnotationProcessors;
 import org.quiltmc.config.api.exceptions.ConfigCreationException;
 import org.quiltmc.config.api.exceptions.ConfigFieldException;
 import org.quiltmc.config.impl.util.ConfigUtils;
 
-import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 
 @Deprecated
 public class WrappedConfigCreator<C> implements Config.Creator {
 	private final Class<C> creatorClass;
+	private final WrappedFieldBinding binding = new WrappedFieldBinding();
 	private C instance;
 
 	public WrappedConfigCreator(Class<C> creatorClass) {
 		this.creatorClass = creatorClass;
 	}
 
-	private void createField(Config.SectionBuilder builder, Object object, Field field) throws IllegalAccessException {
-		if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
-			if (!Modifier.isFinal(field.getModifiers())) {
-				throw new ConfigFieldException("Field '" + field.getType().getName() + ':' + field.getName() + "' is not final");
-			}
-			if (!Modifier.isPublic(field.getModifiers())) {
-				field.setAccessible(true);
-			}
-			Object defaultValue = field.get(object);
+	private void createField(Config.SectionBuilder builder, Object object, ConfigClassMetadata.FieldMetadata metadata) throws IllegalAccessException {
+		Field field = metadata.getField();
 
-			if (ConfigUtils.isValidValue(defaultValue)) {
-				TrackedValue<?> value = TrackedValue.create(defaultValue, field.getName(), valueBuilder -> {
-					field.setAccessible(true);
-
-					valueBuilder.callback(tracked -> {
-						try {
-							field.set(object, tracked.value());
-						} catch (IllegalAccessException e) {
-							throw new RuntimeException(e);
-						}
-					});
+		if (!metadata.isFinal()) {
+			throw new ConfigFieldException("Field '" + field.getType().getName() + ':' + field.getName() + "' is not final");
+		}
 
-					for (Annotation annotation : field.getAnnotations()) {
-						ConfigFieldAnnotationProcessors.applyAnnotationProcessors(annotation, valueBuilder);
-					}
+		Object defaultValue = metadata.get(object);
 
-					if (field.isAnnotationPresent(Processor.class)) {
-						Processor processor = field.getAnnotation(Processor.class);
+		if (ConfigUtils.isValidValue(defaultValue)) {
+			MethodHandle setter = metadata.setter();
+			TrackedValue<?> value = TrackedValue.create(defaultValue, field.getName(), valueBuilder -> {
+				valueBuilder.callback(this.binding::sync);
 
-						try {
-							Method method = field.getDeclaringClass().getMethod(processor.value(), TrackedValue.Builder.class);
+				metadata.applyAnnotations(valueBuilder);
+				metadata.applyProcessor(object, valueBuilder);
+			});
 
-							method.invoke(object, valueBuilder);
-						} catch (NoSuchMethodException e) {
-							throw new ConfigCreationException("Processor method '" + processor.value() + "' not found.");
-						} catch (InvocationTargetException | IllegalAccessException e) {
-							throw new ConfigCreationException("Exception invoking processor method '" + processor.value() + "': " + e.getLocalizedMessage());
-						}
-					}
-				});
-
-				field.set(object, value.getRealValue());
-				builder.field(value);
-			} else if (defaultValue instanceof Config.Section) {
-				builder.section(field.getName(), b -> {
-					for (Annotation annotation : field.getAnnotations()) {
-						ConfigFieldAnnotationProcessors.applyAnnotationProcessors(annotation, b);
-					}
+			this.binding.bind(object, setter, value);
+			builder.field(value);
+		} else if (defaultValue instanceof Config.Section) {
+			builder.section(field.getName(), b -> {
+				metadata.applyAnnotations(b);
 
-					for (Field f : defaultValue.getClass().getDeclaredFields()) {
-						if (!f.isSynthetic()) {
-							try {
-								this.createField(b, defaultValue, f);
-							} catch (IllegalAccessException e) {
-								throw new RuntimeException(e);
-							}
+				for (ConfigClassMetadata.FieldMetadata f : ConfigClassMetadata.of(defaultValue.getClass()).fields()) {
+					if (!f.isSynthetic()) {
+						try {
+							this.createField(b, defaultValue, f);
+						} catch (IllegalAccessException e) {
+							throw new RuntimeException(e);
 						}
 					}
-				});
-			} else if (defaultValue == null) {
-				throw new ConfigFieldException("Default value for field '" + field.getName() + "' cannot be null");
-			} else {
-				throw new ConfigFieldException("Class '" + defaultValue.getClass().getName() + "' of field '" + field.getName() + "' is not a valid config value; must be a basic type, complex type, or implement org.quiltmc.loader.api.Config.Section");
-			}
+				}
+			});
+		} else if (defaultValue == null) {
+			throw new ConfigFieldException("Default value for field '" + field.getName() + "' cannot be null");
+		} else {
+			throw new ConfigFieldException("Class '" + defaultValue.getClass().getName() + "' of field '" + field.getName() + "' is not a valid config value; must be a basic type, complex type, or implement org.quiltmc.loader.api.Config.Section");
 		}
 	}
 
@@ -111,28 +81,25 @@ public void create(Config.Builder builder) {
 			throw new ConfigCreationException("Reflective config creator used more than once");
 		}
 
+		ConfigClassMetadata metadata = ConfigClassMetadata.of(this.creatorClass);
+
 		try {
-			this.instance = this.creatorClass.newInstance();
+			this.instance = this.creatorClass.cast(metadata.newInstance());
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new ConfigCreationException(t);
+		}
 
-			for (Field field : this.creatorClass.getDeclaredFields()) {
+		try {
+			for (ConfigClassMetadata.FieldMetadata field : metadata.fields()) {
 				this.createField(builder, this.instance, field);
 			}
-
-			if (this.creatorClass.isAnnotationPresent(Processor.class)) {
-				Processor processor = this.creatorClass.getAnnotation(Processor.class);
-
-				try {
-					Method method = this.creatorClass.getMethod(processor.value(), Config.Builder.class);
-
-					method.invoke(this.instance, builder);
-				} catch (NoSuchMethodException e) {
-					throw new ConfigCreationException("Processor method '" + processor.value() + "' not found.");
-				} catch (InvocationTargetException | IllegalAccessException e) {
-					throw new ConfigCreationException("Exception invoking processor method '" + processor.value() + "': " + e.getLocalizedMessage());
-				}
-			}		} catch (InstantiationException | IllegalAccessException e) {
+		} catch (IllegalAccessException e) {
 			throw new ConfigCreationException(e);
 		}
+
+		metadata.applyProcessor(this.instance, builder);
 	}
 
 	public static <C> WrappedConfigCreator<C> of(Class<C> creatorClass) {
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.builders;
+
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.impl.ConfigImpl;
+import org.quiltmc.config.impl.tree.TrackedValueImpl;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the fields of a {@link org.quiltmc.config.api.WrappedConfig} in sync with the values created for them.
+ *
+ * <p>Rather than every value writing its own field, the first value callback after a change writes every field whose
+ * value has a newer {@linkplain TrackedValue#version() version} than the last sync. A batch of changes applied through
+ * a {@link org.quiltmc.config.api.LoadContext} is therefore written in a single pass, and the callbacks of the other
+ * changed values find nothing left to do. Fields that already hold the current value are not written.
+ */
+@SuppressWarnings("deprecation")
+final class WrappedFieldBinding {
+	private final List<Binding> bindings = new ArrayList<>();
+	private long synced;
+
+	/**
+	 * Binds a field to a value and writes the current value to it.
+	 */
+	void bind(Object owner, MethodHandle setter, TrackedValue<?> value) {
+		Binding binding = new Binding(owner, setter, value);
+
+		this.bindings.add(binding);
+		binding.write(value.getRealValue());
+	}
+
+	/**
+	 * Writes all fields whose values changed since the last sync.
+	 *
+	 * @param changed the value whose callback triggered the sync
+	 */
+	synchronized void sync(TrackedValue<?> changed) {
+		ConfigImpl config = ((TrackedValueImpl<?>) changed).getConfig();
+		long version = config == null ? changed.version() : config.version();
+
+		if (version == this.synced) {
+			return;
+		}
+
+		for (Binding binding : this.bindings) {
+			if (binding.value.version() > this.synced) {
+				binding.write(binding.value.value());
+			}
+		}
+
+		this.synced = version;
+	}
+
+	private static final class Binding {
+		private final Object owner;
+		private final MethodHandle setter;
+		private final TrackedValue<?> value;
+		private Object written;
+
+		private Binding(Object owner, MethodHandle setter, TrackedValue<?> value) {
+			this.owner = owner;
+			this.setter = setter;
+			this.value = value;
+		}
+
+		private void write(Object value) {
+			if (value == this.written) {
+				return;
+			}
+
+			try {
+				this.setter.invokeExact(this.owner, value);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new RuntimeException(t);
+			}
+
+			this.written = value;
+		}
+	}
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.tree;
+
+import org.quiltmc.config.api.metadata.MetadataType;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.api.values.ValueKey;
+import org.quiltmc.config.api.values.ValueTreeNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The values and sections of a config, stored by the index of their node in a {@link Trie}.
+ *
+ * <p>Trees {@linkplain #instantiate created} from another tree share its trie, and their nodes share their metadata,
+ * constraints and codecs with the nodes of the original tree, so that each of them only holds its own values.
+ *
+ * <p>A tree is never changed. Values and sections are added to or removed from a config by {@linkplain #edit editing}
+ * a copy of its tree, which then replaces the original, so that iterations in progress are never affected. Each tree
+ * has its own view of every section, which iterates over the children in that tree only; views of the same section
+ * share its metadata and version.
+ */
+public final class ConfigTree {
+	private final Trie trie;
+	private final ValueTreeNode[] nodes;
+
+	private ConfigTree(Trie trie, ValueTreeNode[] nodes) {
+		this.trie = trie;
+		this.nodes = nodes;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return a builder holding the nodes of this tree, which builds a tree replacing this one
+	 */
+	public Builder edit() {
+		Builder builder = new Builder();
+
+		for (Trie.Node node : this.trie.getRoot()) {
+			builder.copy(this, builder.trie.getRoot(), node);
+		}
+
+		return builder;
+	}
+
+	/**
+	 * @return the number of indices used by values and sections of this tree
+	 */
+	public int size() {
+		return this.nodes.length;
+	}
+
+	public ValueTreeNode get(Trie.Node node) {
+		return this.nodes[node.getIndex()];
+	}
+
+	/**
+	 * @return the node with the given key, or {@code null} if there is none
+	 */
+	public ValueTreeNode getNode(Iterable<String> key) {
+		Trie.Node node = this.trie.find(key);
+
+		return node == null ? null : this.nodes[node.getIndex()];
+	}
+
+	public TrackedValue<?> getValue(Iterable<String> key) {
+		return (TrackedValue<?>) this.getNode(key);
+	}
+
+	/**
+	 * @return the top level nodes of this tree
+	 */
+	public Iterable<ValueTreeNode> nodes() {
+		return this.children(this.trie.getRoot());
+	}
+
+	/**
+	 * @return the children of the section with the given key, or nothing if there is no such section
+	 */
+	Iterable<ValueTreeNode> children(ValueKey key) {
+		Trie.Node node = this.trie.find(key);
+
+		return node == null ? Collections.emptyList() : this.children(node);
+	}
+
+	private Iterable<ValueTreeNode> children(Trie.Node node) {
+		return () -> new Iterator<ValueTreeNode>() {
+			private final Iterator<Trie.Node> itr = node.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return this.itr.hasNext();
+			}
+
+			@Override
+			public ValueTreeNode next() {
+				return ConfigTree.this.get(this.itr.next());
+			}
+		};
+	}
+
+	/**
+	 * @return all values of this tree, depth first
+	 */
+	public Iterable<TrackedValue<?>> values() {
+		return () -> new Iterator<TrackedValue<?>>() {
+			private final Iterator<Trie.Node> itr = ConfigTree.this.trie.leaves().iterator();
+			private TrackedValue<?> next;
+
+			@Override
+			public boolean hasNext() {
+				// Skip empty sections
+				while (this.next == null && this.itr.hasNext()) {
+					ValueTreeNode node = ConfigTree.this.get(this.itr.next());
+
+					if (node instanceof TrackedValue) {
+						this.next = (TrackedValue<?>) node;
+					}
+				}
+
+				return this.next != null;
+			}
+
+			@Override
+			public TrackedValue<?> next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				TrackedValue<?> value = this.next;
+
+				this.next = null;
+
+				return value;
+			}
+		};
+	}
+
+	/**
+	 * @return the sections containing the node with the given key, outermost first
+	 */
+	public SectionTreeNode[] getSections(Iterable<String> key) {
+		List<SectionTreeNode> sections = new ArrayList<>();
+		Trie.Node node = this.trie.getRoot();
+
+		for (String k : key) {
+			if (node.getIndex() >= 0 && this.get(node) instanceof SectionTreeNode) {
+				sections.add((SectionTreeNode) this.get(node));
+			}
+
+			node = node.getChild(k);
+
+			if (node == null) {
+				break;
+			}
+		}
+
+		return sections.toArray(new SectionTreeNode[0]);
+	}
+
+	/**
+	 * Creates a tree with the same structure as this one, without copying any keys, metadata, constraints or codecs.
+	 *
+	 * @param values values created elsewhere to use for some of the nodes, by index, which are given the key and
+	 *               metadata of the corresponding value in this tree; other values are created from their default value
+	 */
+	public ConfigTree instantiate(TrackedValueImpl<?>[] values) {
+		ValueTreeNode[] nodes = new ValueTreeNode[this.nodes.length];
+		ConfigTree tree = new ConfigTree(this.trie, nodes);
+
+		for (int i = 0; i < nodes.length; i++) {
+			ValueTreeNode node = this.nodes[i];
+
+			if (node instanceof TrackedValueImpl) {
+				TrackedValueImpl<?> prototype = (TrackedValueImpl<?>) node;
+
+				nodes[i] = values[i] != null ? values[i].adopt(prototype) : prototype.instantiate();
+			} else if (node != null) {
+				nodes[i] = new SectionTreeNode(tree, (SectionTreeNode) node);
+			}
+		}
+
+		return tree;
+	}
+
+	/**
+	 * @return the index of the node with the given key, or {@code -1} if there is none
+	 */
+	public int indexOf(ValueKey key) {
+		Trie.Node node = this.trie.find(key);
+
+		return node == null ? -1 : node.getIndex();
+	}
+
+	/**
+	 * Collects the values and sections of a config while it is being built or {@linkplain #edit edited}.
+	 */
+	public static final class Builder {
+		private final Trie trie = new Trie();
+		private final List<Object> entries = new ArrayList<>();
+
+		private Builder() {
+		}
+
+		private void copy(ConfigTree tree, Trie.Node parent, Trie.Node node) {
+			Trie.Node copy = this.trie.copy(parent, node);
+
+			this.entries.add(tree.get(node));
+
+			for (Trie.Node child : node) {
+				this.copy(tree, copy, child);
+			}
+		}
+
+		public void put(Iterable<String> key, TrackedValueImpl<?> value) {
+			Trie.Node node = this.trie.getOrCreate(key);
+
+			if (this.entry(node) != null || node.hasChildren()) {
+				throw new UnsupportedOperationException("Cannot put node '" + value.key() + "': Node already exists");
+			}
+
+			this.entries.set(node.getIndex(), value);
+		}
+
+		/**
+		 * Adds a section, or adds the given metadata to the section with the same key, replacing any of the same type.
+		 * Sections that already exist keep their version.
+		 */
+		@SuppressWarnings("unchecked")
+		public void putSection(Iterable<String> key, Map<MetadataType<?, ?>, Object> metadata) {
+			Trie.Node node = this.trie.getOrCreate(key);
+			Object entry = this.entry(node);
+
+			if (entry instanceof SectionTreeNode) {
+				if (!metadata.isEmpty()) {
+					this.entries.set(node.getIndex(), new MergedSection((SectionTreeNode) entry, metadata));
+				}
+			} else if (entry instanceof MergedSection) {
+				((MergedSection) entry).metadata.putAll(metadata);
+			} else if (entry instanceof Map) {
+				((Map<MetadataType<?, ?>, Object>) entry).putAll(metadata);
+			} else {
+				this.entries.set(node.getIndex(), new LinkedHashMap<>(metadata));
+			}
+		}
+
+		/**
+		 * Removes the node with the given key and all of its children.
+		 *
+		 * @return whether there was such a node
+		 */
+		public boolean remove(Iterable<String> key) {
+			Trie.Node node = this.trie.find(key);
+
+			if (node == null) {
+				return false;
+			}
+
+			this.trie.remove(node);
+
+			return true;
+		}
+
+		private Object entry(Trie.Node node) {
+			while (this.entries.size() < this.trie.size()) {
+				this.entries.add(null);
+			}
+
+			return this.entries.get(node.getIndex());
+		}
+
+		@SuppressWarnings("unchecked")
+		public ConfigTree build() {
+			ValueTreeNode[] nodes = new ValueTreeNode[this.trie.size()];
+			ConfigTree tree = new ConfigTree(this.trie, nodes);
+
+			for (int i = 0; i < nodes.length; i++) {
+				Trie.Node node = this.trie.get(i);
+				Object entry = i < this.entries.size() ? this.entries.get(i) : null;
+
+				if (node == null) {
+					continue;
+				}
+
+				if (entry instanceof TrackedValueImpl) {
+					nodes[i] = (TrackedValueImpl<?>) entry;
+				} else if (entry instanceof SectionTreeNode) {
+					// Sections of the edited tree keep iterating over that tree, so that a walk never mixes two trees
+					nodes[i] = ((SectionTreeNode) entry).view(tree);
+				} else if (entry instanceof MergedSection) {
+					nodes[i] = ((MergedSection) entry).section.view(tree, ((MergedSection) entry).metadata);
+				} else {
+					// Parents of values that were added without a section of their own get one without metadata
+					nodes[i] = new SectionTreeNode(tree, node.getKey(), entry == null ? Collections.emptyMap() : (Map<MetadataType<?, ?>, Object>) entry);
+				}
+			}
+
+			return tree;
+		}
+
+		/**
+		 * A section of the edited tree that was given more metadata.
+		 */
+		private static final class MergedSection {
+			private final SectionTreeNode section;
+			private final Map<MetadataType<?, ?>, Object> metadata;
+
+			private MergedSection(SectionTreeNode section, Map<MetadataType<?, ?>, Object> metadata) {
+				this.section = section;
+				this.metadata = new LinkedHashMap<>(metadata);
+			}
+		}
+	}
+}
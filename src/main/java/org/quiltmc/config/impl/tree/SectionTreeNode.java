@@ -23,36 +23,76 @@
 import org.quiltmc.config.impl.AbstractMetadataContainer;
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class SectionTreeNode extends AbstractMetadataContainer implements ValueTreeNode.Section {
-	private final Trie.Node node;
+	private final ValueKey key;
+	private final AtomicLong version;
+	private final ConfigTree tree;
 
-	public SectionTreeNode(Trie.Node node, Map<MetadataType<?, ?>, Object> metadata) {
+	public SectionTreeNode(ConfigTree tree, ValueKey key, Map<MetadataType<?, ?>, Object> metadata) {
+		this(tree, key, metadata, new AtomicLong());
+	}
+
+	private SectionTreeNode(ConfigTree tree, ValueKey key, Map<MetadataType<?, ?>, Object> metadata, AtomicLong version) {
 		super(metadata);
-		this.node = node;
+		this.tree = tree;
+		this.key = key;
+		this.version = version;
+	}
+
+	/**
+	 * Creates a section of another tree with the same structure, which shares the metadata of the given section.
+	 */
+	SectionTreeNode(ConfigTree tree, SectionTreeNode prototype) {
+		this(tree, prototype, new AtomicLong());
+	}
+
+	private SectionTreeNode(ConfigTree tree, SectionTreeNode other, AtomicLong version) {
+		super(other);
+		this.tree = tree;
+		this.key = other.key;
+		this.version = version;
+	}
+
+	/**
+	 * Creates this section as seen by a tree that replaces the one it is in. Both share their metadata and version, but
+	 * each iterates over the children in its own tree.
+	 */
+	SectionTreeNode view(ConfigTree tree) {
+		return new SectionTreeNode(tree, this, this.version);
+	}
+
+	/**
+	 * Like {@link #view}, but with the given metadata added to that of this section, replacing any of the same type.
+	 * The metadata of this section itself, as seen by the tree it is in, is left as is.
+	 */
+	SectionTreeNode view(ConfigTree tree, Map<MetadataType<?, ?>, Object> metadata) {
+		Map<MetadataType<?, ?>, Object> merged = new LinkedHashMap<>(this.metadata());
+		merged.putAll(metadata);
+
+		return new SectionTreeNode(tree, this.key, merged, this.version);
 	}
 
 	@Override
 	public ValueKey key() {
-		return this.node.getKey();
+		return this.key;
+	}
+
+	@Override
+	public long version() {
+		return this.version.get();
+	}
+
+	public void updateVersion(long version) {
+		this.version.accumulateAndGet(version, Math::max);
 	}
 
 	@NotNull
 	@Override
 	public Iterator<ValueTreeNode> iterator() {
-		return new Iterator<ValueTreeNode>() {
-			private final Iterator<Trie.Node> itr = SectionTreeNode.this.node.iterator();
-
-			@Override
-			public boolean hasNext() {
-				return itr.hasNext();
-			}
-
-			@Override
-			public ValueTreeNode next() {
-				return itr.next().getValue();
-			}
-		};
+		return this.tree.children(this.key).iterator();
 	}
 }
@@ -26,14 +26,23 @@
 import org.quiltmc.config.impl.AbstractMetadataContainer;
 import org.quiltmc.config.impl.ConfigImpl;
 import org.quiltmc.config.impl.util.ImmutableIterable;
+import org.quiltmc.config.impl.util.ValueCodec;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 public final class TrackedValueImpl<T> extends AbstractMetadataContainer implements TrackedValue<T> {
 	public List<UpdateCallback<T>> callbacks;
+	// Whether the callbacks are a snapshot shared with other values, which must be copied before adding to it
+	private boolean sharedCallbacks;
+	private List<UpdateCallback<T>> callbackSnapshot;
 	public List<Constraint<T>> constraints;
 	private final T defaultValue;
 
@@ -44,6 +53,14 @@
 	private boolean isBeingOverridden = false;
 	private T valueOverride;
 
+	private ValueCodec codec;
+	private SectionTreeNode[] sections = new SectionTreeNode[0];
+	private volatile long version;
+
+	private volatile MutableCallSite constantSite;
+	private MethodHandle constantHandle;
+	private Object linkedConstant;
+
 	@SuppressWarnings("unchecked")
 	public TrackedValueImpl(ValueKey key, T defaultValue, Map<MetadataType<?, ?>, Object> metadata, List<UpdateCallback<T>> callbacks, List<Constraint<T>> constraints) {
 		super(metadata);
@@ -63,12 +80,101 @@ public TrackedValueImpl(ValueKey key, T defaultValue, Map<MetadataType<?, ?>, Ob
 		}
 	}
 
+	/**
+	 * Creates a value of another config with the same structure, sharing the key, default value, metadata, constraints
+	 * and codec of the given value.
+	 */
+	@SuppressWarnings("unchecked")
+	private TrackedValueImpl(TrackedValueImpl<T> prototype) {
+		super(prototype);
+		this.key = prototype.key;
+		this.defaultValue = prototype.defaultValue;
+		this.callbacks = prototype.getCallbackSnapshot();
+		this.sharedCallbacks = true;
+		this.constraints = prototype.constraints;
+		this.codec = prototype.getCodec();
+
+		if (this.defaultValue instanceof ComplexConfigValue) {
+			ComplexConfigValue value = ((ComplexConfigValue) this.defaultValue).copy();
+			value.setValue(this);
+			this.value = (T) value;
+		} else {
+			this.value = this.defaultValue;
+		}
+	}
+
+	/**
+	 * Takes a snapshot of the callbacks of this value, to be given to all values {@linkplain #instantiate()
+	 * instantiated} from or {@linkplain #adopt adopting} it. Callbacks registered on this value afterwards are not
+	 * added to the snapshot.
+	 */
+	public void snapshotCallbacks() {
+		this.callbackSnapshot = Collections.unmodifiableList(new ArrayList<>(this.callbacks));
+	}
+
+	private List<UpdateCallback<T>> getCallbackSnapshot() {
+		return this.callbackSnapshot != null ? this.callbackSnapshot : Collections.unmodifiableList(new ArrayList<>(this.callbacks));
+	}
+
+	/**
+	 * @return a new value with the key, metadata and constraints of this one, holding its default value
+	 */
+	TrackedValueImpl<T> instantiate() {
+		return new TrackedValueImpl<>(this);
+	}
+
+	/**
+	 * Gives this value, which was created by a config class, the key, metadata, constraints and callbacks of the
+	 * corresponding value of a config that was created from the same class.
+	 */
+	@SuppressWarnings("unchecked")
+	TrackedValueImpl<T> adopt(TrackedValueImpl<?> prototype) {
+		if (this.key != null) {
+			throw new IllegalStateException("Unexpected key set in TrackedValue. Please report this!");
+		}
+
+		this.key = prototype.key;
+		this.copyMetadataFrom(prototype);
+		this.constraints = (List<Constraint<T>>) (List<?>) prototype.constraints;
+		this.callbacks.addAll((List<UpdateCallback<T>>) (List<?>) prototype.getCallbackSnapshot());
+		this.assertValue(this.defaultValue);
+
+		return this;
+	}
+
 	public void setConfig(ConfigImpl config) {
+		this.setConfig(config, config.getTree());
+	}
+
+	/**
+	 * Adds this value to a config, in which it is held by the given tree.
+	 */
+	public void setConfig(ConfigImpl config, ConfigTree tree) {
 		if (this.config != null) {
 			throw new TrackedValueException("TrackedValue '" + this.key + "' cannot be assigned to multiple configs");
 		}
 
 		this.config = config;
+		this.sections = tree.getSections(this.key);
+
+		if (this.codec == null) {
+			this.codec = ValueCodec.of(this.defaultValue);
+		}
+	}
+
+	/**
+	 * @return the read and write plan for this value's type, compiled when this value is added to a config
+	 */
+	public ValueCodec getCodec() {
+		if (this.codec == null) {
+			this.codec = ValueCodec.of(this.defaultValue);
+		}
+
+		return this.codec;
+	}
+
+	public ConfigImpl getConfig() {
+		return this.config;
 	}
 
 	public TrackedValueImpl<T> setKey(ValueKey key) {
@@ -82,8 +188,16 @@ public ValueKey key() {
 		return this.key;
 	}
 
+	private void ensureLoaded() {
+		if (this.config != null) {
+			this.config.ensureLoaded();
+		}
+	}
+
 	@Override
 	public T value() {
+		this.ensureLoaded();
+
 		return this.isBeingOverridden ? this.valueOverride : this.value;
 	}
 
@@ -94,6 +208,8 @@ public boolean isBeingOverridden() {
 
 	@Override
 	public T getRealValue() {
+		this.ensureLoaded();
+
 		return this.value;
 	}
 
@@ -113,6 +229,7 @@ private void assertValue(T value) {
 
 	@Override
 	public T setValue(@NotNull T newValue, boolean serialize) {
+		this.ensureLoaded();
 		this.assertValue(newValue);
 
 		if (newValue instanceof ComplexConfigValue) {
@@ -121,9 +238,11 @@ public T setValue(@NotNull T newValue, boolean serialize) {
 
 		T oldValue = this.value;
 		this.value = newValue;
+		this.updateModified();
+		this.updateVersion();
 
 		if (serialize) {
-			this.config.save();
+			this.config.save(this);
 		}
 
 		if (!this.isBeingOverridden()) {
@@ -133,21 +252,147 @@ public T setValue(@NotNull T newValue, boolean serialize) {
 		return oldValue;
 	}
 
+	/**
+	 * Sets the real value without validating it, saving, or invoking any callbacks. Used by {@link org.quiltmc.config.impl.LoadContextImpl}.
+	 */
+	public T setValueQuietly(T newValue) {
+		if (newValue instanceof ComplexConfigValue) {
+			((ComplexConfigValue) newValue).setValue(this);
+		}
+
+		T oldValue = this.value;
+		this.value = newValue;
+		this.updateModified();
+		this.updateVersion();
+
+		return oldValue;
+	}
+
+	private void updateModified() {
+		if (this.config != null) {
+			this.config.updateModified(this, !Objects.equals(this.value, this.defaultValue));
+		}
+	}
+
+	@Override
+	public long version() {
+		return this.version;
+	}
+
+	/**
+	 * Stamps this value, its sections, and its config with a new version.
+	 */
+	private void updateVersion() {
+		long version = ConfigImpl.nextVersion();
+		this.version = version;
+
+		for (SectionTreeNode section : this.sections) {
+			section.updateVersion(version);
+		}
+
+		if (this.config != null) {
+			this.config.updateVersion(version);
+		}
+
+		this.relinkConstant();
+	}
+
+	@Override
+	public MethodHandle constantHandle() {
+		this.ensureLoaded();
+
+		if (this.constantSite == null) {
+			synchronized (this) {
+				if (this.constantSite == null) {
+					Object value = this.value();
+					MutableCallSite site = new MutableCallSite(MethodHandles.constant(this.getConstantType(), value));
+
+					this.linkedConstant = value;
+					this.constantHandle = site.dynamicInvoker();
+					this.constantSite = site;
+				}
+			}
+
+			// Catch up with any change made while the call site was being created
+			this.relinkConstant();
+		}
+
+		return this.constantHandle;
+	}
+
+	private void relinkConstant() {
+		MutableCallSite site = this.constantSite;
+
+		if (site == null) {
+			return;
+		}
+
+		synchronized (site) {
+			Object value = this.isBeingOverridden ? this.valueOverride : this.value;
+
+			// Complex values may be mutable, so an equal copy is still a different value to link
+			boolean changed = value instanceof ComplexConfigValue ? value != this.linkedConstant : !Objects.equals(value, this.linkedConstant);
+
+			if (changed) {
+				this.linkedConstant = value;
+				site.setTarget(MethodHandles.constant(site.type().returnType(), value));
+				MutableCallSite.syncAll(new MutableCallSite[] { site });
+			}
+		}
+	}
+
+	private Class<?> getConstantType() {
+		switch (this.getCodec().kind()) {
+			case INTEGER:
+				return int.class;
+			case LONG:
+				return long.class;
+			case FLOAT:
+				return float.class;
+			case DOUBLE:
+				return double.class;
+			case BOOLEAN:
+				return boolean.class;
+			case STRING:
+				return String.class;
+			case ENUM:
+				return ((Enum<?>) this.defaultValue).getDeclaringClass();
+			default:
+				return Object.class;
+		}
+	}
+
 	@Override
 	public void setOverride(T newValue) {
+		this.ensureLoaded();
 		this.assertValue(newValue);
 
 		this.isBeingOverridden = true;
 		this.valueOverride = newValue;
+		this.updateVersion();
 
 		this.invokeCallbacks();
 	}
 
+	/**
+	 * Overrides the value without validating it or invoking any callbacks. Used by {@link org.quiltmc.config.impl.LoadContextImpl}.
+	 */
+	public void setOverrideQuietly(T newValue) {
+		this.isBeingOverridden = true;
+		this.valueOverride = newValue;
+		this.updateVersion();
+	}
+
 	@Override
 	public void removeOverride() {
+		boolean wasOverridden = this.isBeingOverridden;
 		this.isBeingOverridden = false;
 		this.valueOverride = null;
 
+		if (wasOverridden) {
+			this.updateVersion();
+		}
+
 		this.invokeCallbacks();
 	}
 
@@ -158,6 +403,11 @@ public T getDefaultValue() {
 
 	@Override
 	public void registerCallback(UpdateCallback<T> callback) {
+		if (this.sharedCallbacks) {
+			this.callbacks = new ArrayList<>(this.callbacks);
+			this.sharedCallbacks = false;
+		}
+
 		this.callbacks.add(callback);
 	}
 
@@ -198,7 +448,13 @@ public Optional<Iterable<String>> checkForFailingConstraints(T value) {
 	@Override
 	public void invokeCallbacks() {
 		this.config.invokeCallbacks();
+		this.invokeValueCallbacks();
+	}
 
+	/**
+	 * Invokes only the callbacks registered on this value, and not those of its config.
+	 */
+	public void invokeValueCallbacks() {
 		for (UpdateCallback<T> callback : this.callbacks) {
 			callback.onUpdate(this);
 		}
@@ -206,7 +462,9 @@ public void invokeCallbacks() {
 
 	@Override
 	public void serializeAndInvokeCallbacks() {
-		this.config.save();
+		this.updateModified();
+		this.updateVersion();
+		this.config.save(this);
 
 		this.config.invokeCallbacks();
 
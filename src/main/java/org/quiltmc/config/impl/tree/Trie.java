@@ -17,10 +17,7 @@
 package org.quiltmc.config.impl.tree;
 
 import org.jetbrains.annotations.NotNull;
-import org.quiltmc.config.api.values.TrackedValue;
 import org.quiltmc.config.api.values.ValueKey;
-import org.quiltmc.config.api.values.ValueTreeNode;
-import org.quiltmc.config.impl.builders.SectionBuilderImpl;
 import org.quiltmc.config.impl.values.ValueKeyImpl;
 
 import java.util.*;
@@ -28,93 +25,100 @@
 /**
  * This is an implementation of the <a href="https://en.wikipedia.org/wiki/Trie">trie</a> data structure for efficient
  * key prefix lookups
+ *
+ * <p>A trie only holds the keys of a config. Every node except the root is numbered in order of creation, and the
+ * values and sections of a config are stored in a {@link ConfigTree} by the index of their node, so that one trie can
+ * be shared by any number of configs with the same structure. A trie is no longer changed once it is shared: changes to
+ * the structure of a config are made to a copy.
  */
 public final class Trie {
-	private final Node root = new Node(null, null, null);
-
-	private int modCount;
+	private final Node root = new Node(null, null, -1);
+	private final List<Node> nodes = new ArrayList<>();
 
-	public Iterable<ValueTreeNode> leaves() {
-		return LeafItr::new;
+	public Node getRoot() {
+		return this.root;
 	}
 
-	public Iterable<ValueTreeNode> nodes() {
-		return new Iterable<ValueTreeNode>() {
-			@NotNull
-			@Override
-			public Iterator<ValueTreeNode> iterator() {
-				return new Iterator<ValueTreeNode>() {
-					private final Iterator<Node> itr = Trie.this.root.iterator();
-
-					@Override
-					public boolean hasNext() {
-						return this.itr.hasNext();
-					}
-
-					@Override
-					public ValueTreeNode next() {
-						return this.itr.next().getValue();
-					}
-				};
-			}
-		};
+	/**
+	 * @return the number of indices used by nodes of this trie, including those of removed nodes
+	 */
+	public int size() {
+		return this.nodes.size();
 	}
 
-	public ValueTreeNode put(Iterable<String> key, ValueTreeNode value) {
-		int modifiedCount = this.modCount;
+	/**
+	 * @return the node with the given index, or {@code null} if it was removed
+	 */
+	public Node get(int index) {
+		return this.nodes.get(index);
+	}
 
+	/**
+	 * @return the node with the given key, creating it and any missing parents first
+	 */
+	public Node getOrCreate(Iterable<String> key) {
 		Node node = this.root;
 
-		for (String keyComponent : key) {
-			if (node.value == null) {
-				node.setValue(new SectionTreeNode(node, new LinkedHashMap<>(0)));
-			}
-
-			node = node.getOrCreateChild(keyComponent);
-		}
-
-		node.setValue(value);
-
-		// Only increment the number of modifications if a new node wasn't created by the call to getOrCreateNChild
-		if (modifiedCount == this.modCount) {
-			++this.modCount;
+		for (String k : key) {
+			node = node.getOrCreateChild(k);
 		}
 
-		return null;
+		return node;
 	}
 
-	public void put(Iterable<String> key, SectionBuilderImpl sectionBuilder) {
-		int modifiedCount = this.modCount;
+	/**
+	 * @return the node with the given key, or {@code null} if there is none
+	 */
+	public Node find(Iterable<String> key) {
 		Node node = this.root;
 
-		for (String keyComponent : key) {
-			node = node.getOrCreateChild(keyComponent);
+		for (String k : key) {
+			node = node.children.get(k);
+
+			if (node == null) {
+				return null;
+			}
 		}
 
-		sectionBuilder.build(node);
+		return node;
+	}
+
+	/**
+	 * Adds a node with the key of a node of another trie to the given node of this trie, without its children.
+	 */
+	public Node copy(Node parent, Node node) {
+		Node copy = new Node(parent, node.key, this.nodes.size());
 
-		// Only increment the number of modifications if a new node wasn't created by the call to getOrCreateChild
-		if (modifiedCount == this.modCount) {
-			++this.modCount;
-		}
+		parent.children.put(node.key.getLastComponent(), copy);
+		this.nodes.add(copy);
+
+		return copy;
 	}
 
-	public TrackedValue<?> get(Iterable<String> key) {
-		return (TrackedValue<?>) this.getNode(key);
+	/**
+	 * Removes the given node and all of its children. Their indices are not reused.
+	 */
+	public void remove(Node node) {
+		node.parent.children.remove(node.key.getLastComponent());
+		this.clear(node);
 	}
 
-	public ValueTreeNode getNode(Iterable<String> key) {
-		Node node = this.root;
+	private void clear(Node node) {
+		this.nodes.set(node.index, null);
 
-		for (String k : key) {
-			node = node.getOrCreateChild(k);
+		for (Node child : node) {
+			this.clear(child);
 		}
+	}
 
-		return node.getValue();
+	/**
+	 * @return all nodes without children, depth first
+	 */
+	public Iterable<Node> leaves() {
+		return LeafItr::new;
 	}
 
-	private class LeafItr implements Iterator<ValueTreeNode> {
-		private final int modCount = Trie.this.modCount;
+	private class LeafItr implements Iterator<Node> {
 		private final Deque<Iterator<Node>> iterators = new ArrayDeque<>();
 
 		private LeafItr() {
@@ -123,8 +127,6 @@ private LeafItr() {
 
 		@Override
 		public boolean hasNext() {
-			this.checkForComodification();
-
 			while (!this.iterators.isEmpty() && !this.iterators.peek().hasNext()) {
 				this.iterators.pop();
 			}
@@ -133,13 +135,11 @@ public boolean hasNext() {
 		}
 
 		@Override
-		public ValueTreeNode next() {
+		public Node next() {
 			if (!this.hasNext()) {
 				throw new NoSuchElementException();
 			}
 
-			this.checkForComodification();
-
 			Iterator<Node> itr = this.iterators.removeFirst();
 
 			Node n = itr.next();
@@ -155,32 +155,20 @@ public ValueTreeNode next() {
 				this.iterators.addFirst(itr);
 			}
 
-			this.checkForComodification();
-
-			return n.getValue();
-		}
-
-		private void checkForComodification() {
-			if (this.modCount != Trie.this.modCount) {
-				throw new ConcurrentModificationException();
-			}
+			return n;
 		}
 	}
 
-	public class Node implements Iterable<Node> {
+	public final class Node implements Iterable<Node> {
 		private final Node parent;
 		private final ValueKey key;
+		private final int index;
 		private final Map<String, Node> children = new LinkedHashMap<>();
-		private ValueTreeNode value;
 
-		private Node(Node parent, ValueKey key, ValueTreeNode value) {
+		private Node(Node parent, ValueKey key, int index) {
 			this.parent = parent;
 			this.key = key;
-			this.value = value;
-		}
-
-		private Node(Node parent, ValueKey key) {
-			this(parent, key, null);
+			this.index = index;
 		}
 
 		public boolean hasChildren() {
@@ -195,25 +183,35 @@ public Node getParent() {
 			return this.parent;
 		}
 
+		/**
+		 * @return the index of this node in its trie, or {@code -1} for the root
+		 */
+		public int getIndex() {
+			return this.index;
+		}
+
+		/**
+		 * @return the child of this node with the given key component, or {@code null} if there is none
+		 */
+		public Node getChild(String key) {
+			return this.children.get(key);
+		}
+
 		private Node getOrCreateChild(String key) {
-			if (this.children.containsKey(key)) {
-				return this.children.get(key);
-			} else {
-				++Trie.this.modCount;
+			Node child = this.children.get(key);
 
-				Node child = new Node(this, this.key == null
+			if (child == null) {
+				child = new Node(this, this.key == null
 						? new ValueKeyImpl(key)
-						: this.key.child(key)
+						: this.key.child(key),
+						Trie.this.nodes.size()
 				);
 
 				this.children.put(key, child);
-
-				return child;
+				Trie.this.nodes.add(child);
 			}
-		}
 
-		public ValueTreeNode getValue() {
-			return this.value;
+			return child;
 		}
 
 		@NotNull
@@ -221,13 +219,5 @@ public ValueTreeNode getValue() {
 		public Iterator<Node> iterator() {
 			return this.children.values().iterator();
 		}
-
-		public void setValue(ValueTreeNode value) {
-			if (this.value != null && !(value instanceof SectionTreeNode)) {
-				throw new UnsupportedOperationException("Cannot put node '" + value.key() + "': Node already exists");
-			}
-
-			this.value = value;
-		}
 	}
 }
@@ -25,24 +25,40 @@
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * The registry of all configs, which may be read from any thread while configs are still being registered.
+ *
+ * <p>Configs are held twice: sorted by family and id in skip lists for deterministic, weakly consistent iteration, and
+ * in hash maps for lookups. Registration and removal are serialized, while reads never lock.
+ */
 public final class ConfigsImpl {
-	private static final Map<String, Map<String, Config>> CONFIGS = new TreeMap<>();
+	private static final Map<String, Map<String, Config>> CONFIGS = new ConcurrentSkipListMap<>();
+	private static final Map<String, Map<String, Config>> INDEX = new ConcurrentHashMap<>();
 
 	private ConfigsImpl() {}
 
-	public static void put(String familyId, Config config) {
-		if (CONFIGS.containsKey(familyId) && CONFIGS.get(familyId).containsKey(config.id())) {
+	public static synchronized void put(String familyId, Config config) {
+		Map<String, Config> family = INDEX.computeIfAbsent(familyId, id -> new ConcurrentHashMap<>());
+
+		if (family.containsKey(config.id())) {
 			throw new ConfigCreationException("Config '" + familyId + ':' + config.id() + "' already exists");
 		}
 
-		CONFIGS.computeIfAbsent(familyId, id -> new TreeMap<>()).put(config.id(), config);
+		CONFIGS.computeIfAbsent(familyId, id -> new ConcurrentSkipListMap<>()).put(config.id(), config);
+		family.put(config.id(), config);
 	}
 
 	@TestOnly
-	public static void remove(Config config) {
-		CONFIGS.get(config.family()).remove(config.id());
+	public static synchronized void remove(Config config) {
+		Map<String, Config> family = INDEX.get(config.family());
+
+		if (family != null && family.remove(config.id()) != null) {
+			CONFIGS.get(config.family()).remove(config.id());
+		}
 	}
 
 	public static Iterable<Config> getAll() {
@@ -54,7 +70,9 @@ public static Iterable<Config> getConfigs(String familyId) {
 	}
 
 	public static @Nullable Config getConfig(String familyId, String configId) {
-		return CONFIGS.getOrDefault(familyId, Collections.emptyMap()).get(configId);
+		Map<String, Config> family = INDEX.get(familyId);
+
+		return family == null ? null : family.get(configId);
 	}
 
 	private static @NotNull Iterator<Config> itr() {
@@ -63,25 +81,22 @@ public static Iterable<Config> getConfigs(String familyId) {
 
 	private static class AllConfigsIterator implements Iterator<Config> {
 		final Iterator<Map<String, Config>> itr1 = CONFIGS.values().iterator();
-		Iterator<Config> itr2;
+		Iterator<Config> itr2 = Collections.emptyIterator();
 
-		private AllConfigsIterator() {
-			if (this.itr1.hasNext()) {
+		@Override
+		public boolean hasNext() {
+			// Families can be empty once their configs are removed
+			while (!this.itr2.hasNext() && this.itr1.hasNext()) {
 				this.itr2 = this.itr1.next().values().iterator();
-			} else {
-				this.itr2 = Collections.emptyIterator();
 			}
-		}
 
-		@Override
-		public boolean hasNext() {
-			return this.itr1.hasNext() || this.itr2.hasNext();
+			return this.itr2.hasNext();
 		}
 
 		@Override
 		public Config next() {
-			while (!this.itr2.hasNext() && this.itr1.hasNext()) {
-				this.itr2 = this.itr1.next().values().iterator();
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
 			}
 
 			return this.itr2.next();
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.util;
+
+import org.quiltmc.config.api.metadata.Comments;
+import org.quiltmc.config.api.metadata.SerialName;
+import org.quiltmc.config.impl.CommentsImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A table of canonical metadata instances shared by all configs of a {@linkplain
+ * org.quiltmc.config.implementor_api.ConfigEnvironment.MemoryMode#COMPACT compact} environment, so that identical
+ * comments and serialized names are only held in memory once. Each environment has its own table, which is released
+ * along with the environment.
+ */
+public final class InternTable {
+	private final ConcurrentHashMap<Object, Object> table = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the canonical instance equal to the given one
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T intern(T value) {
+		Object existing = this.table.putIfAbsent(value, value);
+
+		return existing == null ? value : (T) existing;
+	}
+
+	/**
+	 * @return the canonical instance of the given metadata if it is of a kind that can be shared, or the metadata
+	 * itself otherwise
+	 */
+	public Object internMetadata(Object metadata) {
+		if (metadata instanceof CommentsImpl) {
+			List<String> lines = new ArrayList<>();
+
+			for (String line : (Comments) metadata) {
+				lines.add(this.intern(line));
+			}
+
+			return this.intern(new CommentsImpl(lines));
+		} else if (metadata instanceof SerialName) {
+			return this.intern(new SerialName(this.intern(((SerialName) metadata).getName())));
+		} else {
+			return metadata;
+		}
+	}
+
+	/**
+	 * @return the number of canonical instances held
+	 */
+	public int size() {
+		return this.table.size();
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the span of every member value in a JSON5 document, without interpreting the values themselves.
+ */
+public final class Json5LiteralScanner {
+	private final String text;
+	private final Map<List<String>, int[]> spans = new HashMap<>();
+	private int pos;
+
+	private Json5LiteralScanner(String text) {
+		this.text = text;
+	}
+
+	public static @Nullable Map<List<String>, int[]> scan(String text) {
+		Json5LiteralScanner scanner = new Json5LiteralScanner(text);
+
+		try {
+			scanner.value(new ArrayList<>());
+			scanner.skip();
+
+			return scanner.pos == text.length() ? scanner.spans : null;
+		} catch (RuntimeException e) {
+			// Malformed input, including invalid escapes
+			return null;
+		}
+	}
+
+	/**
+	 * @param path the key of the value, or {@code null} for array elements, whose spans are not recorded
+	 */
+	private void value(@Nullable List<String> path) {
+		this.skip();
+
+		int start = this.pos;
+		char c = this.peek();
+
+		if (c == '{') {
+			this.object(path);
+		} else if (c == '[') {
+			this.array();
+		} else if (c == '"' || c == '\'') {
+			this.string();
+		} else {
+			this.bare();
+		}
+
+		if (path != null && !path.isEmpty()) {
+			this.spans.put(new ArrayList<>(path), new int[] {start, this.pos});
+		}
+	}
+
+	private void object(@Nullable List<String> path) {
+		this.pos++;
+		this.skip();
+
+		while (this.peek() != '}') {
+			String key;
+
+			if (this.peek() == '"' || this.peek() == '\'') {
+				int start = this.pos;
+				this.string();
+				key = unescape(this.text.substring(start + 1, this.pos - 1));
+			} else {
+				int start = this.pos;
+				this.bare();
+				key = this.text.substring(start, this.pos);
+			}
+
+			this.skip();
+			this.expect(':');
+
+			if (path == null) {
+				this.value(null);
+			} else {
+				path.add(key);
+				this.value(path);
+				path.remove(path.size() - 1);
+			}
+
+			this.separator('}');
+		}
+
+		this.pos++;
+	}
+
+	private void array() {
+		this.pos++;
+		this.skip();
+
+		while (this.peek() != ']') {
+			this.value(null);
+			this.separator(']');
+		}
+
+		this.pos++;
+	}
+
+	private void separator(char close) {
+		this.skip();
+
+		if (this.peek() == ',') {
+			this.pos++;
+			this.skip();
+		} else if (this.peek() != close) {
+			throw new IllegalStateException();
+		}
+	}
+
+	private void string() {
+		char quote = this.text.charAt(this.pos++);
+
+		while (true) {
+			char c = this.peek();
+			this.pos++;
+
+			if (c == '\\') {
+				this.pos++;
+			} else if (c == quote) {
+				return;
+			}
+		}
+	}
+
+	private void bare() {
+		int start = this.pos;
+
+		while (this.pos < this.text.length()) {
+			char c = this.text.charAt(this.pos);
+
+			if (Character.isWhitespace(c) || c == ',' || c == ':' || c == '}' || c == ']' || c == '/') {
+				break;
+			}
+
+			this.pos++;
+		}
+
+		if (start == this.pos) {
+			throw new IllegalStateException();
+		}
+	}
+
+	private void skip() {
+		while (this.pos < this.text.length()) {
+			char c = this.text.charAt(this.pos);
+
+			if (Character.isWhitespace(c)) {
+				this.pos++;
+			} else if (this.text.startsWith("//", this.pos)) {
+				int end = this.text.indexOf('\n', this.pos);
+				this.pos = end < 0 ? this.text.length() : end + 1;
+			} else if (this.text.startsWith("/*", this.pos)) {
+				int end = this.text.indexOf("*/", this.pos + 2);
+
+				if (end < 0) {
+					throw new IllegalStateException();
+				}
+
+				this.pos = end + 2;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void expect(char c) {
+		if (this.peek() != c) {
+			throw new IllegalStateException();
+		}
+
+		this.pos++;
+	}
+
+	private char peek() {
+		if (this.pos >= this.text.length()) {
+			throw new IllegalStateException();
+		}
+
+		return this.text.charAt(this.pos);
+	}
+
+	static String unescape(String string) {
+		if (string.indexOf('\\') < 0) {
+			return string;
+		}
+
+		StringBuilder builder = new StringBuilder(string.length());
+
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+
+			if (c != '\\' || i + 1 == string.length()) {
+				builder.append(c);
+				continue;
+			}
+
+			c = string.charAt(++i);
+
+			switch (c) {
+				case 'b':
+					builder.append('\b');
+					break;
+				case 't':
+					builder.append('\t');
+					break;
+				case 'n':
+					builder.append('\n');
+					break;
+				case 'f':
+					builder.append('\f');
+					break;
+				case 'r':
+					builder.append('\r');
+					break;
+				case 'u':
+					builder.append((char) Integer.parseInt(string.substring(i + 1, i + 5), 16));
+					i += 4;
+					break;
+				default:
+					builder.append(c);
+			}
+		}
+
+		return builder.toString();
+	}
+}
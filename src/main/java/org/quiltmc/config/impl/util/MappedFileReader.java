@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * A reader that decodes a memory-mapped file directly into the caller's buffer.
+ *
+ * <p>The mapping is released as soon as the reader is closed, so that the file can be rewritten immediately afterwards
+ * on every platform. Since that relies on {@code sun.misc.Unsafe#invokeCleaner}, mapping is only {@linkplain
+ * #isSupported() supported} on Java 9 and newer.
+ */
+public final class MappedFileReader extends Reader {
+	private static final Consumer<ByteBuffer> UNMAPPER = createUnmapper();
+
+	private final CharsetDecoder decoder;
+	private MappedByteBuffer buffer;
+	private boolean flushed;
+
+	private MappedFileReader(MappedByteBuffer buffer, Charset charset) {
+		this.buffer = buffer;
+		this.decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	public static boolean isSupported() {
+		return UNMAPPER != null;
+	}
+
+	/**
+	 * Maps the given file. Only call if mapping is {@linkplain #isSupported() supported}.
+	 */
+	public static MappedFileReader open(Path path, Charset charset) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new MappedFileReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), charset);
+		}
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (this.buffer == null) {
+			throw new IOException("Reader is closed");
+		}
+
+		if (this.flushed) {
+			return -1;
+		} else if (len == 0) {
+			return 0;
+		}
+
+		CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+
+		if (this.decoder.decode(this.buffer, out, true).isUnderflow()) {
+			this.flushed = this.decoder.flush(out).isUnderflow();
+		}
+
+		int read = out.position() - off;
+
+		return read == 0 && this.flushed ? -1 : read;
+	}
+
+	@Override
+	public void close() {
+		if (this.buffer != null) {
+			UNMAPPER.accept(this.buffer);
+			this.buffer = null;
+		}
+	}
+
+	private static Consumer<ByteBuffer> createUnmapper() {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			Object unsafe = field.get(null);
+
+			return buffer -> {
+				try {
+					invokeCleaner.invoke(unsafe, buffer);
+				} catch (ReflectiveOperationException e) {
+					// Leave the mapping to be released by the garbage collector
+				}
+			};
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+}
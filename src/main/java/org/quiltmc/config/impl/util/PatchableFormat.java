@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A serializer whose files can be patched in place, by replacing the literal of a single value without regenerating
+ * the rest of the file.
+ */
+@ApiStatus.Internal
+public interface PatchableFormat {
+	/**
+	 * Finds the literal of every value in a file.
+	 *
+	 * @param text the contents of the file
+	 * @return the start (inclusive) and end (exclusive) character offsets of each literal, keyed by the serialized key
+	 * of its value, or {@code null} if the file could not be scanned
+	 */
+	@Nullable Map<List<String>, int[]> scanLiterals(String text);
+
+	/**
+	 * @return the literal the given value would be written as, or {@code null} if it cannot be written as a single
+	 * literal
+	 */
+	@Nullable String renderLiteral(ValueCodec codec, Object value);
+
+	Charset getCharset();
+
+	/**
+	 * Quotes a string using only the escapes shared by JSON5 and TOML basic strings.
+	 */
+	static String quote(String value) {
+		StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+
+			switch (c) {
+				case '"':
+					builder.append("\\\"");
+					break;
+				case '\\':
+					builder.append("\\\\");
+					break;
+				case '\b':
+					builder.append("\\b");
+					break;
+				case '\t':
+					builder.append("\\t");
+					break;
+				case '\n':
+					builder.append("\\n");
+					break;
+				case '\f':
+					builder.append("\\f");
+					break;
+				case '\r':
+					builder.append("\\r");
+					break;
+				default:
+					if (c < 0x20 || c == 0x7F || c == '\u2028' || c == '\u2029') {
+						builder.append(String.format("\\u%04x", (int) c));
+					} else {
+						builder.append(c);
+					}
+			}
+		}
+
+		return builder.append('"').toString();
+	}
+}
@@ -17,12 +17,22 @@
 package org.quiltmc.config.impl.util;
 
 import org.quiltmc.config.api.Config;
+import org.quiltmc.config.api.Constraint;
+import org.quiltmc.config.api.annotations.Comment;
 import org.quiltmc.config.api.annotations.SerializedName;
+import org.quiltmc.config.api.metadata.Comments;
+import org.quiltmc.config.api.metadata.MetadataContainer;
+import org.quiltmc.config.api.values.CompoundConfigValue;
+import org.quiltmc.config.api.values.TrackedValue;
 import org.quiltmc.config.api.values.ValueKey;
 import org.quiltmc.config.api.values.ValueTreeNode;
+import org.quiltmc.config.impl.AbstractMetadataContainer;
+import org.quiltmc.config.impl.ConfigImpl;
+import org.quiltmc.config.impl.tree.TrackedValueImpl;
 import org.quiltmc.config.impl.values.ValueKeyImpl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -48,6 +58,129 @@ public static Optional<String> createEnumOptionsComment(Object defaultValue) {
 		}
 	}
 
+	/**
+	 * Returns every comment line that should be written above the given node or config: its {@link Comment} metadata,
+	 * followed for values by the enum options, constraint representations, and default value.
+	 *
+	 * <p>The result is cached on the node and only rebuilt if its comments are replaced or its constraints change, unless
+	 * the node is {@linkplain AbstractMetadataContainer#compact(InternTable) compact}.
+	 */
+	public static CommentBlock getCommentBlock(MetadataContainer container) {
+		Comments comments = container.metadata(Comment.TYPE);
+		Object constraints = container instanceof TrackedValueImpl ? ((TrackedValueImpl<?>) container).constraints : null;
+
+		if (container instanceof AbstractMetadataContainer) {
+			AbstractMetadataContainer node = (AbstractMetadataContainer) container;
+			CommentBlock block = node.getCommentBlock();
+
+			if (block == null || !block.isFor(comments, constraints)) {
+				block = createCommentBlock(container, comments, constraints);
+				node.setCommentBlock(block);
+			}
+
+			return block;
+		} else {
+			return createCommentBlock(container, comments, constraints);
+		}
+	}
+
+	private static CommentBlock createCommentBlock(MetadataContainer container, Comments comments, Object constraints) {
+		List<String> lines = new ArrayList<>();
+
+		if (comments != null) {
+			for (String comment : comments) {
+				lines.add(comment);
+			}
+		}
+
+		if (container instanceof TrackedValue<?>) {
+			TrackedValue<?> value = (TrackedValue<?>) container;
+			Object defaultValue = value.getDefaultValue();
+
+			createEnumOptionsComment(defaultValue).ifPresent(lines::add);
+
+			for (Constraint<?> constraint : value.constraints()) {
+				lines.add(constraint.getRepresentation());
+			}
+
+			if (!(defaultValue instanceof CompoundConfigValue<?>)) {
+				lines.add("default: " + defaultValue);
+			}
+		}
+
+		return new CommentBlock(comments, constraints, lines);
+	}
+
+	/**
+	 * Returns the comment lines that should be written at the top of a config's file: the config's own comments,
+	 * followed for sparse configs by a pointer to their defaults reference file.
+	 */
+	public static List<String> getHeaderComments(Config config) {
+		List<String> lines = getCommentBlock(config).lines();
+
+		if (config instanceof ConfigImpl && ((ConfigImpl) config).hasDefaultsFile()) {
+			ConfigImpl impl = (ConfigImpl) config;
+			lines = new ArrayList<>(lines);
+
+			if (impl.isWritingDefaults()) {
+				lines.add("Reference only: lists every option at its default value. This file is regenerated on load and never read.");
+			} else {
+				lines.add("Only options that differ from their defaults are stored here, see " + impl.getDefaultsPath().getFileName() + " for every option.");
+			}
+		}
+
+		return lines;
+	}
+
+	/**
+	 * Checks whether a serializer should write the given node. Sparse configs only write values that differ from their
+	 * defaults, and sections that contain such values.
+	 */
+	public static boolean isWritten(ValueTreeNode node) {
+		if (node instanceof ValueTreeNode.Section) {
+			for (ValueTreeNode child : (ValueTreeNode.Section) node) {
+				if (isWritten(child)) {
+					return true;
+				}
+			}
+
+			return false;
+		} else if (node instanceof TrackedValueImpl) {
+			ConfigImpl config = ((TrackedValueImpl<?>) node).getConfig();
+
+			return config == null || !config.isSparse() || config.isWritingDefaults() || config.isModified((TrackedValue<?>) node);
+		} else {
+			return true;
+		}
+	}
+
+	/**
+	 * @return the value a serializer should write for the given value, which is its default when writing a defaults
+	 * reference file
+	 */
+	public static Object getWrittenValue(TrackedValue<?> value) {
+		if (value instanceof TrackedValueImpl) {
+			ConfigImpl config = ((TrackedValueImpl<?>) value).getConfig();
+
+			if (config != null && config.isWritingDefaults()) {
+				return value.getDefaultValue();
+			}
+		}
+
+		return value.getRealValue();
+	}
+
+	/**
+	 * @return the pre-compiled read and write plan for the given value
+	 */
+	public static ValueCodec getCodec(TrackedValue<?> value) {
+		if (value instanceof TrackedValueImpl) {
+			return ((TrackedValueImpl<?>) value).getCodec();
+		} else {
+			return ValueCodec.of(value.getDefaultValue());
+		}
+	}
+
 	/**
 	 * Gets the value's key, taking {@link SerializedName} into account. Should always be used when serializing and deserializing a config.
 	 */
@@ -66,6 +199,19 @@ public static ValueKey getSerializedKey(Config config, ValueTreeNode value) {
 		return new ValueKeyImpl(serializedKey.toArray(new String[0]));
 	}
 
+	/**
+	 * Keeps an entry that was read without belonging to any value of the config, so that a value added to the config
+	 * later can still be read from it.
+	 *
+	 * @param key the names the entry was read under
+	 * @param value the entry, as a {@link java.util.Map}, {@link List}, or scalar
+	 */
+	public static void putUnreadEntry(Config config, List<String> key, Object value) {
+		if (config instanceof ConfigImpl) {
+			((ConfigImpl) config).putUnreadEntry(key, value);
+		}
+	}
+
 	public static String getSerializedName(ValueTreeNode value) {
 		if (value.hasMetadata(SerializedName.TYPE)) {
 			return value.metadata(SerializedName.TYPE).getName();
@@ -73,4 +219,80 @@ public static String getSerializedName(ValueTreeNode value) {
 			return value.key().getLastComponent();
 		}
 	}
+
+	/**
+	 * The pre-rendered comment lines of a single node.
+	 */
+	public static final class CommentBlock {
+		private final Comments source;
+		private final Object constraints;
+		private final Object[] constraintElements;
+		private final List<String> lines;
+		private volatile Joined joined;
+
+		private CommentBlock(Comments source, Object constraints, List<String> lines) {
+			this.source = source;
+			this.constraints = constraints;
+			this.constraintElements = constraints instanceof List ? ((List<?>) constraints).toArray() : null;
+			this.lines = Collections.unmodifiableList(lines);
+		}
+
+		/**
+		 * @return whether this block was rendered from the given comments and from a constraint list with the same
+		 * constraints, which may have been added, removed or replaced in place since
+		 */
+		private boolean isFor(Comments source, Object constraints) {
+			if (this.source != source || this.constraints != constraints) {
+				return false;
+			} else if (this.constraintElements == null) {
+				return true;
+			}
+
+			List<?> list = (List<?>) constraints;
+
+			if (list.size() != this.constraintElements.length) {
+				return false;
+			}
+
+			for (int i = 0; i < this.constraintElements.length; i++) {
+				if (list.get(i) != this.constraintElements[i]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		public List<String> lines() {
+			return this.lines;
+		}
+
+		public boolean isEmpty() {
+			return this.lines.isEmpty();
+		}
+
+		/**
+		 * @return all lines joined with the given delimiter and prefixed with the given prefix; the last result is cached
+		 */
+		public String join(String prefix, String delimiter) {
+			Joined joined = this.joined;
+
+			if (joined == null || !prefix.equals(joined.prefix) || !delimiter.equals(joined.delimiter)) {
+				joined = new Joined(prefix, delimiter, prefix + String.join(delimiter, this.lines));
+				this.joined = joined;
+			}
+
+			return joined.value;
+		}
+
+		private static final class Joined {
+			private final String prefix, delimiter, value;
+
+			private Joined(String prefix, String delimiter, String value) {
+				this.prefix = prefix;
+				this.delimiter = delimiter;
+				this.value = value;
+			}
+		}
+	}
 }
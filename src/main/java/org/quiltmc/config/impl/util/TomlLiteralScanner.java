@@ -0,0 +1,305 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the span of every key/value pair's value in a TOML document, without interpreting the values themselves.
+ *
+ * <p>Table headers are recorded with an empty span, so that they count as present. Values in arrays of tables are not
+ * recorded, since they cannot be addressed by key alone.
+ */
+public final class TomlLiteralScanner {
+	private final String text;
+	private final Map<List<String>, int[]> spans = new HashMap<>();
+	private int pos;
+
+	private TomlLiteralScanner(String text) {
+		this.text = text;
+	}
+
+	public static @Nullable Map<List<String>, int[]> scan(String text) {
+		TomlLiteralScanner scanner = new TomlLiteralScanner(text);
+
+		try {
+			scanner.document();
+
+			return scanner.spans;
+		} catch (RuntimeException e) {
+			// Malformed input, including invalid escapes
+			return null;
+		}
+	}
+
+	private void document() {
+		List<String> table = Collections.emptyList();
+		boolean arrayTable = false;
+
+		while (true) {
+			this.skipBlank();
+
+			if (this.pos >= this.text.length()) {
+				return;
+			}
+
+			if (this.text.startsWith("[[", this.pos)) {
+				this.pos += 2;
+				table = this.key();
+				arrayTable = true;
+				this.expect(']');
+				this.expect(']');
+				this.spans.put(table, new int[] {this.pos, this.pos});
+			} else if (this.peek() == '[') {
+				this.pos++;
+				table = this.key();
+				arrayTable = false;
+				this.expect(']');
+				this.spans.put(table, new int[] {this.pos, this.pos});
+			} else {
+				List<String> key = new ArrayList<>(table);
+				key.addAll(this.key());
+				this.expect('=');
+				this.skipSpaces();
+
+				int start = this.pos;
+				this.value();
+
+				if (!arrayTable) {
+					this.spans.put(key, new int[] {start, this.pos});
+				}
+			}
+
+			this.endOfLine();
+		}
+	}
+
+	private List<String> key() {
+		List<String> key = new ArrayList<>();
+
+		while (true) {
+			this.skipSpaces();
+
+			char c = this.peek();
+			int start = this.pos;
+
+			if (c == '"') {
+				this.basicString();
+				key.add(Json5LiteralScanner.unescape(this.text.substring(start + 1, this.pos - 1)));
+			} else if (c == '\'') {
+				this.literalString();
+				key.add(this.text.substring(start + 1, this.pos - 1));
+			} else {
+				while (this.pos < this.text.length() && isBareKeyChar(this.text.charAt(this.pos))) {
+					this.pos++;
+				}
+
+				if (start == this.pos) {
+					throw new IllegalStateException();
+				}
+
+				key.add(this.text.substring(start, this.pos));
+			}
+
+			this.skipSpaces();
+
+			if (this.pos < this.text.length() && this.text.charAt(this.pos) == '.') {
+				this.pos++;
+			} else {
+				return key;
+			}
+		}
+	}
+
+	private void value() {
+		if (this.text.startsWith("\"\"\"", this.pos)) {
+			this.multilineString("\"\"\"", true);
+		} else if (this.text.startsWith("'''", this.pos)) {
+			this.multilineString("'''", false);
+		} else {
+			char c = this.peek();
+
+			if (c == '"') {
+				this.basicString();
+			} else if (c == '\'') {
+				this.literalString();
+			} else if (c == '[' || c == '{') {
+				this.nested(c, c == '[' ? ']' : '}');
+			} else {
+				int start = this.pos;
+
+				while (this.pos < this.text.length()) {
+					char d = this.text.charAt(this.pos);
+
+					if (d == ' ' || d == '\t' || d == '\r' || d == '\n' || d == '#' || d == ',' || d == ']' || d == '}') {
+						break;
+					}
+
+					this.pos++;
+				}
+
+				if (start == this.pos) {
+					throw new IllegalStateException();
+				}
+			}
+		}
+	}
+
+	private void nested(char open, char close) {
+		this.pos++;
+
+		while (true) {
+			this.skipBlank();
+
+			char c = this.peek();
+
+			if (c == close) {
+				this.pos++;
+				return;
+			} else if (c == ',' || c == '=') {
+				this.pos++;
+			} else if (open == '{' && this.peekKey()) {
+				this.key();
+			} else {
+				this.value();
+			}
+		}
+	}
+
+	private boolean peekKey() {
+		int end = this.pos;
+
+		while (end < this.text.length() && (isBareKeyChar(this.text.charAt(end)) || this.text.charAt(end) == '.' || this.text.charAt(end) == ' ')) {
+			end++;
+		}
+
+		return end < this.text.length() && this.text.charAt(end) == '=';
+	}
+
+	private void basicString() {
+		this.pos++;
+
+		while (true) {
+			char c = this.peek();
+			this.pos++;
+
+			if (c == '\\') {
+				this.pos++;
+			} else if (c == '"') {
+				return;
+			} else if (c == '\n') {
+				throw new IllegalStateException();
+			}
+		}
+	}
+
+	private void literalString() {
+		int end = this.text.indexOf('\'', this.pos + 1);
+
+		if (end < 0) {
+			throw new IllegalStateException();
+		}
+
+		this.pos = end + 1;
+	}
+
+	private void multilineString(String delimiter, boolean escapes) {
+		this.pos += 3;
+
+		while (true) {
+			if (escapes && this.peek() == '\\') {
+				this.pos += 2;
+			} else if (this.text.startsWith(delimiter, this.pos)) {
+				this.pos += 3;
+
+				// Up to two quotes directly before the closing delimiter belong to the string
+				while (this.pos < this.text.length() && this.text.charAt(this.pos) == delimiter.charAt(0)) {
+					this.pos++;
+				}
+
+				return;
+			} else {
+				this.pos++;
+			}
+		}
+	}
+
+	private void endOfLine() {
+		this.skipSpaces();
+
+		if (this.pos < this.text.length() && this.text.charAt(this.pos) == '#') {
+			this.skipComment();
+		}
+
+		if (this.pos < this.text.length() && this.text.charAt(this.pos) != '\n' && this.text.charAt(this.pos) != '\r') {
+			throw new IllegalStateException();
+		}
+	}
+
+	private void skipSpaces() {
+		while (this.pos < this.text.length() && (this.text.charAt(this.pos) == ' ' || this.text.charAt(this.pos) == '\t')) {
+			this.pos++;
+		}
+	}
+
+	private void skipBlank() {
+		while (this.pos < this.text.length()) {
+			char c = this.text.charAt(this.pos);
+
+			if (Character.isWhitespace(c)) {
+				this.pos++;
+			} else if (c == '#') {
+				this.skipComment();
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void skipComment() {
+		int end = this.text.indexOf('\n', this.pos);
+		this.pos = end < 0 ? this.text.length() : end;
+	}
+
+	private void expect(char c) {
+		this.skipSpaces();
+
+		if (this.peek() != c) {
+			throw new IllegalStateException();
+		}
+
+		this.pos++;
+	}
+
+	private char peek() {
+		if (this.pos >= this.text.length()) {
+			throw new IllegalStateException();
+		}
+
+		return this.text.charAt(this.pos);
+	}
+
+	private static boolean isBareKeyChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.util;
+
+import org.quiltmc.config.api.MarshallingUtils;
+import org.quiltmc.config.api.exceptions.ConfigParseException;
+import org.quiltmc.config.api.values.ConfigSerializableObject;
+import org.quiltmc.config.api.values.ValueList;
+import org.quiltmc.config.api.values.ValueMap;
+import org.quiltmc.config.impl.values.ValueListImpl;
+import org.quiltmc.config.impl.values.ValueMapImpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A read and write plan for a single config value type, compiled once from a default value.
+ *
+ * <p>Serializers switch over {@link #kind()} instead of probing each value with {@code instanceof}, and use the
+ * pre-compiled {@link #element()} plan for the contents of lists, maps, and serializable objects.
+ */
+public final class ValueCodec implements MarshallingUtils.Coercer {
+	private static final ValueCodec INTEGER = new ValueCodec(Kind.INTEGER, 0, null, null);
+	private static final ValueCodec LONG = new ValueCodec(Kind.LONG, 0L, null, null);
+	private static final ValueCodec FLOAT = new ValueCodec(Kind.FLOAT, 0F, null, null);
+	private static final ValueCodec DOUBLE = new ValueCodec(Kind.DOUBLE, 0D, null, null);
+	private static final ValueCodec BOOLEAN = new ValueCodec(Kind.BOOLEAN, false, null, null);
+	private static final ValueCodec STRING = new ValueCodec(Kind.STRING, "", null, null);
+	private static final ClassValue<ValueCodec> ENUMS = new ClassValue<ValueCodec>() {
+		@Override
+		protected ValueCodec computeValue(Class<?> type) {
+			Object[] constants = type.getEnumConstants();
+			Map<String, Object> lookup = new HashMap<>(constants.length * 2);
+
+			for (Object constant : constants) {
+				lookup.putIfAbsent(((Enum<?>) constant).name().toLowerCase(Locale.ROOT), constant);
+			}
+
+			return new ValueCodec(Kind.ENUM, constants[0], null, lookup);
+		}
+	};
+
+	private final Kind kind;
+	private final Object defaultValue;
+	private final ValueCodec element;
+	private final Map<String, Object> enumLookup;
+
+	private ValueCodec(Kind kind, Object defaultValue, ValueCodec element, Map<String, Object> enumLookup) {
+		this.kind = kind;
+		this.defaultValue = defaultValue;
+		this.element = element;
+		this.enumLookup = enumLookup;
+	}
+
+	/**
+	 * Compiles a plan for values of the same type as the given default value.
+	 */
+	public static ValueCodec of(Object defaultValue) {
+		if (defaultValue instanceof Integer) {
+			return INTEGER;
+		} else if (defaultValue instanceof Long) {
+			return LONG;
+		} else if (defaultValue instanceof Float) {
+			return FLOAT;
+		} else if (defaultValue instanceof Double) {
+			return DOUBLE;
+		} else if (defaultValue instanceof Boolean) {
+			return BOOLEAN;
+		} else if (defaultValue instanceof String) {
+			return STRING;
+		} else if (defaultValue instanceof ConfigSerializableObject) {
+			return new ValueCodec(Kind.SERIALIZABLE, defaultValue, of(((ConfigSerializableObject<?>) defaultValue).getRepresentation()), null);
+		} else if (defaultValue instanceof ValueMap) {
+			return new ValueCodec(Kind.MAP, defaultValue, of(((ValueMap<?>) defaultValue).getDefaultValue()), null);
+		} else if (defaultValue instanceof ValueList) {
+			return new ValueCodec(Kind.LIST, defaultValue, of(((ValueList<?>) defaultValue).getDefaultValue()), null);
+		} else if (defaultValue instanceof Enum) {
+			return ENUMS.get(((Enum<?>) defaultValue).getDeclaringClass());
+		} else {
+			throw new ConfigParseException("Unexpected value type: " + (defaultValue == null ? null : defaultValue.getClass()));
+		}
+	}
+
+	public Kind kind() {
+		return this.kind;
+	}
+
+	/**
+	 * @return the plan for the elements of a list or map, or for the representation of a serializable object
+	 */
+	public ValueCodec element() {
+		return this.element;
+	}
+
+	/**
+	 * Converts an intermediary representation produced by a parser into a value of this plan's type.
+	 *
+	 * @param object the parsed object
+	 * @param mapReader reads the entries of the parser's map representation
+	 * @return a value suitable for a {@link org.quiltmc.config.api.values.TrackedValue} of this type
+	 */
+	@Override
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public <M> Object coerce(Object object, MarshallingUtils.ValueMapCreator<M> mapReader) {
+		switch (this.kind) {
+			case INTEGER:
+				return ((Number) object).intValue();
+			case LONG:
+				return ((Number) object).longValue();
+			case FLOAT:
+				return ((Number) object).floatValue();
+			case DOUBLE:
+				return ((Number) object).doubleValue();
+			case STRING:
+				return (String) object;
+			case BOOLEAN:
+				return (Boolean) object;
+			case SERIALIZABLE:
+				return this.fromRepresentation(this.element.coerce(object, mapReader));
+			case MAP: {
+				Map<String, Object> values = object instanceof Map ? new LinkedHashMap<>(capacity(((Map<?, ?>) object).size())) : new LinkedHashMap<>();
+
+				mapReader.create((M) object, (key, value) -> values.put(key, this.element.coerce(value, mapReader)));
+
+				return this.fromMap(values);
+			}
+			case LIST: {
+				List<?> list = (List<?>) object;
+				List<Object> values = new ArrayList<>(list.size());
+
+				for (Object value : list) {
+					values.add(this.element.coerce(value, mapReader));
+				}
+
+				return this.fromList(values);
+			}
+			case ENUM:
+				return this.coerceEnum((String) object);
+		}
+
+		throw new ConfigParseException("Unexpected value type: " + this.kind);
+	}
+
+	/**
+	 * Creates a list value of this plan's type from already converted elements.
+	 */
+	public Object fromList(List<Object> values) {
+		return new ValueListImpl<>(((ValueList<?>) this.defaultValue).getDefaultValue(), values);
+	}
+
+	/**
+	 * Creates a map value of this plan's type from already converted entries.
+	 */
+	public Object fromMap(Map<String, Object> values) {
+		return new ValueMapImpl<>(((ValueMap<?>) this.defaultValue).getDefaultValue(), values);
+	}
+
+	/**
+	 * Creates a serializable object of this plan's type from its already converted representation.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public Object fromRepresentation(Object representation) {
+		return ((ConfigSerializableObject) this.defaultValue).convertFrom(representation);
+	}
+
+	private Object coerceEnum(String name) {
+		Object constant = this.enumLookup.get(name.toLowerCase(Locale.ROOT));
+
+		if (constant != null) {
+			return constant;
+		}
+
+		// Fall back to the exact semantics of equalsIgnoreCase for names that lowercase differently
+		for (Object o : this.enumLookup.values()) {
+			if (((Enum<?>) o).name().equalsIgnoreCase(name)) {
+				return o;
+			}
+		}
+
+		throw new ConfigParseException("Unexpected value '" + name + "' for enum class '" + ((Enum<?>) this.defaultValue).getDeclaringClass() + "'");
+	}
+
+	private static int capacity(int size) {
+		return size < 3 ? size + 1 : (int) (size / 0.75F + 1.0F);
+	}
+
+	public enum Kind {
+		INTEGER,
+		LONG,
+		FLOAT,
+		DOUBLE,
+		BOOLEAN,
+		STRING,
+		ENUM,
+		LIST,
+		MAP,
+		SERIALIZABLE
+	}
+}
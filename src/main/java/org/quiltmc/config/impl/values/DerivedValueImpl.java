@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.impl.values;
+
+import org.quiltmc.config.api.values.DerivedValue;
+import org.quiltmc.config.api.values.TrackedValue;
+
+import java.util.function.Supplier;
+
+public final class DerivedValueImpl<T> implements DerivedValue<T> {
+	private final Supplier<T> function;
+	private final TrackedValue<?>[] dependencies;
+	private volatile Snapshot<T> snapshot;
+
+	public DerivedValueImpl(Supplier<T> function, TrackedValue<?>[] dependencies) {
+		this.function = function;
+		this.dependencies = dependencies.clone();
+	}
+
+	@Override
+	public T value() {
+		Snapshot<T> snapshot = this.snapshot;
+
+		if (snapshot != null && snapshot.version == this.dependencyVersion()) {
+			return snapshot.value;
+		}
+
+		return this.recompute();
+	}
+
+	private synchronized T recompute() {
+		// Read the version before computing, so that a dependency changing mid-computation invalidates the result
+		long version = this.dependencyVersion();
+		Snapshot<T> snapshot = this.snapshot;
+
+		if (snapshot != null && snapshot.version == version) {
+			return snapshot.value;
+		}
+
+		T value = this.function.get();
+		this.snapshot = new Snapshot<>(version, value);
+
+		return value;
+	}
+
+	/**
+	 * Since all versions come from a single counter, the latest version of any dependency changes whenever any of them does.
+	 */
+	private long dependencyVersion() {
+		long version = 0;
+
+		for (TrackedValue<?> dependency : this.dependencies) {
+			version = Math.max(version, dependency.version());
+		}
+
+		return version;
+	}
+
+	private static final class Snapshot<T> {
+		private final long version;
+		private final T value;
+
+		private Snapshot(long version, T value) {
+			this.version = version;
+			this.value = value;
+		}
+	}
+}
@@ -16,17 +16,42 @@
 
 package org.quiltmc.config.implementor_api;
 
+import org.jetbrains.annotations.ApiStatus;
+import org.quiltmc.config.api.Config;
 import org.quiltmc.config.api.Serializer;
+import org.quiltmc.config.api.exceptions.ConfigParseException;
+import org.quiltmc.config.impl.ConfigBundle;
+import org.quiltmc.config.impl.ConfigImpl;
+import org.quiltmc.config.impl.util.InternTable;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 public class ConfigEnvironment {
 	private final Map<String, Serializer> serializers = new HashMap<>();
 	private final Path saveFolder;
 	private final String defaultFileFormat;
 	private final String globalSerializer;
+	private final Queue<ConfigImpl> pending = new ConcurrentLinkedQueue<>();
+	private volatile boolean deferInitialization;
+	private final Map<Path, ConfigBundle> bundles = new ConcurrentHashMap<>();
+	private volatile Storage storage = Storage.FILES;
+	private volatile MemoryMode memoryMode = MemoryMode.DEFAULT;
+	private final InternTable internTable = new InternTable();
 
 	public ConfigEnvironment(Path saveFolder, String globalSerializer, Serializer defaultSerializer, Serializer... serializers) {
 		this.serializers.put(defaultSerializer.getFileExtension(), defaultSerializer);
@@ -71,4 +96,221 @@ public Serializer getActualSerializer(String fileType) {
 	public Serializer getSerializer(String fileType) {
 		return getActualSerializer(this.globalSerializer == null ? fileType : this.globalSerializer);
 	}
+
+	/**
+	 * When enabled, configs created in this environment are registered immediately, but are not read from or written
+	 * to disk until {@link #loadAll} is called, or until one of their values is first accessed. This allows the file
+	 * I/O of many configs to be done in parallel.
+	 *
+	 * @param deferInitialization whether to defer the initial serialization of newly created configs
+	 */
+	public void setDeferInitialization(boolean deferInitialization) {
+		this.deferInitialization = deferInitialization;
+	}
+
+	public boolean isInitializationDeferred() {
+		return this.deferInitialization;
+	}
+
+	@ApiStatus.Internal
+	public void defer(ConfigImpl config) {
+		this.pending.add(config);
+	}
+
+	/**
+	 * Reads and writes all configs whose initialization was deferred, using the common fork-join pool.
+	 *
+	 * @return the configs that were loaded
+	 * @see #loadAll(Executor)
+	 */
+	public List<Config> loadAll() {
+		return this.loadAll(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Reads and writes all configs whose initialization was deferred, in parallel on the given executor.
+	 *
+	 * <p>This method blocks until every config has been loaded, so all deserialized values are visible to the calling
+	 * thread once it returns. Update callbacks fired while loading are invoked on the executor's threads.
+	 *
+	 * @param executor the executor to run each config's initial serialization on
+	 * @return the configs that were loaded
+	 * @throws ConfigParseException if any config failed to load; configs that loaded successfully remain loaded
+	 */
+	public List<Config> loadAll(Executor executor) {
+		List<Config> configs = new ArrayList<>();
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		ConfigImpl config;
+
+		while ((config = this.pending.poll()) != null) {
+			ConfigImpl c = config;
+
+			configs.add(c);
+			futures.add(CompletableFuture.runAsync(c::ensureLoaded, executor));
+		}
+
+		try {
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof ConfigParseException) {
+				throw (ConfigParseException) e.getCause();
+			}
+
+			throw new ConfigParseException(e.getCause());
+		}
+
+		return configs;
+	}
+
+	/**
+	 * Sets how the configs of this environment are stored. Should be set before any configs are created.
+	 *
+	 * @param storage the storage layout
+	 */
+	public void setStorage(Storage storage) {
+		this.storage = storage;
+	}
+
+	public Storage getStorage() {
+		return this.storage;
+	}
+
+	/**
+	 * Sets how the metadata of configs created in this environment is kept in memory. Configs that were already created
+	 * are not affected.
+	 *
+	 * @param memoryMode the memory mode
+	 * @see ConfigFootprint
+	 */
+	public void setMemoryMode(MemoryMode memoryMode) {
+		this.memoryMode = memoryMode;
+	}
+
+	public MemoryMode getMemoryMode() {
+		return this.memoryMode;
+	}
+
+	/**
+	 * @return the table that the metadata of compact configs in this environment is shared through
+	 */
+	@ApiStatus.Internal
+	public InternTable getInternTable() {
+		return this.internTable;
+	}
+
+	/**
+	 * @return the bundle that configs of the given family are stored in, or {@code null} if configs are stored in their
+	 * own files
+	 */
+	@ApiStatus.Internal
+	public ConfigBundle getBundle(String family) {
+		switch (this.storage) {
+			case FAMILY_BUNDLES:
+				return this.bundles.computeIfAbsent(this.saveFolder.resolve(family + "." + Storage.BUNDLE_EXTENSION), ConfigBundle::new);
+			case ENVIRONMENT_BUNDLE:
+				return this.bundles.computeIfAbsent(this.saveFolder.resolve("configs." + Storage.BUNDLE_EXTENSION), ConfigBundle::new);
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Writes a copy of every config stored in this environment's bundles to the file it would have in the per-file
+	 * layout, so that it can be edited by hand. The bundles themselves are left unchanged.
+	 *
+	 * @see #importFiles()
+	 */
+	public void exportBundles() throws IOException {
+		for (ConfigBundle bundle : this.findBundles()) {
+			for (Map.Entry<String, byte[]> entry : bundle.entries().entrySet()) {
+				Path path = this.saveFolder.resolve(entry.getKey());
+
+				Files.createDirectories(path.getParent());
+				Files.write(path, entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Moves every config file in the per-file layout into the bundle it belongs to, replacing its bundled copy. Configs
+	 * that have already been loaded are not reloaded.
+	 *
+	 * @see #exportBundles()
+	 */
+	public void importFiles() throws IOException {
+		if (this.storage == Storage.FILES || !Files.isDirectory(this.saveFolder)) {
+			return;
+		}
+
+		List<Path> files = new ArrayList<>();
+
+		try (Stream<Path> paths = Files.walk(this.saveFolder)) {
+			paths.forEach(path -> {
+				Path relative = this.saveFolder.relativize(path);
+				String name = path.getFileName().toString();
+				int extension = name.lastIndexOf('.');
+
+				boolean reference = name.substring(0, Math.max(extension, 0)).endsWith(ConfigImpl.DEFAULTS_SUFFIX);
+
+				if (relative.getNameCount() > 1 && extension > 0 && !reference && this.serializers.containsKey(name.substring(extension + 1)) && Files.isRegularFile(path)) {
+					files.add(path);
+				}
+			});
+		}
+
+		for (Path path : files) {
+			this.getBundle(this.saveFolder.relativize(path).getName(0).toString()).put(ConfigBundle.entryName(this.saveFolder, path), Files.readAllBytes(path));
+			Files.delete(path);
+		}
+	}
+
+	private List<ConfigBundle> findBundles() throws IOException {
+		List<ConfigBundle> bundles = new ArrayList<>();
+
+		if (Files.isDirectory(this.saveFolder)) {
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.saveFolder, "*." + Storage.BUNDLE_EXTENSION)) {
+				for (Path path : stream) {
+					bundles.add(this.bundles.computeIfAbsent(path, ConfigBundle::new));
+				}
+			}
+		}
+
+		return bundles;
+	}
+
+	/**
+	 * How the configs of an environment are laid out on disk.
+	 */
+	public enum Storage {
+		/**
+		 * Each config is stored in its own file, at {@code <family>/<path>/<id>.<extension>}.
+		 */
+		FILES,
+		/**
+		 * All configs of a family are stored in a single bundle file, {@code <family>.bundle}.
+		 */
+		FAMILY_BUNDLES,
+		/**
+		 * All configs of the environment are stored in a single bundle file, {@code configs.bundle}.
+		 */
+		ENVIRONMENT_BUNDLE;
+
+		private static final String BUNDLE_EXTENSION = "bundle";
+	}
+
+	/**
+	 * How the metadata of configs is kept in memory.
+	 */
+	public enum MemoryMode {
+		/**
+		 * Metadata is held per value, and the comments written above each value are cached after the first save.
+		 */
+		DEFAULT,
+		/**
+		 * Identical comments and serialized names are shared between all configs of the environment, and the
+		 * comments written above each value, including enum options and constraints, are rebuilt on every save rather
+		 * than cached. Suited to dedicated servers, where configs are rarely saved.
+		 */
+		COMPACT
+	}
 }
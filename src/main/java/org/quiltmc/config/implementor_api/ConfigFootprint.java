@@ -0,0 +1,186 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.implementor_api;
+
+import org.quiltmc.config.api.Config;
+import org.quiltmc.config.api.metadata.Comments;
+import org.quiltmc.config.api.metadata.MetadataContainer;
+import org.quiltmc.config.api.metadata.SerialName;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.api.values.ValueTreeNode;
+import org.quiltmc.config.impl.AbstractMetadataContainer;
+import org.quiltmc.config.impl.util.SerializerUtils;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An estimate of the memory held by the comments and serialized names of a set of configs, including the comments
+ * cached for writing, for comparing {@linkplain ConfigEnvironment.MemoryMode memory modes}.
+ *
+ * <p>Shared instances are only counted once. Sizes assume a 64-bit JVM with compressed references and strings stored
+ * as one byte per character, and only count the metadata itself, not the nodes holding it.
+ */
+public final class ConfigFootprint {
+	private static final int OBJECT_HEADER = 12;
+	private static final int ARRAY_HEADER = 16;
+	private static final int REFERENCE = 4;
+
+	private final Set<Object> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+	private int configs;
+	private int nodes;
+	private int commentLines;
+	private int cachedLines;
+	private long bytes;
+
+	private ConfigFootprint() {
+	}
+
+	public static ConfigFootprint of(Iterable<Config> configs) {
+		ConfigFootprint footprint = new ConfigFootprint();
+
+		for (Config config : configs) {
+			footprint.configs++;
+			footprint.add(config);
+			footprint.addAll(config.nodes());
+		}
+
+		return footprint;
+	}
+
+	private void addAll(Iterable<ValueTreeNode> nodes) {
+		for (ValueTreeNode node : nodes) {
+			this.nodes++;
+			this.add(node);
+
+			if (node instanceof ValueTreeNode.Section) {
+				this.addAll((ValueTreeNode.Section) node);
+			}
+		}
+	}
+
+	private void add(MetadataContainer container) {
+		for (Object metadata : container.metadata().values()) {
+			if (metadata instanceof Comments) {
+				int lines = 0;
+
+				for (String line : (Comments) metadata) {
+					this.addString(line);
+					lines++;
+				}
+
+				this.commentLines += lines;
+
+				// The comments object and its backing list
+				this.addObject(metadata, align(OBJECT_HEADER + REFERENCE) + align(OBJECT_HEADER + 2 * 4 + REFERENCE) + align(ARRAY_HEADER + lines * REFERENCE));
+			} else if (metadata instanceof SerialName) {
+				this.addString(((SerialName) metadata).getName());
+				this.addObject(metadata, align(OBJECT_HEADER + REFERENCE));
+			}
+		}
+
+		SerializerUtils.CommentBlock block = container instanceof AbstractMetadataContainer ? ((AbstractMetadataContainer) container).getCommentBlock() : null;
+
+		if (block != null) {
+			List<String> lines = block.lines();
+
+			for (String line : lines) {
+				this.addString(line);
+			}
+
+			this.cachedLines += lines.size();
+			long copy = 0;
+
+			if (container instanceof TrackedValue) {
+				int constraints = 0;
+
+				for (Object constraint : ((TrackedValue<?>) container).constraints()) {
+					constraints++;
+				}
+
+				copy = align(ARRAY_HEADER + constraints * REFERENCE);
+			}
+
+			// The block, its unmodifiable view, the list behind it, and the copy of the constraints it was rendered from
+			this.addObject(lines, align(OBJECT_HEADER + 5 * REFERENCE) + 2 * align(OBJECT_HEADER + 2 * REFERENCE) + align(OBJECT_HEADER + 2 * 4 + REFERENCE) + align(ARRAY_HEADER + lines.size() * REFERENCE) + copy);
+		}
+	}
+
+	private void addString(String string) {
+		this.addObject(string, align(OBJECT_HEADER + REFERENCE + 4 + 2) + align(ARRAY_HEADER + string.length()));
+	}
+
+	private void addObject(Object object, long size) {
+		if (this.counted.add(object)) {
+			this.bytes += size;
+		}
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7;
+	}
+
+	/**
+	 * @return the number of configs measured
+	 */
+	public int configs() {
+		return this.configs;
+	}
+
+	/**
+	 * @return the number of values and sections in the measured configs
+	 */
+	public int nodes() {
+		return this.nodes;
+	}
+
+	/**
+	 * @return the number of comment lines held as metadata, counting shared lines once per node
+	 */
+	public int commentLines() {
+		return this.commentLines;
+	}
+
+	/**
+	 * @return the number of comment lines cached for writing, including enum options, constraints and default values
+	 */
+	public int cachedLines() {
+		return this.cachedLines;
+	}
+
+	/**
+	 * @return the number of distinct objects the estimate is made of
+	 */
+	public int distinctObjects() {
+		return this.counted.size();
+	}
+
+	/**
+	 * @return the estimated number of bytes held by comments and serialized names
+	 */
+	public long bytes() {
+		return this.bytes;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d configs, %d nodes: %d comment lines, %d cached lines, %d distinct objects, ~%d bytes",
+				this.configs, this.nodes, this.commentLines, this.cachedLines, this.distinctObjects(), this.bytes);
+	}
+}
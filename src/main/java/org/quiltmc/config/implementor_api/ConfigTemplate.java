@@ -0,0 +1,154 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config.implementor_api;
+
+import org.quiltmc.config.api.Config;
+import org.quiltmc.config.api.InternalsHelper;
+import org.quiltmc.config.api.ReflectiveConfig;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.impl.ConfigImpl;
+import org.quiltmc.config.impl.builders.ConfigBuilderImpl;
+import org.quiltmc.config.impl.builders.GeneratedConfigCreator;
+import org.quiltmc.config.impl.builders.ReflectiveConfigCreator;
+import org.quiltmc.config.impl.tree.ConfigTree;
+import org.quiltmc.config.impl.tree.TrackedValueImpl;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Creates any number of configs with the same structure, such as one config per world or per player.
+ *
+ * <p>The values, sections and metadata of the configs are only built once, when the template is created. Configs
+ * created from the template share their keys, metadata, constraints and codecs with it, so that each of them only holds
+ * its own values, callbacks and save path, and creating one costs little more than creating its values. Callbacks
+ * added while the template was built are registered on each config created from it; callbacks registered on the
+ * template's values after that are not.
+ *
+ * @param <C> the type of the created configs
+ */
+public final class ConfigTemplate<C extends Config> {
+	private final ConfigBuilderImpl builder;
+	private final ConfigImpl prototype;
+	private final ReflectiveConfig prototypeInstance;
+
+	private ConfigTemplate(ConfigBuilderImpl builder, ReflectiveConfig prototypeInstance) {
+		this.builder = builder;
+		this.prototype = builder.buildPrototype();
+		this.prototypeInstance = prototypeInstance;
+
+		for (TrackedValue<?> value : this.prototype.getTree().values()) {
+			((TrackedValueImpl<?>) value).snapshotCallbacks();
+		}
+
+		if (this.prototype.getEnvironment().getMemoryMode() == ConfigEnvironment.MemoryMode.COMPACT) {
+			this.prototype.compact();
+		}
+	}
+
+	/**
+	 * Creates a template for configs built by the given creators.
+	 *
+	 * <p>The {@link TrackedValue}s passed to the builder only describe the values of the created configs, and are not
+	 * part of any of them: each created config has its own copy of every value, which should be looked up through the
+	 * config. The passed values are never loaded or saved, and callbacks registered on them after this method returns
+	 * have no effect on the created configs.
+	 *
+	 * @param creators any number of {@link Config.Creator}s that can be used to configure the resulting configs
+	 */
+	public static ConfigTemplate<Config> of(ConfigEnvironment environment, Config.Creator... creators) {
+		ConfigBuilderImpl builder = new ConfigBuilderImpl(environment, "", "", Paths.get(""));
+
+		for (Config.Creator creator : creators) {
+			creator.create(builder);
+		}
+
+		return new ConfigTemplate<>(builder, null);
+	}
+
+	/**
+	 * Creates a template for configs with fields derived from the fields of the passed class, as described in
+	 * {@link ConfigFactory#create(ConfigEnvironment, String, String, Path, Config.Creator, Class, Config.Creator)}.
+	 *
+	 * @param before a {@link Config.Creator} that can be used to configure the resulting configs further
+	 * @param configCreatorClass a class as described above
+	 * @param after a {@link Config.Creator} that can be used to configure the resulting configs further
+	 */
+	public static <C extends ReflectiveConfig> ConfigTemplate<C> of(ConfigEnvironment environment, Config.Creator before, Class<C> configCreatorClass, Config.Creator after) {
+		ConfigBuilderImpl builder = new ConfigBuilderImpl(environment, "", "", Paths.get(""));
+		GeneratedConfigCreator<C> generated = GeneratedConfigCreator.of(configCreatorClass);
+		C instance;
+
+		before.create(builder);
+
+		if (generated != null) {
+			generated.create(builder);
+			instance = generated.getInstance();
+		} else {
+			ReflectiveConfigCreator<C> creator = ReflectiveConfigCreator.of(configCreatorClass);
+			creator.create(builder);
+			instance = creator.getInstance();
+		}
+
+		after.create(builder);
+
+		return new ConfigTemplate<>(builder, instance);
+	}
+
+	/**
+	 * Creates a template for configs with fields derived from the fields of the passed class, as described in
+	 * {@link ConfigFactory#create(ConfigEnvironment, String, String, Path, Config.Creator, Class, Config.Creator)}.
+	 *
+	 * @param configCreatorClass a class as described above
+	 */
+	public static <C extends ReflectiveConfig> ConfigTemplate<C> of(ConfigEnvironment environment, Class<C> configCreatorClass) {
+		return of(environment, builder -> {}, configCreatorClass, builder -> {});
+	}
+
+	/**
+	 * Creates and registers a config from this template.
+	 *
+	 * @param family the mod owning the resulting config file
+	 * @param id the config's id
+	 * @param path additional path elements to include as part of this config's file, as in
+	 *             {@link ConfigFactory#create(ConfigEnvironment, String, String, Path, Config.Creator...)}
+	 */
+	@SuppressWarnings("unchecked")
+	public C create(String family, String id, Path path) {
+		ConfigTree tree = this.prototype.getTree();
+		TrackedValueImpl<?>[] values = new TrackedValueImpl<?>[tree.size()];
+
+		if (this.prototypeInstance == null) {
+			return (C) this.builder.instantiate(this.prototype, family, id, path, values);
+		}
+
+		ReflectiveConfig instance = ReflectiveConfigCreator.instantiate(this.prototypeInstance, tree, values);
+		InternalsHelper.setWrappedConfig(instance, this.builder.instantiate(this.prototype, family, id, path, values));
+
+		return (C) instance;
+	}
+
+	/**
+	 * Creates and registers a config from this template.
+	 *
+	 * @param family the mod owning the resulting config file
+	 * @param id the config's id
+	 */
+	public C create(String family, String id) {
+		return this.create(family, id, Paths.get(""));
+	}
+}
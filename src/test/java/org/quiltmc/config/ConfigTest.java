@@ -22,32 +22,60 @@
 import org.junit.jupiter.api.Test;
 import org.quiltmc.config.api.Config;
 import org.quiltmc.config.api.ConfigEnvironment;
+import org.quiltmc.config.api.ConfigSync;
+import org.quiltmc.config.api.Configs;
 import org.quiltmc.config.api.Constraint;
+import org.quiltmc.config.api.LoadContext;
+import org.quiltmc.config.api.MarshallingUtils;
 import org.quiltmc.config.api.annotations.Comment;
+import org.quiltmc.config.api.annotations.ConfigFieldAnnotationProcessor;
 import org.quiltmc.config.api.annotations.SerializedName;
 import org.quiltmc.config.api.exceptions.ConfigCreationException;
 import org.quiltmc.config.api.exceptions.ConfigFieldException;
+import org.quiltmc.config.api.exceptions.ConfigParseException;
 import org.quiltmc.config.api.exceptions.TrackedValueException;
 import org.quiltmc.config.api.metadata.Comments;
 import org.quiltmc.config.api.metadata.MetadataType;
 import org.quiltmc.config.api.serializer.Json5Serializer;
 import org.quiltmc.config.api.serializer.TomlSerializer;
+import org.quiltmc.config.api.values.DerivedValue;
 import org.quiltmc.config.api.values.TrackedValue;
 import org.quiltmc.config.api.values.ValueList;
 import org.quiltmc.config.api.values.ValueMap;
+import org.quiltmc.config.api.values.ValueTreeNode;
+import org.quiltmc.config.impl.AbstractMetadataContainer;
 import org.quiltmc.config.impl.CommentsImpl;
+import org.quiltmc.config.impl.ConfigImpl;
+import org.quiltmc.config.impl.builders.GeneratedConfigCreator;
+import org.quiltmc.config.impl.builders.ReflectiveConfigCreator;
+import org.quiltmc.config.impl.tree.TrackedValueImpl;
+import org.quiltmc.config.impl.util.SerializerUtils;
 import org.quiltmc.config.implementor_api.ConfigFactory;
+import org.quiltmc.config.implementor_api.ConfigFootprint;
+import org.quiltmc.config.implementor_api.ConfigTemplate;
 import org.quiltmc.config.reflective.TestValueConfig3;
 import org.quiltmc.config.reflective.TestValueConfig4;
 import org.quiltmc.config.reflective.TestValueListConfig;
 import org.quiltmc.config.reflective.TestValueMapConfig;
 import org.quiltmc.config.reflective.TestReflectiveConfig;
+import org.quiltmc.config.reflective.TestProcessedConfig;
 import org.quiltmc.config.reflective.TestReflectiveConfig2;
+import org.quiltmc.config.reflective.TestWrappedConfig;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 @SuppressWarnings("deprecation")
 public class ConfigTest {
@@ -315,4 +343,791 @@ public void testInferredMetadataType() {
 			}
 		}
 	}
+
+	@Test
+	public void testLateMetadataTypes() {
+		TrackedValue<String> value = TrackedValue.create("", "createdFirst");
+		MetadataType<Comments, Comment.Builder> type = MetadataType.create(() -> Optional.of(new CommentsImpl(Collections.emptyList())), t -> Optional.of(new CommentsImpl(Collections.singletonList("inferred"))), Comment.Builder::new);
+
+		Assertions.assertTrue(value.hasMetadata(type));
+		Assertions.assertSame(value.metadata(type), value.metadata(type));
+		Assertions.assertEquals(Collections.singletonList("inferred"), toList(value.metadata(type)));
+		Assertions.assertFalse(value.hasMetadata(SerializedName.TYPE));
+		Assertions.assertNull(value.metadata(SerializedName.TYPE));
+	}
+
+	@Test
+	public void testDeferredInitialization() {
+		ConfigEnvironment env = new ConfigEnvironment(TestUtil.TEMP_DIR, TomlSerializer.INSTANCE, Json5Serializer.INSTANCE);
+		env.setDeferInitialization(true);
+
+		for (int i = 0; i < 16; ++i) {
+			ConfigFactory.create(env, "testmod_deferred", "testConfig" + i, TestReflectiveConfig.class);
+		}
+
+		Assertions.assertFalse(Files.exists(TestUtil.TEMP_DIR.resolve("testmod_deferred")));
+
+		List<Config> loaded = env.loadAll();
+
+		Assertions.assertEquals(16, loaded.size());
+
+		for (Config config : loaded) {
+			Assertions.assertTrue(Files.exists(TestUtil.TEMP_DIR.resolve("testmod_deferred").resolve(config.id() + ".toml")));
+		}
+
+		Assertions.assertTrue(env.loadAll().isEmpty());
+	}
+
+	@Test
+	public void testLazyLoading() throws IOException {
+		Files.createDirectories(TestUtil.TEMP_DIR.resolve("testmod_lazy"));
+		Files.write(TestUtil.TEMP_DIR.resolve("testmod_lazy").resolve("testConfig.json5"), "{ testInteger: 9 }".getBytes());
+
+		Config config = ConfigFactory.create(TestUtil.JSON5_ENV, "testmod_lazy", "testConfig", builder -> {
+			builder.lazy();
+			builder.field(TEST_INTEGER = TrackedValue.create(0, "testInteger"));
+		});
+
+		Assertions.assertEquals(9, TEST_INTEGER.value());
+		Assertions.assertTrue(Files.readAllLines(TestUtil.TEMP_DIR.resolve("testmod_lazy").resolve("testConfig.json5")).size() > 1);
+		Assertions.assertEquals(9, config.getValue(TEST_INTEGER.key()).value());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testWrappedConfigReload() throws ReflectiveOperationException {
+		TestWrappedConfig config = Config.create(ENV, "testmod", "wrappedReloadConfig", TestWrappedConfig.class);
+		TrackedValue<Integer> a = getValue(config, "a");
+		TrackedValue<Integer> b = getValue(config, "b");
+		TrackedValue<String> c = getValue(config, "c");
+		Field aField = TestWrappedConfig.class.getField("a");
+		Field cField = TestWrappedConfig.class.getField("c");
+		aField.setAccessible(true);
+		cField.setAccessible(true);
+
+		// Fields of values that do not change are left alone, so a field changed behind the binding's back keeps its value
+		cField.set(config, "untouched");
+
+		LoadContext context = LoadContext.create();
+		context.stage(a, 10);
+		context.stage(b, 20);
+		context.stage(c, new String("c"));
+		context.commit();
+
+		Assertions.assertEquals(10, (int) config.a);
+		Assertions.assertEquals(20, (int) config.b);
+		Assertions.assertEquals("untouched", config.c);
+
+		// Overrides are written to fields
+		LoadContext overrides = LoadContext.overriding();
+		overrides.stage(a, 99);
+		overrides.stage(c, "overridden");
+		overrides.commit();
+
+		Assertions.assertEquals(99, (int) config.a);
+		Assertions.assertEquals("overridden", config.c);
+
+		// A field that already holds the current value is not written again, even if the value changed underneath its override
+		aField.set(config, -1);
+
+		context = LoadContext.create();
+		context.stage(a, 11);
+		context.stage(b, 21);
+		context.commit();
+
+		Assertions.assertEquals(-1, (int) config.a);
+		Assertions.assertEquals(21, (int) config.b);
+
+		a.removeOverride();
+		c.removeOverride();
+
+		Assertions.assertEquals(11, (int) config.a);
+		Assertions.assertEquals("c", config.c);
+	}
+
+	@Test
+	public void testPartialLoadContext() {
+		TrackedValue<Integer> valid = TrackedValue.create(0, "valid");
+		TrackedValue<Integer> invalid = TrackedValue.create(0, "invalid", creator -> creator.constraint(Constraint.range(-10, 10)));
+		TrackedValue<Integer> overridden = TrackedValue.create(0, "overridden");
+		int[] updates = new int[1];
+
+		ConfigFactory.create(ENV, "testmod_partial", "testConfig", builder -> {
+			builder.field(valid);
+			builder.field(invalid);
+			builder.field(overridden);
+			builder.callback(c -> ++updates[0]);
+		});
+
+		LoadContext context = LoadContext.create();
+		context.stage(valid, 5);
+		context.stage(invalid, 50);
+		Assertions.assertThrows(TrackedValueException.class, context::commit);
+		Assertions.assertEquals(5, valid.value());
+		Assertions.assertEquals(0, invalid.value());
+		Assertions.assertEquals(1, updates[0]);
+
+		// Changing the real value of an overridden value doesn't notify its config
+		overridden.setOverride(3);
+		updates[0] = 0;
+		context.stage(overridden, 7);
+		Assertions.assertEquals(Collections.singleton(overridden.key()), context.commit());
+		Assertions.assertEquals(3, overridden.value());
+		Assertions.assertEquals(7, overridden.getRealValue());
+		Assertions.assertEquals(0, updates[0]);
+	}
+
+	@Test
+	public void testFailedLazyLoading() throws IOException {
+		TrackedValue<Integer> value = TrackedValue.create(0, "testInteger");
+		ConfigImpl config = (ConfigImpl) ConfigFactory.create(ENV, "testmod_lazy_failure", "testConfig", builder -> {
+			builder.lazy();
+			builder.field(value);
+		});
+
+		// A directory in place of the file can't be read
+		Files.createDirectories(config.getPath());
+		Assertions.assertThrows(ConfigParseException.class, value::value);
+		Assertions.assertTrue(Files.isDirectory(config.getPath()));
+
+		Files.delete(config.getPath());
+		Assertions.assertEquals(0, value.value());
+		Assertions.assertTrue(Files.isRegularFile(config.getPath()));
+	}
+
+	@Test
+	public void testBulkLoadCallbacks() throws IOException {
+		Files.createDirectories(TestUtil.TEMP_DIR.resolve("testmod_bulk"));
+		Files.write(TestUtil.TEMP_DIR.resolve("testmod_bulk").resolve("testConfig.json5"), "{ testInteger: 9, testBoolean: true, testString: \"blah\" }".getBytes());
+
+		int[] updates = new int[1];
+
+		ConfigFactory.create(TestUtil.JSON5_ENV, "testmod_bulk", "testConfig", builder -> {
+			builder.field(TEST_INTEGER = TrackedValue.create(0, "testInteger"));
+			builder.field(TEST_BOOLEAN = TrackedValue.create(false, "testBoolean"));
+			builder.field(TEST_STRING  = TrackedValue.create("blah", "testString"));
+			builder.callback(c -> ++updates[0]);
+		});
+
+		Assertions.assertEquals(1, updates[0]);
+		Assertions.assertEquals(9, TEST_INTEGER.value());
+		Assertions.assertEquals(true, TEST_BOOLEAN.value());
+	}
+
+	@Test
+	public void testSparseSave() throws IOException {
+		Path directory = TestUtil.TEMP_DIR.resolve("testmod_sparse");
+
+		Config config = ConfigFactory.create(TestUtil.JSON5_ENV, "testmod_sparse", "testConfig", builder -> {
+			builder.sparse(true);
+			builder.field(TEST_INTEGER = TrackedValue.create(0, "testInteger"));
+			builder.field(TEST_BOOLEAN = TrackedValue.create(false, "testBoolean"));
+		});
+
+		Assertions.assertFalse(config.modifiedValues().iterator().hasNext());
+
+		TEST_INTEGER.setValue(5, true);
+
+		String contents = new String(Files.readAllBytes(directory.resolve("testConfig.json5")));
+		Assertions.assertTrue(contents.contains("testInteger"));
+		Assertions.assertFalse(contents.contains("testBoolean"));
+		Assertions.assertTrue(new String(Files.readAllBytes(directory.resolve("testConfig.defaults.json5"))).contains("testBoolean"));
+		Assertions.assertEquals(Collections.singletonList(TEST_INTEGER), toList(config.modifiedValues()));
+
+		TEST_INTEGER.setValue(0, true);
+		Assertions.assertFalse(config.modifiedValues().iterator().hasNext());
+	}
+
+	@Test
+	public void testVersions() {
+		TrackedValue<Integer> outer = TrackedValue.create(0, "outer");
+		TrackedValue<Integer> inner = TrackedValue.create(0, "inner");
+		TrackedValue<ValueList<Integer>> list = TrackedValue.create(ValueList.create(0), "list");
+
+		Config config = ConfigFactory.create(ENV, "testmod_versions", "testConfig", builder -> {
+			builder.field(outer);
+			builder.section("section", section -> {
+				section.field(inner);
+				section.field(list);
+			});
+		});
+
+		ValueTreeNode section = config.getNode(Collections.singletonList("section"));
+		long version = config.version();
+
+		inner.setValue(1, false);
+		Assertions.assertTrue(inner.version() > version);
+		Assertions.assertEquals(inner.version(), section.version());
+		Assertions.assertEquals(inner.version(), config.version());
+		Assertions.assertEquals(0, outer.version());
+
+		version = config.version();
+		outer.setOverride(5);
+		Assertions.assertTrue(config.version() > version);
+		Assertions.assertEquals(inner.version(), section.version());
+
+		version = config.version();
+		outer.removeOverride();
+		Assertions.assertTrue(config.version() > version);
+
+		version = config.version();
+		outer.removeOverride();
+		Assertions.assertEquals(version, config.version());
+
+		list.value().add(3);
+		Assertions.assertEquals(list.version(), section.version());
+		Assertions.assertTrue(config.version() > version);
+	}
+
+	@Test
+	public void testConcurrentRegistry() throws InterruptedException {
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread[] threads = new Thread[4];
+
+		for (int t = 0; t < threads.length; t++) {
+			String prefix = "thread" + t + "_";
+
+			threads[t] = new Thread(() -> {
+				try {
+					for (int i = 0; i < 50; i++) {
+						ConfigFactory.create(ENV, "testmod_registry", prefix + i, builder -> builder.field(TrackedValue.create(0, "value")));
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			threads[t].start();
+		}
+
+		boolean running = true;
+
+		while (running) {
+			running = false;
+
+			for (Thread thread : threads) {
+				running |= thread.isAlive();
+			}
+
+			Config previous = null;
+
+			for (Config config : Configs.getAll()) {
+				if (previous != null) {
+					int order = previous.family().compareTo(config.family());
+					Assertions.assertTrue(order < 0 || order == 0 && previous.id().compareTo(config.id()) < 0);
+				}
+
+				previous = config;
+			}
+		}
+
+		Assertions.assertNull(failure.get());
+		Assertions.assertEquals(200, toList(Configs.getConfigs("testmod_registry")).size());
+		Assertions.assertNotNull(Configs.getConfig("testmod_registry", "thread3_49"));
+		Assertions.assertNull(Configs.getConfig("testmod_registry", "thread4_0"));
+	}
+
+	@Test
+	public void testConcurrentProcessorRegistration() throws InterruptedException {
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<TestProcessedConfig> configs = Collections.synchronizedList(new ArrayList<>());
+		Thread[] threads = new Thread[4];
+
+		for (int t = 0; t < threads.length; t++) {
+			String prefix = "thread" + t + "_";
+
+			threads[t] = new Thread(() -> {
+				try {
+					for (int i = 0; i < 50; i++) {
+						configs.add(ConfigFactory.create(ENV, "testmod_processors", prefix + i, TestProcessedConfig.class));
+					}
+				} catch (Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			threads[t].start();
+		}
+
+		for (int i = 0; i < 50; i++) {
+			String line = "processor" + i;
+			ConfigFieldAnnotationProcessor.register(TestProcessedConfig.Processed.class, (annotation, builder) -> builder.metadata(Comment.TYPE, comments -> comments.add(line)));
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assertions.assertNull(failure.get());
+		Assertions.assertEquals(200, configs.size());
+
+		// Each config ran some prefix of the processor chain, in registration order
+		for (TestProcessedConfig config : configs) {
+			List<String> comments = toList(config.value.metadata(Comment.TYPE));
+
+			for (int i = 0; i < comments.size(); i++) {
+				Assertions.assertEquals("processor" + i, comments.get(i));
+			}
+		}
+
+		TestProcessedConfig last = ConfigFactory.create(ENV, "testmod_processors", "last", TestProcessedConfig.class);
+		Assertions.assertEquals(50, toList(last.value.metadata(Comment.TYPE)).size());
+	}
+
+	@Test
+	public void testCompactMemoryMode() {
+		ConfigEnvironment compactEnv = new ConfigEnvironment(TestUtil.TEMP_DIR, ENV.getSerializer(ENV.getDefaultFormat()));
+		compactEnv.setMemoryMode(ConfigEnvironment.MemoryMode.COMPACT);
+
+		List<Config> normal = Arrays.asList(
+				ConfigFactory.create(ENV, "testmod_memory", "normal1", TestReflectiveConfig.class),
+				ConfigFactory.create(ENV, "testmod_memory", "normal2", TestReflectiveConfig.class)
+		);
+		TestReflectiveConfig compact1 = ConfigFactory.create(compactEnv, "testmod_memory", "compact1", TestReflectiveConfig.class);
+		TestReflectiveConfig compact2 = ConfigFactory.create(compactEnv, "testmod_memory", "compact2", TestReflectiveConfig.class);
+
+		Assertions.assertSame(compact1.b.metadata(Comment.TYPE), compact2.b.metadata(Comment.TYPE));
+		Assertions.assertSame(compact1.a.metadata(SerializedName.TYPE), compact2.a.metadata(SerializedName.TYPE));
+		Assertions.assertEquals(Arrays.asList("Comment one", "Comment two"), toList(compact1.b.metadata(Comment.TYPE)));
+
+		// Metadata is only shared within an environment, and released along with it
+		ConfigEnvironment otherEnv = new ConfigEnvironment(TestUtil.TEMP_DIR, ENV.getSerializer(ENV.getDefaultFormat()));
+		otherEnv.setMemoryMode(ConfigEnvironment.MemoryMode.COMPACT);
+		TestReflectiveConfig other = ConfigFactory.create(otherEnv, "testmod_memory", "compact3", TestReflectiveConfig.class);
+
+		Assertions.assertNotSame(compact1.b.metadata(Comment.TYPE), other.b.metadata(Comment.TYPE));
+		Assertions.assertEquals(compactEnv.getInternTable().size(), otherEnv.getInternTable().size());
+		Assertions.assertEquals(0, ENV.getInternTable().size());
+
+		ConfigFootprint before = ConfigFootprint.of(normal);
+		ConfigFootprint after = ConfigFootprint.of(Arrays.asList(compact1, compact2));
+		System.out.println("Default: " + before);
+		System.out.println("Compact: " + after);
+
+		Assertions.assertEquals(before.commentLines(), after.commentLines());
+		Assertions.assertEquals(0, after.cachedLines());
+		Assertions.assertTrue(after.bytes() < before.bytes());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCommentBlockInvalidation() {
+		TrackedValue<Integer> value = TrackedValue.create(5, "value", builder -> {
+			builder.metadata(Comment.TYPE, comments -> comments.add("First"));
+			builder.constraint(Constraint.range(0, 10));
+		});
+		TrackedValue<Integer> other = TrackedValue.create(5, "other", builder -> builder.metadata(Comment.TYPE, comments -> comments.add("Second")));
+
+		ConfigFactory.create(ENV, "testmod_comments", "testConfig", builder -> {
+			builder.field(value);
+			builder.field(other);
+		});
+
+		SerializerUtils.CommentBlock block = SerializerUtils.getCommentBlock(value);
+		Assertions.assertEquals(Arrays.asList("First", "range[0, 10]", "default: 5"), block.lines());
+		Assertions.assertSame(block, SerializerUtils.getCommentBlock(value));
+
+		// A constraint replaced in place
+		List<Constraint<Integer>> constraints = ((TrackedValueImpl<Integer>) value).constraints;
+		constraints.set(0, Constraint.range(0, 20));
+		block = SerializerUtils.getCommentBlock(value);
+		Assertions.assertEquals(Arrays.asList("First", "range[0, 20]", "default: 5"), block.lines());
+		Assertions.assertSame(block, SerializerUtils.getCommentBlock(value));
+
+		// A constraint added
+		constraints.add(Constraint.range(1, 20));
+		Assertions.assertEquals(Arrays.asList("First", "range[0, 20]", "range[1, 20]", "default: 5"), SerializerUtils.getCommentBlock(value).lines());
+
+		// Comments replaced along with the rest of the metadata
+		((AbstractMetadataContainer) value).copyMetadataFrom((AbstractMetadataContainer) other);
+		Assertions.assertEquals(Arrays.asList("Second", "range[0, 20]", "range[1, 20]", "default: 5"), SerializerUtils.getCommentBlock(value).lines());
+	}
+
+	@Test
+	public void testConfigTemplates() {
+		ConfigTemplate<TestReflectiveConfig> template = ConfigTemplate.of(ENV, TestReflectiveConfig.class);
+		TestReflectiveConfig world1 = template.create("testmod_template", "world1");
+		TestReflectiveConfig world2 = template.create("testmod_template", "world2");
+
+		Assertions.assertSame(world1.b.key(), world2.b.key());
+		Assertions.assertSame(world1.b.metadata(Comment.TYPE), world2.b.metadata(Comment.TYPE));
+		Assertions.assertEquals("george", world2.a.metadata(SerializedName.TYPE).getName());
+		Assertions.assertTrue(world2.d.checkForFailingConstraints(11).isPresent());
+		Assertions.assertSame(world2.nested1.d, world2.getValue(world2.nested1.d.key()));
+		Assertions.assertEquals("custom_serialized_name_a", world2.nested3.a.metadata(SerializedName.TYPE).getName());
+
+		world1.c.setValue(5, true);
+		world1.enabled.value().add("world1");
+		Assertions.assertEquals(5, world1.c.value());
+		Assertions.assertEquals(2, world2.c.value());
+		Assertions.assertTrue(world2.enabled.value().isEmpty());
+
+		ConfigTemplate<Config> players = ConfigTemplate.of(ENV, builder -> builder.section("stats", section -> section.field(TrackedValue.create(0, "level"))));
+		Config player1 = players.create("testmod_template", "player1", Paths.get("players"));
+		Config player2 = players.create("testmod_template", "player2", Paths.get("players"));
+
+		TrackedValue<Integer> level = getValue(player1, "stats", "level");
+		level.setValue(10, true);
+		Assertions.assertEquals(10, level.value());
+		Assertions.assertEquals(0, getValue(player2, "stats", "level").value());
+		Assertions.assertSame(level, ((ValueTreeNode.Section) player1.nodes().iterator().next()).iterator().next());
+
+		// Callbacks are taken from the passed values when the template is built, and registered per config afterwards
+		List<String> calls = Collections.synchronizedList(new ArrayList<>());
+		TrackedValue<Integer> score = TrackedValue.create(0, "score", builder -> builder.callback(value -> calls.add("template")));
+		ConfigTemplate<Config> scores = ConfigTemplate.of(ENV, builder -> builder.field(score));
+		score.registerCallback(value -> calls.add("late"));
+
+		Config scores1 = scores.create("testmod_template", "scores1");
+		Config scores2 = scores.create("testmod_template", "scores2");
+		TrackedValue<Integer> score1 = getValue(scores1, "score");
+		TrackedValue<Integer> score2 = getValue(scores2, "score");
+		Assertions.assertNotSame(score, score1);
+
+		score1.registerCallback(value -> calls.add("scores1"));
+		score1.setValue(1, true);
+		score2.setValue(1, true);
+		Assertions.assertEquals(Arrays.asList("template", "scores1", "template"), calls);
+	}
+
+	@Test
+	public void testRuntimeSchemaChanges() throws InterruptedException {
+		Config config = ConfigFactory.create(ENV, "testmod_runtime", "testConfig", builder -> {
+			builder.field(TrackedValue.create(0, "a"));
+			builder.section("dimensions", section -> section.field(TrackedValue.create(0, "overworld")));
+		});
+		ValueTreeNode.Section dimensions = (ValueTreeNode.Section) config.getNode(Collections.singletonList("dimensions"));
+
+		Iterator<TrackedValue<?>> values = config.values().iterator();
+		Iterator<ValueTreeNode> children = dimensions.iterator();
+		Assertions.assertEquals("a", values.next().key().toString());
+
+		TrackedValue<Integer> nether = TrackedValue.create(1, "dimensions", "nether");
+		config.addValue(nether);
+		config.addSection(Collections.singletonList("extra"), section -> section.field(TrackedValue.create("", "name")));
+		Assertions.assertTrue(config.removeNode(Collections.singletonList("a")));
+		Assertions.assertFalse(config.removeNode(Collections.singletonList("a")));
+
+		// Iterations that started before the changes see the values they started with
+		Assertions.assertEquals("dimensions.overworld", values.next().key().toString());
+		Assertions.assertFalse(values.hasNext());
+		Assertions.assertEquals("dimensions.overworld", children.next().key().toString());
+		Assertions.assertFalse(children.hasNext());
+
+		Assertions.assertNull(config.getNode(Collections.singletonList("a")));
+		Assertions.assertSame(nether, getValue(config, "dimensions", "nether"));
+		// Each tree has its own view of a section, which only iterates over the children in that tree
+		ValueTreeNode.Section currentDimensions = (ValueTreeNode.Section) config.getNode(Collections.singletonList("dimensions"));
+		Assertions.assertEquals(1, toList(dimensions).size());
+		Assertions.assertEquals(2, toList(currentDimensions).size());
+		Assertions.assertEquals("", getValue(config, "extra", "name").value());
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> config.addValue(TrackedValue.create(0, "dimensions", "nether")));
+
+		nether.setValue(2, true);
+		Assertions.assertEquals(2, nether.value());
+		Assertions.assertEquals(nether.version(), currentDimensions.version());
+		Assertions.assertEquals(nether.version(), dimensions.version());
+
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			try {
+				for (int i = 0; i < 200; i++) {
+					for (TrackedValue<?> value : config.values()) {
+						Assertions.assertNotNull(value.key());
+					}
+
+					for (ValueTreeNode child : (ValueTreeNode.Section) config.getNode(Collections.singletonList("dimensions"))) {
+						Assertions.assertEquals("dimensions", child.key().getKeyComponent(0));
+					}
+				}
+			} catch (Throwable t) {
+				failure.set(t);
+			}
+		});
+		reader.start();
+
+		for (int i = 0; i < 200; i++) {
+			config.addValue(TrackedValue.create(i, "dimensions", "dimension" + i));
+			config.removeNode(Arrays.asList("dimensions", "dimension" + i));
+		}
+
+		reader.join();
+		Assertions.assertNull(failure.get());
+	}
+
+	@Test
+	public void testAddingToExistingSection() {
+		TrackedValue<Integer> overworld = TrackedValue.create(0, "overworld");
+		Config config = ConfigFactory.create(ENV, "testmod_runtime", "existingSectionConfig", builder -> builder.section("dimensions", section -> {
+			section.metadata(Comment.TYPE, comments -> comments.add("Known dimensions"));
+			section.metadata(SerializedName.TYPE, name -> name.withName("dims"));
+			section.field(overworld);
+		}));
+
+		TrackedValue<Integer> nether = TrackedValue.create(1, "nether");
+		config.addSection(Collections.singletonList("dimensions"), section -> section.field(nether));
+
+		// The section keeps its metadata, so it is still written under the same name
+		ValueTreeNode.Section dimensions = (ValueTreeNode.Section) config.getNode(Collections.singletonList("dimensions"));
+		Assertions.assertEquals(Collections.singletonList("Known dimensions"), toList(dimensions.metadata(Comment.TYPE)));
+		Assertions.assertEquals("dims", dimensions.metadata(SerializedName.TYPE).getName());
+		Assertions.assertEquals(2, toList(dimensions).size());
+
+		// Values that were in the section before still raise its version
+		overworld.setValue(5, false);
+		Assertions.assertEquals(overworld.version(), dimensions.version());
+		nether.setValue(6, false);
+		Assertions.assertEquals(nether.version(), dimensions.version());
+
+		// Metadata given when adding to the section replaces that of the same type only
+		config.addSection(Collections.singletonList("dimensions"), section -> section.metadata(Comment.TYPE, comments -> comments.add("All dimensions")));
+		ValueTreeNode.Section commented = (ValueTreeNode.Section) config.getNode(Collections.singletonList("dimensions"));
+		Assertions.assertEquals(Collections.singletonList("All dimensions"), toList(commented.metadata(Comment.TYPE)));
+		Assertions.assertEquals("dims", commented.metadata(SerializedName.TYPE).getName());
+		Assertions.assertEquals(Collections.singletonList("Known dimensions"), toList(dimensions.metadata(Comment.TYPE)));
+
+		overworld.setValue(7, false);
+		Assertions.assertEquals(overworld.version(), commented.version());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> TrackedValue<T> getValue(Config config, String... key) {
+		return (TrackedValue<T>) config.getValue(Arrays.asList(key));
+	}
+
+	@Test
+	public void testGeneratedCreators() {
+		Assertions.assertNotNull(GeneratedConfigCreator.of(TestReflectiveConfig.class));
+
+		TestReflectiveConfig config = ConfigFactory.create(ENV, "testmod_generated", "testConfig", TestReflectiveConfig.class);
+		Assertions.assertEquals("george", config.a.metadata(SerializedName.TYPE).getName());
+		Assertions.assertTrue(config.d.checkForFailingConstraints(11).isPresent());
+		Assertions.assertEquals(Arrays.asList("Comment one", "Comment two"), toList(config.b.metadata(Comment.TYPE)));
+	}
+
+	@Test
+	public void testGeneratedAndReflectiveCreatorsMatch() {
+		GeneratedConfigCreator<TestReflectiveConfig> generated = GeneratedConfigCreator.of(TestReflectiveConfig.class);
+		ReflectiveConfigCreator<TestReflectiveConfig> reflective = ReflectiveConfigCreator.of(TestReflectiveConfig.class);
+		Assertions.assertNotNull(generated);
+
+		int configsProcessed = TestReflectiveConfig.configsProcessed;
+		int fieldsProcessed = TestReflectiveConfig.fieldsProcessed;
+		Config generatedConfig = ConfigImpl.create(ENV, "testmod_creators", "generated", generated);
+		Assertions.assertEquals(configsProcessed + 1, TestReflectiveConfig.configsProcessed);
+		Assertions.assertEquals(fieldsProcessed + 1, TestReflectiveConfig.fieldsProcessed);
+		Config reflectiveConfig = ConfigImpl.create(ENV, "testmod_creators", "reflective", reflective);
+		Assertions.assertEquals(configsProcessed + 2, TestReflectiveConfig.configsProcessed);
+		Assertions.assertEquals(fieldsProcessed + 2, TestReflectiveConfig.fieldsProcessed);
+
+		List<ValueTreeNode> generatedNodes = toList(generatedConfig.nodes());
+		List<ValueTreeNode> reflectiveNodes = toList(reflectiveConfig.nodes());
+		Assertions.assertEquals(reflectiveNodes.size(), generatedNodes.size());
+
+		for (int i = 0; i < reflectiveNodes.size(); i++) {
+			ValueTreeNode expected = reflectiveNodes.get(i);
+			ValueTreeNode actual = generatedNodes.get(i);
+			Assertions.assertEquals(expected.key(), actual.key());
+			Assertions.assertEquals(expected.getClass(), actual.getClass());
+			Assertions.assertEquals(expected.metadata().keySet(), actual.metadata().keySet(), expected.key().toString());
+
+			for (Map.Entry<MetadataType<?, ?>, Object> entry : expected.metadata().entrySet()) {
+				Assertions.assertEquals(describe(entry.getValue()), describe(actual.metadata().get(entry.getKey())), expected.key().toString());
+			}
+
+			if (expected instanceof TrackedValue) {
+				Assertions.assertEquals(describe(((TrackedValue<?>) expected).constraints()), describe(((TrackedValue<?>) actual).constraints()));
+				Assertions.assertEquals(((TrackedValue<?>) expected).getDefaultValue(), ((TrackedValue<?>) actual).getDefaultValue());
+			}
+		}
+
+		TestReflectiveConfig generatedInstance = generated.getInstance();
+		TestReflectiveConfig reflectiveInstance = reflective.getInstance();
+		Assertions.assertSame(generatedInstance.d, generatedConfig.getValue(Collections.singletonList("d")));
+		Assertions.assertSame(reflectiveInstance.d, reflectiveConfig.getValue(Collections.singletonList("d")));
+		Assertions.assertTrue(reflectiveInstance.d.checkForFailingConstraints(11).isPresent());
+		Assertions.assertTrue(generatedInstance.d.checkForFailingConstraints(11).isPresent());
+		Assertions.assertTrue(reflectiveInstance.whatever.checkForFailingConstraints("1").isPresent());
+		Assertions.assertTrue(generatedInstance.whatever.checkForFailingConstraints("1").isPresent());
+	}
+
+	/**
+	 * Describes a piece of metadata by its contents, since most metadata types don't implement {@code equals}.
+	 */
+	private static Object describe(Object metadata) {
+		if (metadata instanceof Constraint) {
+			return ((Constraint<?>) metadata).getRepresentation();
+		} else if (metadata instanceof Iterable) {
+			List<Object> described = new ArrayList<>();
+
+			for (Object element : (Iterable<?>) metadata) {
+				described.add(describe(element));
+			}
+
+			return described;
+		}
+
+		return metadata;
+	}
+
+	@Test
+	public void testDerivedValues() {
+		TrackedValue<ValueList<String>> names = TrackedValue.create(ValueList.create("", "a", "b"), "names");
+		TrackedValue<Boolean> upper = TrackedValue.create(false, "upper");
+
+		Config config = ConfigFactory.create(ENV, "testmod_derived", "testConfig", builder -> {
+			builder.field(names);
+			builder.field(upper);
+		});
+
+		int[] computations = new int[1];
+		DerivedValue<String> joined = config.derive(() -> {
+			++computations[0];
+			String value = String.join(",", names.value());
+			return upper.value() ? value.toUpperCase() : value;
+		}, names, upper);
+
+		Assertions.assertEquals(0, computations[0]);
+		Assertions.assertEquals("a,b", joined.value());
+		Assertions.assertEquals("a,b", joined.value());
+		Assertions.assertEquals(1, computations[0]);
+
+		names.value().add("c");
+		upper.setOverride(true);
+		Assertions.assertEquals("A,B,C", joined.value());
+		Assertions.assertEquals("A,B,C", joined.value());
+		Assertions.assertEquals(2, computations[0]);
+	}
+
+	@Test
+	public void testConstantHandles() throws Throwable {
+		TrackedValue<Boolean> flag = TrackedValue.create(false, "flag");
+		TrackedValue<TestEnum> mode = TrackedValue.create(TestEnum.ALPHA, "mode");
+
+		ConfigFactory.create(ENV, "testmod_constants", "testConfig", builder -> {
+			builder.field(flag);
+			builder.field(mode);
+		});
+
+		MethodHandle flagHandle = flag.constantHandle();
+		MethodHandle modeHandle = mode.constantHandle();
+
+		Assertions.assertSame(flagHandle, flag.constantHandle());
+		Assertions.assertFalse((boolean) flagHandle.invokeExact());
+		Assertions.assertEquals(TestEnum.ALPHA, (TestEnum) modeHandle.invokeExact());
+
+		flag.setValue(true, false);
+		mode.setOverride(TestEnum.GAMMA);
+		Assertions.assertTrue((boolean) flagHandle.invokeExact());
+		Assertions.assertEquals(TestEnum.GAMMA, (TestEnum) modeHandle.invokeExact());
+
+		mode.removeOverride();
+		Assertions.assertEquals(TestEnum.ALPHA, (TestEnum) modeHandle.invokeExact());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSync() {
+		List<TrackedValue<?>> serverValues = new ArrayList<>();
+		List<TrackedValue<?>> clientValues = new ArrayList<>();
+		Config server = createSyncConfig("server", serverValues);
+		Config client = createSyncConfig("client", clientValues);
+		TrackedValue<Integer> clientInteger = (TrackedValue<Integer>) clientValues.get(0);
+
+		ConfigSync serverSync = new ConfigSync(server);
+		ConfigSync clientSync = new ConfigSync(client);
+		int[] updates = new int[1];
+		client.registerCallback(c -> ++updates[0]);
+
+		long acked = clientSync.apply(serverSync.snapshot());
+		Assertions.assertEquals(server.version(), acked);
+		Assertions.assertEquals(0, updates[0]);
+		Assertions.assertTrue(clientInteger.isBeingOverridden());
+
+		((TrackedValue<Integer>) serverValues.get(0)).setValue(-1234, false);
+		((TrackedValue<ValueList<String>>) serverValues.get(2)).value().add("synced");
+
+		byte[] delta = serverSync.delta(acked);
+		Assertions.assertTrue(delta.length < serverSync.snapshot().length);
+
+		acked = clientSync.apply(delta);
+		Assertions.assertEquals(server.version(), acked);
+		Assertions.assertEquals(1, updates[0]);
+		Assertions.assertEquals(-1234, clientInteger.value());
+		Assertions.assertEquals(0, clientInteger.getRealValue());
+		Assertions.assertEquals(server.getValue(serverValues.get(2).key()).value(), clientValues.get(2).value());
+
+		clientSync.apply(serverSync.delta(acked));
+		Assertions.assertEquals(1, updates[0]);
+
+		Config other = ConfigFactory.create(ENV, "testmod_sync", "other", builder -> builder.field(TrackedValue.create(0, "integer")));
+		Assertions.assertThrows(ConfigParseException.class, () -> new ConfigSync(other).apply(delta));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSyncAfterEditingValues() {
+		List<TrackedValue<?>> serverValues = new ArrayList<>();
+		List<TrackedValue<?>> clientValues = new ArrayList<>();
+		Config server = createSyncConfig("editedServer", serverValues);
+		Config client = createSyncConfig("editedClient", clientValues);
+		ConfigSync serverSync = new ConfigSync(server);
+		ConfigSync clientSync = new ConfigSync(client);
+		long acked = clientSync.apply(serverSync.snapshot());
+
+		// Deltas are rejected while the configs don't have the same values
+		TrackedValue<Integer> serverAdded = TrackedValue.create(0, "added");
+		server.addValue(serverAdded);
+		serverAdded.setValue(5, false);
+		byte[] added = serverSync.snapshot();
+		Assertions.assertThrows(ConfigParseException.class, () -> clientSync.apply(added));
+
+		TrackedValue<Integer> clientAdded = TrackedValue.create(0, "added");
+		client.addValue(clientAdded);
+		acked = clientSync.apply(serverSync.snapshot());
+		Assertions.assertEquals(5, clientAdded.value());
+
+		// Removed values are no longer sent, and ids are assigned again from the remaining values
+		TrackedValue<Integer> clientInteger = (TrackedValue<Integer>) clientValues.get(0);
+		clientInteger.removeOverride();
+		server.removeNode(Collections.singletonList("integer"));
+		client.removeNode(Collections.singletonList("integer"));
+		((TrackedValue<Integer>) serverValues.get(0)).setValue(99, false);
+		((TrackedValue<ValueList<String>>) serverValues.get(2)).value().add("synced");
+
+		clientSync.apply(serverSync.delta(acked));
+		Assertions.assertFalse(clientInteger.isBeingOverridden());
+		Assertions.assertEquals(server.getValue(serverValues.get(2).key()).value(), clientValues.get(2).value());
+	}
+
+	private static Config createSyncConfig(String id, List<TrackedValue<?>> values) {
+		return ConfigFactory.create(ENV, "testmod_sync", id, builder -> {
+			builder.field(track(values, TrackedValue.create(0, "integer")));
+			builder.section("section", section -> section.field(track(values, TrackedValue.create(TestEnum.ALPHA, "enum"))));
+			builder.field(track(values, TrackedValue.create(ValueList.create(""), "list")));
+			builder.field(track(values, TrackedValue.create(ValueMap.builder(0.0).put("pi", 3.14).build(), "map")));
+		});
+	}
+
+	private static <T> TrackedValue<T> track(List<TrackedValue<?>> values, TrackedValue<T> value) {
+		values.add(value);
+		return value;
+	}
+
+	private static <T> List<T> toList(Iterable<T> iterable) {
+		List<T> list = new ArrayList<>();
+		iterable.forEach(list::add);
+		return list;
+	}
+
+	@Test
+	public void testCoercer() {
+		MarshallingUtils.ValueMapCreator<Map<String, ?>> mapCreator = (map, entryConsumer) -> map.forEach(entryConsumer::put);
+		MarshallingUtils.Coercer coercer = MarshallingUtils.coercer(ValueList.create(TestEnum.ALPHA));
+
+		Assertions.assertEquals(ValueList.create(TestEnum.ALPHA, TestEnum.BETA, TestEnum.ALPHA, TestEnum.GAMMA), coercer.coerce(Arrays.asList("beta", "Alpha", "GAMMA"), mapCreator));
+		Assertions.assertThrows(ConfigParseException.class, () -> coercer.coerce(Collections.singletonList("delta"), mapCreator));
+	}
+
+	private enum TestEnum {
+		ALPHA, BETA, GAMMA
+	}
 }
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.config;
+
+import org.quiltmc.config.api.StreamingSerializer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A minimal {@link StreamingSerializer} that writes one token per line, used to test the streaming SPI on its own.
+ */
+public final class LineSerializer extends StreamingSerializer {
+	public static final LineSerializer INSTANCE = new LineSerializer();
+
+	private LineSerializer() {
+
+	}
+
+	@Override
+	public String getFileExtension() {
+		return "lines";
+	}
+
+	@Override
+	protected StreamingSerializer.Writer createWriter(OutputStream to) {
+		return new LineWriter(new PrintWriter(new OutputStreamWriter(to, StandardCharsets.UTF_8)));
+	}
+
+	@Override
+	protected StreamingSerializer.Reader createReader(InputStream from) throws IOException {
+		List<String> lines = new ArrayList<>();
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(from, StandardCharsets.UTF_8))) {
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+				if (!line.startsWith("#")) {
+					lines.add(line);
+				}
+			}
+		}
+
+		return new LineReader(lines);
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\n", "\\n");
+	}
+
+	private static String unescape(String value) {
+		StringBuilder builder = new StringBuilder(value.length());
+
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+
+			if (c == '\\' && i + 1 < value.length()) {
+				c = value.charAt(++i) == 'n' ? '\n' : value.charAt(i);
+			}
+
+			builder.append(c);
+		}
+
+		return builder.toString();
+	}
+
+	private static final class LineWriter implements StreamingSerializer.Writer {
+		private final PrintWriter writer;
+
+		private LineWriter(PrintWriter writer) {
+			this.writer = writer;
+		}
+
+		private void comments(List<String> comments) {
+			for (String comment : comments) {
+				this.writer.println("#" + escape(comment));
+			}
+		}
+
+		@Override
+		public void beginConfig(List<String> comments) {
+			this.comments(comments);
+			this.writer.println("{");
+		}
+
+		@Override
+		public void endConfig() {
+			this.writer.println("}");
+		}
+
+		@Override
+		public void beginSection(String name, List<String> comments) {
+			this.comments(comments);
+			this.writer.println("N:" + escape(name));
+			this.writer.println("{");
+		}
+
+		@Override
+		public void endSection() {
+			this.writer.println("}");
+		}
+
+		@Override
+		public void beginValue(String name, List<String> comments) {
+			this.comments(comments);
+			this.writer.println("N:" + escape(name));
+		}
+
+		@Override
+		public void endValue() {
+
+		}
+
+		@Override
+		public void beginList(int size) {
+			this.writer.println("[");
+		}
+
+		@Override
+		public void endList() {
+			this.writer.println("]");
+		}
+
+		@Override
+		public void beginMap(int size) {
+			this.writer.println("{");
+		}
+
+		@Override
+		public void key(String key) {
+			this.writer.println("N:" + escape(key));
+		}
+
+		@Override
+		public void endMap() {
+			this.writer.println("}");
+		}
+
+		@Override
+		public void value(Number value) {
+			boolean integral = value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+			this.writer.println((integral ? "L:" : "D:") + value);
+		}
+
+		@Override
+		public void value(boolean value) {
+			this.writer.println("B:" + value);
+		}
+
+		@Override
+		public void value(String value) {
+			this.writer.println("S:" + escape(value));
+		}
+
+		@Override
+		public void nullValue() {
+			this.writer.println("0");
+		}
+
+		@Override
+		public void close() {
+			this.writer.close();
+		}
+	}
+
+	private static final class LineReader implements StreamingSerializer.Reader {
+		private final List<String> lines;
+		private int index;
+
+		private LineReader(List<String> lines) {
+			this.lines = lines;
+		}
+
+		private String next(Token expected) throws IOException {
+			if (this.peek() != expected) {
+				throw new IOException("Expected " + expected + " but found " + this.peek() + " on token " + this.index);
+			}
+
+			return this.lines.get(this.index++);
+		}
+
+		@Override
+		public Token peek() {
+			if (this.index >= this.lines.size()) {
+				return Token.END_DOCUMENT;
+			}
+
+			String line = this.lines.get(this.index);
+
+			switch (line) {
+				case "{":
+					return Token.BEGIN_OBJECT;
+				case "}":
+					return Token.END_OBJECT;
+				case "[":
+					return Token.BEGIN_ARRAY;
+				case "]":
+					return Token.END_ARRAY;
+				default:
+					return line.startsWith("N:") ? Token.NAME : Token.SCALAR;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			Token token = this.peek();
+			return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+		}
+
+		@Override
+		public void beginObject() throws IOException {
+			this.next(Token.BEGIN_OBJECT);
+		}
+
+		@Override
+		public void endObject() throws IOException {
+			this.next(Token.END_OBJECT);
+		}
+
+		@Override
+		public void beginArray() throws IOException {
+			this.next(Token.BEGIN_ARRAY);
+		}
+
+		@Override
+		public void endArray() throws IOException {
+			this.next(Token.END_ARRAY);
+		}
+
+		@Override
+		public String nextName() throws IOException {
+			return unescape(this.next(Token.NAME).substring(2));
+		}
+
+		@Override
+		public Object nextScalar() throws IOException {
+			String line = this.next(Token.SCALAR);
+
+			if (line.equals("0")) {
+				return null;
+			}
+
+			String value = line.substring(2);
+
+			switch (line.charAt(0)) {
+				case 'L':
+					return Long.parseLong(value);
+				case 'D':
+					return Double.parseDouble(value);
+				case 'B':
+					return Boolean.parseBoolean(value);
+				default:
+					return unescape(value);
+			}
+		}
+
+		@Override
+		public void skipValue() {
+			int depth = 0;
+
+			do {
+				Token token = this.peek();
+
+				if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+					depth++;
+				} else if (token == Token.END_OBJECT || token == Token.END_ARRAY) {
+					depth--;
+				}
+
+				this.index++;
+			} while (depth > 0);
+		}
+
+		@Override
+		public void close() {
+
+		}
+	}
+}
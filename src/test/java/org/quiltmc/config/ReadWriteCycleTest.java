@@ -21,15 +21,30 @@
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.quiltmc.config.api.Config;
+import org.quiltmc.config.api.exceptions.ConfigParseException;
 import org.quiltmc.config.api.metadata.MetadataType;
+import org.quiltmc.config.api.serializer.Json5Serializer;
+import org.quiltmc.config.api.serializer.TomlSerializer;
 import org.quiltmc.config.api.values.TrackedValue;
 import org.quiltmc.config.api.values.ValueMap;
 import org.quiltmc.config.api.values.ValueTreeNode;
+import org.quiltmc.config.impl.ConfigBundle;
+import org.quiltmc.config.impl.ConfigLayout;
 import org.quiltmc.config.impl.util.ConfigsImpl;
+import org.quiltmc.config.impl.util.MappedFileReader;
+import org.quiltmc.config.implementor_api.ConfigEnvironment;
 import org.quiltmc.config.implementor_api.ConfigFactory;
 import org.quiltmc.config.reflective.TestReflectiveConfig;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public class ReadWriteCycleTest {
@@ -61,6 +76,302 @@ void testJson5ReadWriteCycle() {
 		matchConfigs(config, readConfig);
 	}
 
+	@Test
+	void testStreamingReadWriteCycle() throws IOException {
+		ConfigEnvironment env = new ConfigEnvironment(TestUtil.TEMP_DIR.resolve("streaming"), LineSerializer.INSTANCE);
+		TestReflectiveConfig config = ConfigFactory.create(env, "testmod", "streamingTestConfig", TestReflectiveConfig.class);
+		setUpConfig(config);
+
+		// Sections are written under their plain key, values under their serialized name
+		List<String> lines = Files.readAllLines(env.getSaveDir().resolve("testmod").resolve("streamingTestConfig.lines"));
+		Assertions.assertTrue(lines.contains("N:nested1"));
+		Assertions.assertFalse(lines.contains("N:reallyAwesomeNested"));
+		Assertions.assertTrue(lines.contains("N:george"));
+
+		TestReflectiveConfig readConfig = ConfigFactory.create(env, "testmod", "streamingTestConfig", TestReflectiveConfig.class);
+		matchConfigs(config, readConfig);
+	}
+
+	@Test
+	void testWronglyTypedEntry() throws IOException {
+		Path file = TestUtil.TEMP_DIR.resolve("testmod_typo").resolve("typoTestConfig.json5");
+		Files.createDirectories(file.getParent());
+		Files.write(file, "{\n\ta: 5,\n\tb: [1, 2],\n\tc: \"kept\",\n\td: 7\n}\n".getBytes(StandardCharsets.UTF_8));
+
+		TrackedValue<Integer> a = TrackedValue.create(0, "a");
+		TrackedValue<Integer> b = TrackedValue.create(0, "b");
+		TrackedValue<String> c = TrackedValue.create("", "c");
+		TrackedValue<String> d = TrackedValue.create("", "d");
+		Config config = ConfigFactory.create(TestUtil.JSON5_ENV, "testmod_typo", "typoTestConfig", builder -> {
+			builder.field(a);
+			builder.field(b);
+			builder.field(c);
+			builder.field(d);
+		});
+
+		// Only the entries of the wrong type are skipped
+		Assertions.assertEquals(5, a.value());
+		Assertions.assertEquals(0, b.value());
+		Assertions.assertEquals("kept", c.value());
+		Assertions.assertEquals("", d.value());
+		ConfigsImpl.remove(config);
+
+		// The file is rewritten with the values that were read rather than with their defaults
+		TrackedValue<Integer> readA = TrackedValue.create(0, "a");
+		TrackedValue<String> readC = TrackedValue.create("", "c");
+		ConfigFactory.create(TestUtil.JSON5_ENV, "testmod_typo", "typoTestConfig", builder -> {
+			builder.field(readA);
+			builder.field(TrackedValue.create(0, "b"));
+			builder.field(readC);
+			builder.field(TrackedValue.create("", "d"));
+		});
+
+		Assertions.assertEquals(5, readA.value());
+		Assertions.assertEquals("kept", readC.value());
+	}
+
+	@Test
+	void testMappedRead() throws IOException {
+		// Large enough to be read through a memory-mapped file
+		StringBuilder text = new StringBuilder(2 << 20);
+
+		while (text.length() < 2 << 20) {
+			text.append("abcdefghijklmnopqrstuvwxyz");
+		}
+
+		Path file = TestUtil.TEMP_DIR.resolve("testmod_mapped").resolve("mappedTestConfig.json5");
+		Files.createDirectories(file.getParent());
+		Files.write(file, ("{\n\tnumber: 5,\n\ttext: \"" + text + "\"\n}\n").getBytes(StandardCharsets.UTF_8));
+
+		if (MappedFileReader.isSupported()) {
+			StringBuilder read = new StringBuilder();
+
+			try (MappedFileReader reader = MappedFileReader.open(file, StandardCharsets.UTF_8)) {
+				char[] buffer = new char[8192];
+				int length;
+
+				while ((length = reader.read(buffer, 0, buffer.length)) != -1) {
+					read.append(buffer, 0, length);
+				}
+			}
+
+			Assertions.assertEquals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), read.toString());
+		}
+
+		TrackedValue<Integer> number = TrackedValue.create(0, "number");
+		TrackedValue<String> string = TrackedValue.create("", "text");
+		Config config = ConfigFactory.create(TestUtil.JSON5_ENV, "testmod_mapped", "mappedTestConfig", builder -> {
+			builder.field(number);
+			builder.field(string);
+		});
+
+		Assertions.assertEquals(5, number.value());
+		Assertions.assertEquals(text.toString(), string.value());
+
+		// The mapping is released once read, so the file can be rewritten right away
+		number.setValue(6, true);
+		ConfigsImpl.remove(config);
+
+		TrackedValue<Integer> readNumber = TrackedValue.create(0, "number");
+		ConfigFactory.create(TestUtil.JSON5_ENV, "testmod_mapped", "mappedTestConfig", builder -> {
+			builder.field(readNumber);
+			builder.field(TrackedValue.create("", "text"));
+		});
+
+		Assertions.assertEquals(6, readNumber.value());
+	}
+
+	@Test
+	void testAddedValuesSurviveRestart() {
+		ConfigEnvironment env = new ConfigEnvironment(TestUtil.TEMP_DIR.resolve("added_values"), LineSerializer.INSTANCE);
+		TrackedValue<Integer> a = TrackedValue.create(0, "a");
+		Config config = ConfigFactory.create(env, "testmod", "addedValuesTestConfig", builder -> builder.field(a));
+
+		TrackedValue<Integer> nether = TrackedValue.create(0, "dimensions", "nether");
+		TrackedValue<String> name = TrackedValue.create("", "name");
+		config.addValue(nether);
+		config.addSection(Collections.singletonList("extra"), section -> section.field(name));
+		nether.setValue(5, true);
+		name.setValue("saved", true);
+		ConfigsImpl.remove(config);
+
+		TrackedValue<Integer> readA = TrackedValue.create(0, "a");
+		Config readConfig = ConfigFactory.create(env, "testmod", "addedValuesTestConfig", builder -> builder.field(readA));
+
+		// Values that were not saved yet keep their changes when values are added
+		readA.setValue(3, false);
+
+		TrackedValue<Integer> readNether = TrackedValue.create(0, "dimensions", "nether");
+		readConfig.addValue(readNether);
+		readConfig.addSection(Collections.singletonList("extra"), section -> section.field(TrackedValue.create("", "name")));
+
+		Assertions.assertEquals(5, readNether.value());
+		Assertions.assertEquals("saved", readConfig.getValue(Arrays.asList("extra", "name")).value());
+		Assertions.assertEquals(3, readA.value());
+
+		// Entries are only kept until a value is read from them
+		readConfig.removeNode(Arrays.asList("dimensions", "nether"));
+		TrackedValue<Integer> addedAgain = TrackedValue.create(0, "dimensions", "nether");
+		readConfig.addValue(addedAgain);
+		Assertions.assertEquals(0, addedAgain.value());
+	}
+
+	@Test
+	void testJournalReplay() {
+		Path journal = TestUtil.TEMP_DIR.resolve("testmod").resolve("journalTestConfig.journal");
+		TestReflectiveConfig config = ConfigFactory.create(TestUtil.TOML_ENV, "testmod", "journalTestConfig", builder -> builder.journal(100), TestReflectiveConfig.class, builder -> {});
+		setUpConfig(config);
+
+		Assertions.assertTrue(Files.exists(journal));
+
+		TestReflectiveConfig readConfig = ConfigFactory.create(TestUtil.TOML_ENV, "testmod", "journalTestConfig", builder -> builder.journal(100), TestReflectiveConfig.class, builder -> {});
+		matchConfigs(config, readConfig);
+
+		Assertions.assertFalse(Files.exists(journal));
+	}
+
+	@Test
+	void testJournalReplayIgnoresStaleKeys() throws IOException {
+		Path journal = TestUtil.TEMP_DIR.resolve("testmod").resolve("staleJournalTestConfig.journal");
+		Files.createDirectories(journal.getParent());
+		Files.write(journal, ("{\"key\":[\"missing\",\"value\"],\"value\":1}\n{\"key\":[\"a\"],\"value\":1000}\n").getBytes(StandardCharsets.UTF_8));
+
+		TestReflectiveConfig config = ConfigFactory.create(TestUtil.TOML_ENV, "testmod", "staleJournalTestConfig", builder -> builder.journal(100), TestReflectiveConfig.class, builder -> {});
+
+		Assertions.assertEquals(1000, config.a.value());
+		Assertions.assertNull(config.getNode(Arrays.asList("missing")));
+		Assertions.assertNull(config.getNode(Arrays.asList("missing", "value")));
+	}
+
+	@Test
+	void testBundleStorage() throws IOException {
+		ConfigEnvironment env = new ConfigEnvironment(TestUtil.TEMP_DIR.resolve("bundled"), TomlSerializer.INSTANCE);
+		env.setStorage(ConfigEnvironment.Storage.FAMILY_BUNDLES);
+
+		TestReflectiveConfig config = ConfigFactory.create(env, "testmod", "bundleTestConfig", TestReflectiveConfig.class);
+		setUpConfig(config);
+
+		Path file = env.getSaveDir().resolve("testmod").resolve("bundleTestConfig.toml");
+		Assertions.assertTrue(Files.exists(env.getSaveDir().resolve("testmod.bundle")));
+		Assertions.assertFalse(Files.exists(file));
+
+		TestReflectiveConfig readConfig = ConfigFactory.create(env, "testmod", "bundleTestConfig", TestReflectiveConfig.class);
+		matchConfigs(config, readConfig);
+
+		env.exportBundles();
+		Assertions.assertTrue(Files.exists(file));
+	}
+
+	@Test
+	void testCorruptBundle() throws IOException {
+		ConfigEnvironment env = new ConfigEnvironment(TestUtil.TEMP_DIR.resolve("corrupt_bundle"), LineSerializer.INSTANCE);
+		env.setStorage(ConfigEnvironment.Storage.FAMILY_BUNDLES);
+		Path bundle = env.getSaveDir().resolve("testmod.bundle");
+
+		TestReflectiveConfig config = ConfigFactory.create(env, "testmod", "corruptBundleTestConfig", TestReflectiveConfig.class);
+		setUpConfig(config);
+
+		// A record whose length is negative is dropped along with everything after it, keeping the records before it
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(bundle, StandardOpenOption.APPEND))) {
+			out.writeUTF("testmod/other.lines");
+			out.writeInt(-5);
+			out.write(new byte[16]);
+		}
+
+		ConfigBundle read = new ConfigBundle(bundle);
+		Assertions.assertNull(read.get("testmod/other.lines"));
+		Assertions.assertNotNull(read.get("testmod/corruptBundleTestConfig.lines"));
+
+		TestReflectiveConfig readConfig = ConfigFactory.create(env, "testmod", "corruptBundleTestConfig", TestReflectiveConfig.class);
+		matchConfigs(config, readConfig);
+
+		// A file that is not a bundle at all is never written to
+		byte[] garbage = "not a bundle".getBytes(StandardCharsets.UTF_8);
+		Files.write(bundle, garbage);
+
+		ConfigBundle corrupt = new ConfigBundle(bundle);
+		Assertions.assertThrows(ConfigParseException.class, () -> corrupt.put("testmod/other.lines", new byte[1]));
+		Assertions.assertThrows(ConfigParseException.class, corrupt::compact);
+		Assertions.assertArrayEquals(garbage, Files.readAllBytes(bundle));
+	}
+
+	@Test
+	void testLayoutPreservingSave() throws IOException {
+		Path file = TestUtil.TEMP_DIR.resolve("testmod_layout").resolve("layoutTestConfig.toml");
+		Files.createDirectories(file.getParent());
+		Files.write(file, "# hand written\nnumber = 1 # keep me\n\n[section]\n    text = \"abc\"\n".getBytes(StandardCharsets.UTF_8));
+
+		TrackedValue<Integer> number = TrackedValue.create(0, "number");
+		ConfigFactory.create(TestUtil.TOML_ENV, "testmod_layout", "layoutTestConfig", builder -> {
+			builder.preserveLayout();
+			builder.field(number);
+			builder.section("section", section -> section.field(TrackedValue.create("", "text")));
+		});
+
+		Assertions.assertEquals(1, number.value());
+
+		// Literals that outgrow their room are given some more
+		number.setValue(12345, true);
+		Assertions.assertEquals("# hand written\nnumber = 12345     # keep me\n\n[section]\n    text = \"abc\"\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testJson5LayoutPreservingSave() throws IOException {
+		Path file = TestUtil.TEMP_DIR.resolve("testmod_layout").resolve("json5LayoutTestConfig.json5");
+		Files.createDirectories(file.getParent());
+		Files.write(file, "// hand written\n{\n\t/* block */ \"number\": 1, // keep me\n\t'quoted key': \"abc\",\n\tsection: {\n\t\ttext: \"x\" // trailing\n\t},\n}\n".getBytes(StandardCharsets.UTF_8));
+
+		TrackedValue<Integer> number = TrackedValue.create(0, "number");
+		TrackedValue<String> quoted = TrackedValue.create("", "quoted key");
+		TrackedValue<String> text = TrackedValue.create("", "text");
+		ConfigFactory.create(TestUtil.JSON5_ENV, "testmod_layout", "json5LayoutTestConfig", builder -> {
+			builder.preserveLayout();
+			builder.field(number);
+			builder.field(quoted);
+			builder.section("section", section -> section.field(text));
+		});
+
+		Assertions.assertEquals(1, number.value());
+		Assertions.assertEquals("abc", quoted.value());
+		Assertions.assertEquals("x", text.value());
+
+		// Written in place
+		number.setValue(7, true);
+		quoted.setValue("xyz", true);
+		Assertions.assertEquals("// hand written\n{\n\t/* block */ \"number\": 7, // keep me\n\t'quoted key': \"xyz\",\n\tsection: {\n\t\ttext: \"x\" // trailing\n\t},\n}\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+		// Moving the literals after it, and leaving room to grow into
+		number.setValue(12345, true);
+		text.setValue("longer", true);
+		quoted.setValue("abc", true);
+		Assertions.assertEquals("// hand written\n{\n\t/* block */ \"number\": 12345    , // keep me\n\t'quoted key': \"abc\",\n\tsection: {\n\t\ttext: \"longer\"     // trailing\n\t},\n}\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+		// Written in place, within that room
+		number.setValue(9, true);
+		number.setValue(10, true);
+		Assertions.assertEquals("// hand written\n{\n\t/* block */ \"number\": 10       , // keep me\n\t'quoted key': \"abc\",\n\tsection: {\n\t\ttext: \"longer\"     // trailing\n\t},\n}\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testLayoutPatchesInPlace() {
+		String text = "{\n\tflag: true,\n\tcount: 9, // comment\n\tname: \"abc\"  \n}\n";
+		ConfigLayout layout = ConfigLayout.scan(Json5Serializer.INSTANCE, text);
+		Assertions.assertNotNull(layout);
+
+		// Literals of the same length, shorter ones, and longer ones that fit in the spaces after them are written in place
+		Assertions.assertTrue(layout.patch(Collections.singletonList("count"), "8").isInPlace());
+		Assertions.assertTrue(layout.patch(Collections.singletonList("name"), "\"a\"").isInPlace());
+		Assertions.assertTrue(layout.patch(Collections.singletonList("name"), "\"abcd\"").isInPlace());
+		Assertions.assertTrue(layout.patch(Collections.singletonList("name"), "\"abcde\"").isInPlace());
+
+		// Others move the rest of the file once, after which they have room to grow into
+		Assertions.assertFalse(layout.patch(Collections.singletonList("flag"), "false").isInPlace());
+		Assertions.assertTrue(layout.patch(Collections.singletonList("flag"), "true").isInPlace());
+		Assertions.assertTrue(layout.patch(Collections.singletonList("flag"), "false").isInPlace());
+		Assertions.assertFalse(layout.patch(Collections.singletonList("count"), "10").isInPlace());
+		Assertions.assertTrue(layout.patch(Collections.singletonList("count"), "12345").isInPlace());
+	}
+
 	/**
 	 * Sets a bunch of nonsense on the config so that it isn't default: if all values were default we wouldn't be able to tell if they were deserialized or not.
 	 */
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.quiltmc.config.api.Config;
+import org.quiltmc.config.api.MarshallingUtils;
+import org.quiltmc.config.api.exceptions.ConfigParseException;
+import org.quiltmc.config.api.values.ConfigSerializableObject;
+import org.quiltmc.config.api.values.TrackedValue;
+import org.quiltmc.config.api.values.ValueList;
+import org.quiltmc.config.api.values.ValueMap;
+import org.quiltmc.config.impl.util.ConfigsImpl;
+import org.quiltmc.config.impl.util.ValueCodec;
+import org.quiltmc.config.implementor_api.ConfigEnvironment;
+import org.quiltmc.config.implementor_api.ConfigFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ValueCodecTest {
+	private static final MarshallingUtils.ValueMapCreator<Map<String, ?>> MAP_READER = (map, entryConsumer) -> map.forEach(entryConsumer::put);
+
+	@BeforeAll
+	public static void initializeConfigDir() throws IOException {
+		TestUtil.deleteTempDir();
+	}
+
+	@AfterAll
+	public static void deleteConfigDir() throws IOException {
+		TestUtil.deleteTempDir();
+	}
+
+	@Test
+	void testEnums() {
+		ValueCodec codec = ValueCodec.of(Mode.ALPHA);
+		Assertions.assertEquals(ValueCodec.Kind.ENUM, codec.kind());
+		Assertions.assertSame(codec, ValueCodec.of(Mode.GAMMA));
+
+		for (Mode mode : Mode.values()) {
+			Assertions.assertSame(mode, roundTrip(mode));
+		}
+
+		Assertions.assertSame(Mode.BETA, codec.coerce("beta", MAP_READER));
+		Assertions.assertSame(Mode.BETA, codec.coerce("Beta", MAP_READER));
+		Assertions.assertThrows(ConfigParseException.class, () -> codec.coerce("DELTA", MAP_READER));
+	}
+
+	@Test
+	void testNestedLists() {
+		ValueList<ValueList<Integer>> lists = ValueList.create(ValueList.create(0), ValueList.create(0, 1, 2), ValueList.create(0), ValueList.create(0, 3));
+		ValueCodec codec = ValueCodec.of(lists);
+		Assertions.assertEquals(ValueCodec.Kind.LIST, codec.kind());
+		Assertions.assertEquals(ValueCodec.Kind.LIST, codec.element().kind());
+		Assertions.assertEquals(ValueCodec.Kind.INTEGER, codec.element().element().kind());
+
+		ValueList<ValueList<Integer>> read = roundTrip(lists);
+		Assertions.assertEquals(lists, read);
+		Assertions.assertEquals(ValueList.create(0), read.getDefaultValue());
+		Assertions.assertEquals(0, read.get(1).getDefaultValue());
+	}
+
+	@Test
+	void testMaps() {
+		ValueMap<Integer> map = ValueMap.builder(0).put("a", 1).put("c", 3).put("b", 2).build();
+		ValueMap<Integer> read = roundTrip(map);
+		Assertions.assertEquals(map, read);
+		Assertions.assertEquals(Arrays.asList("a", "c", "b"), keys(read));
+
+		ValueMap<ValueList<String>> lists = ValueMap.builder(ValueList.create("")).put("empty", ValueList.create("")).put("full", ValueList.create("", "x", "y")).build();
+		Assertions.assertEquals(lists, roundTrip(lists));
+
+		ValueList<ValueMap<Integer>> maps = ValueList.create(ValueMap.builder(0).build(), ValueMap.builder(0).put("a", 1).build(), ValueMap.builder(0).build());
+		Assertions.assertEquals(maps, roundTrip(maps));
+	}
+
+	@Test
+	void testSerializableObjects() {
+		Vec3i vec = new Vec3i(1, -2, 3);
+		ValueCodec codec = ValueCodec.of(new Vec3i(0, 0, 0));
+		Assertions.assertEquals(ValueCodec.Kind.SERIALIZABLE, codec.kind());
+		Assertions.assertEquals(ValueCodec.Kind.MAP, codec.element().kind());
+		Assertions.assertEquals(vec, roundTrip(vec));
+
+		ValueList<Vec3i> vecs = ValueList.create(new Vec3i(0, 0, 0), new Vec3i(1, 2, 3), new Vec3i(4, 5, 6));
+		Assertions.assertEquals(vecs, roundTrip(vecs));
+	}
+
+	@Test
+	void testNumberConversions() {
+		// Parsers may read any number as a wider or narrower type than the value holds
+		Assertions.assertEquals(Integer.valueOf(5), ValueCodec.of(0).coerce(5L, MAP_READER));
+		Assertions.assertEquals(Integer.valueOf(2), ValueCodec.of(0).coerce(2.75D, MAP_READER));
+		Assertions.assertEquals(Long.valueOf(7), ValueCodec.of(0L).coerce(7, MAP_READER));
+		Assertions.assertEquals(Long.valueOf(Long.MAX_VALUE), ValueCodec.of(0L).coerce(Long.MAX_VALUE, MAP_READER));
+		Assertions.assertEquals(Float.valueOf(0.5F), ValueCodec.of(0F).coerce(0.5D, MAP_READER));
+		Assertions.assertEquals(Float.valueOf(3F), ValueCodec.of(0F).coerce(3, MAP_READER));
+		Assertions.assertEquals(Double.valueOf(0.25D), ValueCodec.of(0D).coerce(0.25F, MAP_READER));
+		Assertions.assertEquals(Double.valueOf(3D), ValueCodec.of(0D).coerce(3L, MAP_READER));
+
+		// Narrowing keeps the low bits, like a cast
+		Assertions.assertEquals(Integer.valueOf(0), ValueCodec.of(0).coerce(1L << 32, MAP_READER));
+
+		// Elements of lists and maps are converted the same way
+		Assertions.assertEquals(ValueList.create(0L, 1L, 2L), ValueCodec.of(ValueList.create(0L)).coerce(Arrays.asList(1, 2L), MAP_READER));
+
+		Map<String, Object> doubles = new LinkedHashMap<>();
+		doubles.put("a", 1);
+		doubles.put("b", 2.5F);
+		Assertions.assertEquals(ValueMap.builder(0D).put("a", 1D).put("b", 2.5D).build(), ValueCodec.of(ValueMap.builder(0D).build()).coerce(doubles, MAP_READER));
+	}
+
+	@Test
+	void testStreamingRoundTrip() {
+		ConfigEnvironment env = new ConfigEnvironment(TestUtil.TEMP_DIR.resolve("codec"), LineSerializer.INSTANCE);
+		List<Object> defaults = Arrays.asList(0, 0L, 0F, 0D, false, "", Mode.ALPHA,
+				ValueList.create(ValueList.create(0)),
+				ValueMap.builder(ValueList.create("")).build(),
+				new Vec3i(0, 0, 0)
+		);
+		List<Object> values = Arrays.asList(-12, Long.MIN_VALUE, 1.5F, -0.125D, true, "text", Mode.GAMMA,
+				ValueList.create(ValueList.create(0), ValueList.create(0, 1, 2), ValueList.create(0)),
+				ValueMap.builder(ValueList.create("")).put("a", ValueList.create("", "x")).put("b", ValueList.create("")).build(),
+				new Vec3i(7, 8, 9)
+		);
+
+		List<TrackedValue<Object>> written = create(env, defaults);
+
+		for (int i = 0; i < values.size(); i++) {
+			written.get(i).setValue(values.get(i), false);
+		}
+
+		Config config = ConfigsImpl.getConfig("testmod_codec", "codecTestConfig");
+		config.save();
+		ConfigsImpl.remove(config);
+
+		List<TrackedValue<Object>> read = create(env, defaults);
+
+		for (int i = 0; i < values.size(); i++) {
+			Assertions.assertEquals(values.get(i), read.get(i).value(), read.get(i).key().toString());
+		}
+	}
+
+	private static List<TrackedValue<Object>> create(ConfigEnvironment env, List<Object> defaults) {
+		List<TrackedValue<Object>> values = new ArrayList<>();
+
+		for (int i = 0; i < defaults.size(); i++) {
+			values.add(TrackedValue.create(defaults.get(i), "value" + i));
+		}
+
+		ConfigFactory.create(env, "testmod_codec", "codecTestConfig", builder -> values.forEach(builder::field));
+
+		return values;
+	}
+
+	/**
+	 * Converts a value to the plain objects a parser would produce for it, and back.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T roundTrip(T value) {
+		ValueCodec codec = ValueCodec.of(value);
+
+		return (T) codec.coerce(toPlain(codec, value), MAP_READER);
+	}
+
+	private static Object toPlain(ValueCodec codec, Object value) {
+		switch (codec.kind()) {
+			case ENUM:
+				return ((Enum<?>) value).name();
+			case LIST: {
+				List<Object> list = new ArrayList<>();
+
+				for (Object element : (ValueList<?>) value) {
+					list.add(toPlain(codec.element(), element));
+				}
+
+				return list;
+			}
+			case MAP: {
+				Map<String, Object> map = new LinkedHashMap<>();
+
+				for (Map.Entry<String, ?> entry : (ValueMap<?>) value) {
+					map.put(entry.getKey(), toPlain(codec.element(), entry.getValue()));
+				}
+
+				return map;
+			}
+			case SERIALIZABLE:
+				return toPlain(codec.element(), ((ConfigSerializableObject<?>) value).getRepresentation());
+			default:
+				return value;
+		}
+	}
+
+	private static List<String> keys(ValueMap<?> map) {
+		List<String> keys = new ArrayList<>();
+
+		for (Map.Entry<String, ?> entry : map) {
+			keys.add(entry.getKey());
+		}
+
+		return keys;
+	}
+
+	private enum Mode {
+		ALPHA, BETA, GAMMA
+	}
+}
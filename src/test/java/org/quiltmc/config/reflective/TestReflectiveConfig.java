@@ -80,11 +80,16 @@ public final class TestReflectiveConfig extends ReflectiveConfig {
 			ValueMap.builder(0).put("a", 1).put("b", 2).put("c", 3).put("d", 4).build()
 	);
 
+	public static int configsProcessed;
+	public static int fieldsProcessed;
+
 	public void processConfig(Config.Builder builder) {
+		++configsProcessed;
 		System.out.println("Processing config!");
 	}
 
 	public void processField(TrackedValue.Builder<Vec3i> process) {
+		++fieldsProcessed;
 		System.out.println("Processing field!");
 	}
 
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2024 QuiltMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.quiltmc.config.reflective;
+
+import org.quiltmc.config.api.WrappedConfig;
+
+@SuppressWarnings("deprecation")
+public final class TestWrappedConfig extends WrappedConfig {
+	// Not compile-time constants, so that reads of these fields are not inlined
+	public final Integer a = 0;
+	public final Integer b = 1;
+	public final String c = String.valueOf('c');
+}